@@ -0,0 +1,64 @@
+package marblesolitaire.benchmark;
+
+import marblesolitaire.model.MarbleSolitaireModel;
+import marblesolitaire.model.SlotState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This benchmark measures the read operations of MarbleSolitaireModel on a position in the
+ * middle of a game, for every model implementation and arm thickness
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelBenchmark {
+
+    @Param({"3", "5", "7", "9", "21"})
+    int arm;
+
+    @Param({Positions.IMPL, Positions.BITBOARD, Positions.METERED})
+    String model;
+
+    private MarbleSolitaireModel midgame;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        this.midgame = Positions.midgame(this.model, this.arm, 42);
+    }
+
+    @Benchmark
+    public boolean isGameOver(){
+        return this.midgame.isGameOver();
+    }
+
+    @Benchmark
+    public String getGameState(){
+        return this.midgame.getGameState();
+    }
+
+    @Benchmark
+    public int getScore(){
+        return this.midgame.getScore();
+    }
+
+    @Benchmark
+    public SlotState[][] getBoard(){
+        return Positions.board(this.midgame);
+    }
+}
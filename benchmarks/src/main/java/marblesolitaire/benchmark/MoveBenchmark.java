@@ -0,0 +1,56 @@
+package marblesolitaire.benchmark;
+
+import marblesolitaire.model.MarbleSolitaireModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This benchmark measures a single valid move, the opening move into the center of the board.
+ * A move can only be made once, so the model is built once per trial and the move of the previous
+ * invocation is taken back by undo before each invocation. The undo allocates nothing, so the gc
+ * numbers are those of the move alone, the per invocation setup still adds a few tens of nanoseconds of noise
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveBenchmark {
+
+    @Param({"3", "5", "7", "9", "21"})
+    int arm;
+
+    @Param({Positions.IMPL, Positions.BITBOARD, Positions.METERED})
+    String model;
+
+    private MarbleSolitaireModel game;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        this.game = Positions.start(this.model, this.arm);
+    }
+
+    @Setup(Level.Invocation)
+    public void reset(){
+        Positions.undo(this.game);
+    }
+
+    @Benchmark
+    public int move(){
+        this.game.move(this.arm - 2, this.arm, this.arm, this.arm);
+        return this.game.getScore();
+    }
+}
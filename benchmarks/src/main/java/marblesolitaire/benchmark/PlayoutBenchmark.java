@@ -0,0 +1,47 @@
+package marblesolitaire.benchmark;
+
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This benchmark measures full random playout throughput in games per second, each game
+ * constructs a new model and makes random legal moves until the game is over
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlayoutBenchmark {
+
+    @Param({"3", "5", "7", "9", "21"})
+    int arm;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Benchmark
+    public int randomPlayout(){
+        MarbleSolitaireModelImpl game = new MarbleSolitaireModelImpl(this.arm);
+        while(!game.isGameOver()){
+            List<Move> moves = game.getLegalMoves();
+            Move m = moves.get(this.random.nextInt(moves.size()));
+            game.move(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol());
+        }
+        return game.getScore();
+    }
+}
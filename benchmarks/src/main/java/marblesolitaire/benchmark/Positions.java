@@ -0,0 +1,85 @@
+package marblesolitaire.benchmark;
+
+import marblesolitaire.metrics.MeteredModel;
+import marblesolitaire.metrics.ModelMetrics;
+import marblesolitaire.model.BitboardMarbleSolitaireModel;
+import marblesolitaire.model.MarbleSolitaireModel;
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+import marblesolitaire.model.SlotState;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class builds the positions used by the benchmarks, for each model type
+ * named by the "model" benchmark parameter
+ */
+final class Positions {
+    static final String IMPL = "impl";
+    static final String BITBOARD = "bitboard";
+    // the impl model wrapped in a MeteredModel, to measure the cost of the metrics
+    static final String METERED = "metered";
+
+    private Positions(){}
+
+    /**
+     * This method creates a model at the start of a game, empty slot at the center
+     * @param type IMPL, BITBOARD or METERED
+     * @param arm arm thickness of the board
+     * @return the new model
+     */
+    static MarbleSolitaireModel start(String type, int arm){
+        switch(type){
+            case IMPL: return new MarbleSolitaireModelImpl(arm);
+            case BITBOARD: return new BitboardMarbleSolitaireModel(arm);
+            case METERED: return new MeteredModel(new MarbleSolitaireModelImpl(arm), new ModelMetrics());
+            default: throw new IllegalArgumentException("Unknown model type " + type);
+        }
+    }
+
+    /**
+     * This method creates a model in the middle of a game, reached by random legal moves
+     * from the start until half of the marbles are gone or the game is over.
+     * The same seed gives the same position for every model type
+     * @param type IMPL, BITBOARD or METERED
+     * @param arm arm thickness of the board
+     * @param seed seed of the random moves
+     * @return the new model
+     */
+    static MarbleSolitaireModel midgame(String type, int arm, long seed){
+        MarbleSolitaireModelImpl reference = new MarbleSolitaireModelImpl(arm);
+        MarbleSolitaireModel model = start(type, arm);
+        Random random = new Random(seed);
+        int target = reference.getScore() / 2;
+        while(reference.getScore() > target && !reference.isGameOver()){
+            List<Move> moves = reference.getLegalMoves();
+            Move m = moves.get(random.nextInt(moves.size()));
+            reference.move(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol());
+            model.move(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol());
+        }
+        return model;
+    }
+
+    /**
+     * This method takes back the last move of a model, without allocating
+     * @param model the model
+     * @return true if a move was taken back, false if no move has been made
+     */
+    static boolean undo(MarbleSolitaireModel model){
+        if(model instanceof MeteredModel) model = ((MeteredModel) model).getModel();
+        if(model instanceof MarbleSolitaireModelImpl) return ((MarbleSolitaireModelImpl) model).undo();
+        return ((BitboardMarbleSolitaireModel) model).undo();
+    }
+
+    /**
+     * This method returns the board copy of a model, for the models that offer one
+     * @param model the model
+     * @return a copy of the board
+     */
+    static SlotState[][] board(MarbleSolitaireModel model){
+        if(model instanceof MarbleSolitaireModelImpl) return ((MarbleSolitaireModelImpl) model).getBoard();
+        if(model instanceof MeteredModel) return ((MeteredModel) model).getBoard();
+        return ((BitboardMarbleSolitaireModel) model).getBoard();
+    }
+}
@@ -1,18 +1,29 @@
 package marblesolitaire;
 
 import marblesolitaire.controller.Controller;
+import marblesolitaire.metrics.ModelMetrics;
 import marblesolitaire.model.MarbleSolitaireModelImpl;
 import marblesolitaire.view.JFrameView;
 
+import java.util.Arrays;
+
 /**
  * This is the main class, it initializes the model, the view and pass them all the controller
  * It then pass the controller into the view to achieve interaction between view and controller
+ * Run with the argument --async to make moves off the Swing event dispatch thread,
+ * and --metrics to record ModelMetrics of the game, read with JMX clients such as jconsole
  */
 public class Main {
     public static void main(String []args){
         MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl();
+        if(Arrays.asList(args).contains("--metrics")){
+            ModelMetrics metrics = new ModelMetrics();
+            metrics.register("game");
+            model.setMetrics(metrics);
+        }
         JFrameView view = new JFrameView("Peter's Marble Solitaire");
-        Controller controller = new Controller(model, view);
+        boolean async = Arrays.asList(args).contains("--async");
+        Controller controller = new Controller(model, view, async);
         view.setController(controller);
     }
 }
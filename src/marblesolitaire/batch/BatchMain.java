@@ -0,0 +1,79 @@
+package marblesolitaire.batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * This is the headless entry point, it plays games with the BatchRunner instead of starting
+ * the Swing view. Options, all optional:
+ * --games N       games per start position, default 10000
+ * --arms 3,5      arm thicknesses, default 3
+ * --starts S      center (default) or all, every valid empty slot
+ * --strategy S    random (default) or mobility
+ * --threads N     default one per processor
+ * --seed N        default 1
+ * --out FILE      CSV file, default standard output
+ * An unknown option or an option without its value is rejected with an IllegalArgumentException.
+ */
+public class BatchMain {
+    public static void main(String[] args) throws IOException{
+        long games = 10_000;
+        List<Integer> arms = new ArrayList<>();
+        String starts = "center";
+        String strategy = "random";
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        String out = null;
+        for(int i = 0; i < args.length; i += 2){
+            if(i + 1 == args.length) throw new IllegalArgumentException(String.format("Missing value of option %s", args[i]));
+            switch(args[i]){
+                case "--games": games = Long.parseLong(args[i + 1]); break;
+                case "--arms":
+                    for(String arm : args[i + 1].split(",")) arms.add(Integer.parseInt(arm.trim()));
+                    break;
+                case "--starts": starts = args[i + 1]; break;
+                case "--strategy": strategy = args[i + 1]; break;
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                case "--out": out = args[i + 1]; break;
+                default: throw new IllegalArgumentException(String.format("Unknown option %s", args[i]));
+            }
+        }
+        if(arms.isEmpty()) arms.add(3);
+
+        List<StartPosition> positions = new ArrayList<>();
+        for(int arm : arms){
+            if(starts.equals("all")) positions.addAll(StartPosition.all(arm));
+            else positions.add(StartPosition.center(arm));
+        }
+        Supplier<Strategy> strategies = strategyNamed(strategy);
+
+        try(Writer writer = out == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(Paths.get(out), StandardCharsets.UTF_8)){
+            new BatchRunner(threads).run(positions, games, strategies, seed, writer);
+        }
+    }
+
+    /**
+     * This method returns a supplier of the strategy with the given name
+     * @param name random or mobility
+     * @return the supplier
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    static Supplier<Strategy> strategyNamed(String name) throws IllegalArgumentException{
+        switch(name){
+            case "random": return RandomStrategy::new;
+            case "mobility": return MobilityStrategy::new;
+            default: throw new IllegalArgumentException(String.format("Unknown strategy %s", name));
+        }
+    }
+}
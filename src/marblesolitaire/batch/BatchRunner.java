@@ -0,0 +1,127 @@
+package marblesolitaire.batch;
+
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * This class plays many games of marble solitaire without a view and writes the distribution
+ * of final scores of every start position as CSV. The games of a start are split into chunks
+ * run on a fixed thread pool, each chunk plays its games on one model that is reset with undo
+ * between games and counts the final scores in a histogram. Only the histograms are kept,
+ * one start at a time, and each start's rows are written as soon as it is finished.
+ */
+public class BatchRunner {
+    private static final int CHUNK_SIZE = 10_000;
+
+    private final int threads;
+
+    /**
+     * Constructor of the class, takes in the number of threads to play games on
+     * @param threads, number of threads
+     * @throws IllegalArgumentException if threads is not positive
+     */
+    public BatchRunner(int threads) throws IllegalArgumentException{
+        if(threads <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid thread count %d, must be positive", threads));
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * This method plays the games of every start and writes the score distributions, one line
+     * per start and final score that happened at least once, after a header line:
+     * arm,row,col,strategy,score,count
+     * @param starts the start positions
+     * @param gamesPerStart number of games played from each start
+     * @param strategies creates a strategy for each chunk of games
+     * @param seed seed of the random numbers, the same seed gives the same output
+     * @param out where the CSV is written
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if a start is invalid
+     */
+    public void run(List<StartPosition> starts, long gamesPerStart, Supplier<Strategy> strategies,
+                    long seed, Appendable out) throws IOException, IllegalArgumentException{
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        try{
+            out.append("arm,row,col,strategy,score,count\n");
+            SplittableRandom master = new SplittableRandom(seed);
+            for(StartPosition start : starts){
+                String name = strategies.get().getName();
+                long[] histogram = this.play(pool, start, gamesPerStart, strategies, master);
+                for(int score = 0; score < histogram.length; score++){
+                    if(histogram[score] == 0) continue;
+                    out.append(String.format("%d,%d,%d,%s,%d,%d%n", start.getArm(), start.getRow(),
+                            start.getCol(), name, score, histogram[score]));
+                }
+                if(out instanceof Flushable) ((Flushable) out).flush();
+            }
+        }finally{
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * This method plays all games of one start on the pool and merges the chunk histograms
+     * @return the histogram, element i is the number of games that ended with score i
+     */
+    private long[] play(ExecutorService pool, StartPosition start, long games,
+                        Supplier<Strategy> strategies, SplittableRandom master){
+        MarbleSolitaireModelImpl first = start.newGame();
+        List<Future<long[]>> chunks = new ArrayList<>();
+        for(long played = 0; played < games; played += CHUNK_SIZE){
+            int size = (int) Math.min(CHUNK_SIZE, games - played);
+            chunks.add(pool.submit(chunk(start, size, strategies.get(), master.split())));
+        }
+        long[] histogram = new long[first.getScore() + 1];
+        try{
+            for(Future<long[]> chunk : chunks){
+                long[] counts = chunk.get();
+                for(int i = 0; i < counts.length; i++){
+                    histogram[i] += counts[i];
+                }
+            }
+        }catch(InterruptedException ie){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while playing games", ie);
+        }catch(ExecutionException ee){
+            throw new IllegalStateException("Game failed", ee.getCause());
+        }
+        return histogram;
+    }
+
+    /**
+     * This method creates the task of one chunk of games
+     * @param start the start position
+     * @param games number of games in the chunk
+     * @param strategy the strategy of the chunk
+     * @param random the random numbers of the chunk
+     * @return the task, returning the histogram of the chunk
+     */
+    private static Callable<long[]> chunk(StartPosition start, int games, Strategy strategy, SplittableRandom random){
+        return () -> {
+            MarbleSolitaireModelImpl game = start.newGame();
+            long[] histogram = new long[game.getScore() + 1];
+            for(int i = 0; i < games; i++){
+                while(!game.isGameOver()){
+                    game.makeLegalMove(strategy.chooseMove(game, random));
+                }
+                histogram[game.getScore()]++;
+                while(game.getMoveCount() > 0){
+                    game.undo();
+                }
+            }
+            return histogram;
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package marblesolitaire.batch;
+
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * This strategy picks the move that leaves the most legal moves afterwards,
+ * trying each move with tryMove and taking it back with undo, ties are broken at random.
+ * Undo restores the legal moves but not their order in the legal move set, so the picked
+ * move is looked up again in the set once every move has been tried
+ */
+public class MobilityStrategy implements Strategy {
+
+    @Override
+    public int chooseMove(MarbleSolitaireModelImpl game, SplittableRandom random) {
+        List<Move> moves = game.getLegalMoves();
+        Move best = null;
+        int bestMobility = -1;
+        int ties = 0;
+        for(Move m : moves){
+            game.tryMove(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol());
+            int mobility = game.getLegalMoveCount();
+            game.undo();
+            if(mobility > bestMobility){
+                best = m;
+                bestMobility = mobility;
+                ties = 1;
+            }else if(mobility == bestMobility && random.nextInt(++ties) == 0){
+                best = m;
+            }
+        }
+        return game.getLegalMoveIndex(best.getFromRow(), best.getFromCol(), best.getToRow(), best.getToCol());
+    }
+
+    @Override
+    public String getName() {
+        return "mobility";
+    }
+}
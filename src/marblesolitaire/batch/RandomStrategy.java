@@ -0,0 +1,21 @@
+package marblesolitaire.batch;
+
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+
+import java.util.SplittableRandom;
+
+/**
+ * This strategy picks one of the legal moves uniformly at random
+ */
+public class RandomStrategy implements Strategy {
+
+    @Override
+    public int chooseMove(MarbleSolitaireModelImpl game, SplittableRandom random) {
+        return random.nextInt(game.getLegalMoveCount());
+    }
+
+    @Override
+    public String getName() {
+        return "random";
+    }
+}
@@ -0,0 +1,70 @@
+package marblesolitaire.batch;
+
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.SlotState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is one starting position of the batch runner, the arguments of the
+ * MarbleSolitaireModelImpl(arm, sRow, sCol) constructor
+ */
+public final class StartPosition {
+    private final int arm;
+    private final int row;
+    private final int col;
+
+    /**
+     * Constructor of the class
+     * @param arm arm thickness of the board
+     * @param row empty spot row coordinate
+     * @param col empty spot col coordinate
+     */
+    public StartPosition(int arm, int row, int col){
+        this.arm = arm;
+        this.row = row;
+        this.col = col;
+    }
+
+    /**
+     * This method returns the start with the empty slot at the center of the board
+     * @param arm arm thickness of the board
+     * @return the center start
+     */
+    public static StartPosition center(int arm){
+        return new StartPosition(arm, arm, arm);
+    }
+
+    /**
+     * This method returns a start for every valid empty slot of the board
+     * @param arm arm thickness of the board
+     * @return the starts, row by row
+     * @throws IllegalArgumentException if arm is invalid
+     */
+    public static List<StartPosition> all(int arm) throws IllegalArgumentException{
+        SlotState[][] board = new MarbleSolitaireModelImpl(arm).getBoard();
+        List<StartPosition> starts = new ArrayList<>();
+        for(int r = 0; r < board.length; r++){
+            for(int c = 0; c < board.length; c++){
+                if(board[r][c] != SlotState.OfB) starts.add(new StartPosition(arm, r, c));
+            }
+        }
+        return starts;
+    }
+
+    /**
+     * This method creates a new game at this start
+     * @return the new game
+     * @throws IllegalArgumentException if this start is not valid
+     */
+    public MarbleSolitaireModelImpl newGame() throws IllegalArgumentException{
+        return new MarbleSolitaireModelImpl(this.arm, this.row, this.col);
+    }
+
+    public int getArm(){return this.arm;}
+
+    public int getRow(){return this.row;}
+
+    public int getCol(){return this.col;}
+}
@@ -0,0 +1,29 @@
+package marblesolitaire.batch;
+
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+
+import java.util.SplittableRandom;
+
+/**
+ * This interface represents a way of playing marble solitaire, used by the batch runner to
+ * play games without a view. A strategy picks the next move of a game that is not over,
+ * as a position in the game's legal move set, the same order getLegalMoves returns them in.
+ * A strategy object is only used by one thread at a time.
+ */
+public interface Strategy {
+  /**
+   * Pick the next move of the game. The strategy may look ahead with tryMove and undo,
+   * but must leave the game as it found it
+   * @param game the game to pick a move for, not over
+   * @param random the random number generator of the calling thread
+   * @return the position of the picked move in the legal move set,
+   *         from 0 to game.getLegalMoveCount() - 1
+   */
+  int chooseMove(MarbleSolitaireModelImpl game, SplittableRandom random);
+
+  /**
+   * Return the name of the strategy, as written in the batch output
+   * @return the name of the strategy
+   */
+  String getName();
+}
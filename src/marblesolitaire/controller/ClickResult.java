@@ -0,0 +1,114 @@
+package marblesolitaire.controller;
+
+/**
+ * This class describes what one click of the board did, returned by MoveSelector.click.
+ * A selector fills the same object on every click so clicking allocates nothing, the result
+ * is only valid until the next click, use copy to keep it longer.
+ * The destinations are the slots the selected marble can jump to, for highlighting, they are
+ * only set when the outcome is SELECTED.
+ */
+public final class ClickResult {
+    /**
+     * This enum is the outcome of a click
+     * IGNORED: no marble was selected and the click was not on a marble
+     * SELECTED: the clicked marble is now selected, another selected marble was dropped
+     * DESELECTED: the selected marble was clicked again and is no longer selected
+     * MOVED: the selected marble jumped to the clicked slot
+     * INVALID_MOVE: the selected marble cannot jump to the clicked slot, it is no longer selected
+     */
+    public enum Outcome {IGNORED, SELECTED, DESELECTED, MOVED, INVALID_MOVE}
+
+    private Outcome outcome = Outcome.IGNORED;
+    private int fromRow = -1;
+    private int fromCol = -1;
+    private int row;
+    private int col;
+    private final int[] destinationRows;
+    private final int[] destinationCols;
+    private int destinationCount;
+
+    /**
+     * Constructor of the class
+     * @param capacity, the most destinations a marble can have, the number of jump directions
+     */
+    ClickResult(int capacity){
+        this.destinationRows = new int[capacity];
+        this.destinationCols = new int[capacity];
+    }
+
+    /**
+     * This method sets the outcome of a click
+     * @param outcome the outcome
+     * @param fromRow row of the selected marble the click was about, or -1
+     * @param fromCol column of the selected marble the click was about, or -1
+     * @param row row of the clicked slot
+     * @param col column of the clicked slot
+     * @return this result
+     */
+    ClickResult set(Outcome outcome, int fromRow, int fromCol, int row, int col){
+        this.outcome = outcome;
+        this.fromRow = fromRow;
+        this.fromCol = fromCol;
+        this.row = row;
+        this.col = col;
+        this.destinationCount = 0;
+        return this;
+    }
+
+    int[] destinationRows(){return this.destinationRows;}
+
+    int[] destinationCols(){return this.destinationCols;}
+
+    void setDestinationCount(int count){this.destinationCount = count;}
+
+    public Outcome getOutcome(){return this.outcome;}
+
+    /**
+     * Returns if the click made a move, or tried one that was not valid
+     * @return a boolean, true for MOVED and INVALID_MOVE
+     */
+    public boolean isMoveAttempt(){return this.outcome == Outcome.MOVED || this.outcome == Outcome.INVALID_MOVE;}
+
+    public int getFromRow(){return this.fromRow;}
+
+    public int getFromCol(){return this.fromCol;}
+
+    public int getRow(){return this.row;}
+
+    public int getCol(){return this.col;}
+
+    public int getDestinationCount(){return this.destinationCount;}
+
+    /**
+     * Returns the row of one destination of the selected marble
+     * @param index from 0 to getDestinationCount() - 1
+     * @return an int, the row
+     */
+    public int getDestinationRow(int index){return this.destinationRows[index];}
+
+    /**
+     * Returns the column of one destination of the selected marble
+     * @param index from 0 to getDestinationCount() - 1
+     * @return an int, the column
+     */
+    public int getDestinationCol(int index){return this.destinationCols[index];}
+
+    /**
+     * This method copies the result, to keep it after the next click
+     * @return a new result with the same values
+     */
+    public ClickResult copy(){
+        ClickResult copy = new ClickResult(this.destinationRows.length);
+        copy.set(this.outcome, this.fromRow, this.fromCol, this.row, this.col);
+        System.arraycopy(this.destinationRows, 0, copy.destinationRows, 0, this.destinationCount);
+        System.arraycopy(this.destinationCols, 0, copy.destinationCols, 0, this.destinationCount);
+        copy.destinationCount = this.destinationCount;
+        return copy;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("%s (%d,%d) from (%d,%d), %d destinations", this.outcome, this.row, this.col,
+                this.fromRow, this.fromCol, this.destinationCount);
+    }
+}
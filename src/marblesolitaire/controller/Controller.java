@@ -4,63 +4,159 @@ import marblesolitaire.model.MarbleSolitaireModelImpl;
 import marblesolitaire.model.SlotState;
 import marblesolitaire.view.JFrameView;
 
+import javax.swing.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * This is the controller class which bridges the model and view
  * takes in output from model and feed into view for display, or
  * takes in move data from view and feed into model
+ * In the asynchronous mode the clicks are queued to a single worker thread that owns the model,
+ * so moves never run on the Swing event dispatch thread, and the changed slots, score and
+ * game over state of each move are published back to the view with SwingUtilities.invokeLater
+ * Clicks are turned into moves by a MoveSelector, the first click selects a marble and the view
+ * highlights it and the slots it can jump to, the second moves it or drops it
  */
 
 public class Controller {
     private final MarbleSolitaireModelImpl model;
     private final JFrameView view;
 
-    private List<Integer> moveList;
+    private final MoveSelector selector;
+
+    // the worker thread of the asynchronous mode, null in the synchronous mode
+    private final ExecutorService worker;
+    // the slots changed by the current move, only used on the worker thread
+    private final List<SlotChange> changes = new ArrayList<>();
 
     /**
-     * Constructor for the controller class, takes in model and view as parameters,
-     * calls the methods in view to initialize the board buttons
+     * First constructor for the controller class, takes in model and view as parameters,
+     * moves are made synchronously on the thread that calls makeMove
      * @param model, model of Marble Solitaire
      * @param view, model view for Marble Solitaire
      */
     public Controller(MarbleSolitaireModelImpl model, JFrameView view){
+        this(model, view, false);
+    }
+
+    /**
+     * Second constructor for the controller class, takes in model and view as parameters,
+     * calls the methods in view to initialize the board buttons,
+     * and registers the view to be told about every slot the model changes
+     * @param model, model of Marble Solitaire
+     * @param view, model view for Marble Solitaire
+     * @param async, true to make moves on a worker thread and publish them to the view on the
+     *               event dispatch thread, false to make them on the calling thread
+     */
+    public Controller(MarbleSolitaireModelImpl model, JFrameView view, boolean async){
         this.model = model;
         this.view = view;
         this.view.initializeText(this.model.getScore());
         this.view.initializeBoard(this.model.getBoard());
-        this.moveList = new ArrayList<>();
+        this.selector = new MoveSelector(model);
+        if(async){
+            this.worker = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "marble-solitaire-controller");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.model.addBoardListener((row, col, state) -> this.changes.add(new SlotChange(row, col, state)));
+        }else{
+            this.worker = null;
+            this.model.addBoardListener(this.view);
+        }
     }
 
     /**
      * This method is the core that connects the model with view
      * view calls makeMove method for this controller from its own class,
-     * It then sends the to and from coordinate to model, and the model's getBoard method
-     * returns a copy of the board if the command is enough to make move.
-     * If the command is not yet finished, return null
+     * It then sends the to and from coordinate to model once the command is enough to make move,
+     * the view is told about the changed slots by the model as the move is made.
+     * In the asynchronous mode the click is only queued, and the view is updated later
      * @param row, row coordinate
      * @param col, col coordinate
-     * @return a copy of SloteSlate 2D board if move is successful,
-     * or null if the move is not yet done
+     * @return true if the move was attempted with the second click,
+     * or false if the move is not yet done or the click was queued
      */
-    public SlotState[][] makeMove(int row, int col){
-        this.moveList.add(row);
-        this.moveList.add(col);
-        if(this.moveList.size() == 4){
-            int fromRow = this.moveList.get(0);
-            int fromCol = this.moveList.get(1);
-            int toRow = this.moveList.get(2);
-            int toCol = this.moveList.get(3);
-            try{
-                this.model.move(fromRow, fromCol, toRow, toCol);
-            }catch(IllegalArgumentException iae){}
-            this.moveList.clear();
-            return this.model.getBoard();
+    public boolean makeMove(int row, int col){
+        ClickResult result = this.click(row, col);
+        return result != null && result.isMoveAttempt();
+    }
+
+    /**
+     * This method handles one click of the board with the MoveSelector and shows the selection
+     * on the view, the changed slots are told to the view by the model as a move is made.
+     * In the synchronous mode nothing is allocated. In the asynchronous mode the click is only
+     * queued, the view is shown its result later and null is returned
+     * @param row, row coordinate
+     * @param col, col coordinate
+     * @return the outcome of the click, valid until the next click, or null if it was queued
+     */
+    public ClickResult click(int row, int col){
+        if(this.worker == null){
+            ClickResult result = this.selector.click(row, col);
+            this.view.showClick(result);
+            return result;
         }
+        this.worker.execute(() -> {
+            ClickResult result = this.selector.click(row, col).copy();
+            if(result.isMoveAttempt()) this.publish();
+            SwingUtilities.invokeLater(() -> this.view.showClick(result));
+        });
         return null;
     }
 
+    /**
+     * This method runs a computation that reads the model, such as a hint or a solver,
+     * and hands its result to the callback on the event dispatch thread. In the asynchronous
+     * mode the computation runs on the worker thread after the queued moves, so it never
+     * freezes the view, in the synchronous mode it runs right away on the calling thread
+     * @param task the computation, must not keep the model or change it
+     * @param onResult the callback that receives the result
+     * @param <T> the type of the result
+     */
+    public <T> void compute(Function<MarbleSolitaireModelImpl, T> task, Consumer<T> onResult){
+        if(this.worker == null){
+            onResult.accept(task.apply(this.model));
+            return;
+        }
+        this.worker.execute(() -> {
+            T result = task.apply(this.model);
+            SwingUtilities.invokeLater(() -> onResult.accept(result));
+        });
+    }
+
+    /**
+     * This method publishes the slots changed by the last move, the score and
+     * the game over state to the view on the event dispatch thread, called on the worker thread
+     */
+    private void publish(){
+        SlotChange[] diff = this.changes.toArray(new SlotChange[0]);
+        this.changes.clear();
+        int score = this.model.getScore();
+        boolean isGameOver = this.model.isGameOver();
+        SwingUtilities.invokeLater(() -> {
+            for(SlotChange change : diff){
+                this.view.slotChanged(change.row, change.col, change.state);
+            }
+            this.view.refreshStatus(score, isGameOver);
+        });
+    }
+
+    /**
+     * Returns the state of one slot of the board, directly calling the method from the model,
+     * in the asynchronous mode this and the other getters are only safe inside compute
+     * @param row, row coordinate
+     * @param col, col coordinate
+     * @return the SlotState at (row, col)
+     */
+    public SlotState getSlotAt(int row, int col){return this.model.getSlotAt(row, col);}
+
     /**
      * Returns this model's score, directly calling the method from the model
      * @return an int, this model's score
@@ -72,4 +168,19 @@ public class Controller {
      * @return a boolean, if the model is game overed
      */
     public boolean isGameOver(){return this.model.isGameOver();}
+
+    /**
+     * This class is one slot changed by a move, recorded on the worker thread
+     */
+    private static final class SlotChange {
+        private final int row;
+        private final int col;
+        private final SlotState state;
+
+        private SlotChange(int row, int col, SlotState state){
+            this.row = row;
+            this.col = col;
+            this.state = state;
+        }
+    }
 }
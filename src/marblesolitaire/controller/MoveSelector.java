@@ -0,0 +1,71 @@
+package marblesolitaire.controller;
+
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.SlotState;
+
+/**
+ * This class turns clicks on the board into moves, with two phases: the first click selects
+ * a marble, the second either moves it to an empty slot, drops it when it is clicked again,
+ * or selects another marble. The selection is two ints and the result of each click is one
+ * reused ClickResult, so a click allocates nothing. It does not know about Swing, the
+ * Controller owns one and shows its results on the view.
+ * A selector is used by one thread at a time.
+ */
+public final class MoveSelector {
+    private final MarbleSolitaireModelImpl model;
+    private final ClickResult result;
+    private int selectedRow = -1;
+    private int selectedCol = -1;
+
+    /**
+     * Constructor of the class, nothing is selected
+     * @param model, the model the moves are made on
+     */
+    public MoveSelector(MarbleSolitaireModelImpl model){
+        this.model = model;
+        this.result = new ClickResult(model.getGeometry().getDirectionCount());
+    }
+
+    /**
+     * This method handles one click of the board
+     * @param row, row coordinate of the clicked slot
+     * @param col, col coordinate of the clicked slot
+     * @return the outcome, the same object for every click, valid until the next click
+     */
+    public ClickResult click(int row, int col){
+        int fromRow = this.selectedRow;
+        int fromCol = this.selectedCol;
+        boolean marble = row >= 0 && row < this.model.getBoardSize() && col >= 0 && col < this.model.getBoardSize()
+                && this.model.getSlotAt(row, col) == SlotState.Marble;
+        if(fromRow == row && fromCol == col){
+            this.clear();
+            return this.result.set(ClickResult.Outcome.DESELECTED, fromRow, fromCol, row, col);
+        }
+        if(marble){
+            this.selectedRow = row;
+            this.selectedCol = col;
+            this.result.set(ClickResult.Outcome.SELECTED, row, col, row, col);
+            this.result.setDestinationCount(this.model.getLegalDestinations(row, col,
+                    this.result.destinationRows(), this.result.destinationCols()));
+            return this.result;
+        }
+        if(fromRow < 0) return this.result.set(ClickResult.Outcome.IGNORED, -1, -1, row, col);
+        this.clear();
+        boolean moved = this.model.tryMove(fromRow, fromCol, row, col);
+        return this.result.set(moved ? ClickResult.Outcome.MOVED : ClickResult.Outcome.INVALID_MOVE, fromRow, fromCol, row, col);
+    }
+
+    /**
+     * This method drops the selected marble, if any
+     */
+    public void clear(){
+        this.selectedRow = -1;
+        this.selectedCol = -1;
+    }
+
+    public boolean hasSelection(){return this.selectedRow >= 0;}
+
+    public int getSelectedRow(){return this.selectedRow;}
+
+    public int getSelectedCol(){return this.selectedCol;}
+}
@@ -0,0 +1,90 @@
+package marblesolitaire.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class counts latencies in power of two buckets of nanoseconds, bucket b holding the
+ * latencies from 2^(b-1) to 2^b - 1, so recording is one LongAdder increment and percentiles
+ * are known to within a factor of two. It is thread safe, and recording threads do not contend.
+ */
+public final class LatencyHistogram {
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * Constructor of the class, all buckets empty
+     */
+    public LatencyHistogram(){
+        for(int b = 0; b < BUCKETS; b++){
+            this.buckets[b] = new LongAdder();
+        }
+    }
+
+    /**
+     * This method records one latency
+     * @param nanos the latency in nanoseconds, negative values count as 0
+     */
+    public void record(long nanos){
+        long value = Math.max(0, nanos);
+        this.buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value))].increment();
+        this.totalNanos.add(value);
+    }
+
+    /**
+     * This method counts the recorded latencies
+     * @return a long, the number of latencies recorded
+     */
+    public long getCount(){
+        long count = 0;
+        for(LongAdder bucket : this.buckets){
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public long getTotalNanos(){return this.totalNanos.sum();}
+
+    /**
+     * This method returns the mean latency
+     * @return a double, the mean in nanoseconds, 0 if nothing was recorded
+     */
+    public double getMeanNanos(){
+        long count = this.getCount();
+        return count == 0 ? 0 : (double) this.getTotalNanos() / count;
+    }
+
+    /**
+     * This method returns an upper bound of a percentile, the top of the bucket it falls in,
+     * read while other threads may still record
+     * @param percent the percentile, from 0 to 100
+     * @return a long, at most twice the latency of the percentile in nanoseconds, 0 if nothing was recorded
+     */
+    public long getPercentileNanos(double percent){
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for(int b = 0; b < BUCKETS; b++){
+            counts[b] = this.buckets[b].sum();
+            count += counts[b];
+        }
+        if(count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+        long seen = 0;
+        for(int b = 0; b < BUCKETS; b++){
+            seen += counts[b];
+            if(seen >= rank) return b == 0 ? 0 : (1L << Math.min(62, b)) - 1;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * This method empties the histogram
+     */
+    public void reset(){
+        for(LongAdder bucket : this.buckets){
+            bucket.reset();
+        }
+        this.totalNanos.reset();
+    }
+}
@@ -0,0 +1,97 @@
+package marblesolitaire.metrics;
+
+import marblesolitaire.model.BitboardMarbleSolitaireModel;
+import marblesolitaire.model.MarbleSolitaireModel;
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.SlotState;
+
+/**
+ * This class is a MarbleSolitaireModel that records ModelMetrics for another model, it counts
+ * and times every call of move, isGameOver, getGameState and getBoard, then hands it on.
+ * Metrics are switched off by not wrapping the model at all, see wrap, so a model without
+ * metrics runs exactly the code it ran before. With metrics, each timed call costs two reads
+ * of System.nanoTime and a few LongAdder increments.
+ * A MarbleSolitaireModelImpl is better metered with its own setMetrics, which also records
+ * tryMove, the call the controller and the game server make, a model metered both ways counts twice.
+ * It is as thread safe as the wrapped model.
+ */
+public final class MeteredModel implements MarbleSolitaireModel {
+    private final MarbleSolitaireModel model;
+    private final ModelMetrics metrics;
+
+    /**
+     * Constructor of the class
+     * @param model, the model to record
+     * @param metrics, where the calls are recorded
+     */
+    public MeteredModel(MarbleSolitaireModel model, ModelMetrics metrics){
+        this.model = model;
+        this.metrics = metrics;
+    }
+
+    /**
+     * This method wraps a model in a MeteredModel when there are metrics to record
+     * @param model the model
+     * @param metrics the metrics, or null for none
+     * @return the metered model, or the model itself when metrics is null
+     */
+    public static MarbleSolitaireModel wrap(MarbleSolitaireModel model, ModelMetrics metrics){
+        return metrics == null ? model : new MeteredModel(model, metrics);
+    }
+
+    @Override
+    public void move(int fromRow, int fromCol, int toRow, int toCol) throws IllegalArgumentException {
+        long start = System.nanoTime();
+        boolean made = false;
+        try{
+            this.model.move(fromRow, fromCol, toRow, toCol);
+            made = true;
+        }finally{
+            this.metrics.recordMove(made, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean isGameOver() {
+        long start = System.nanoTime();
+        boolean isGameOver = this.model.isGameOver();
+        this.metrics.recordGameOver(System.nanoTime() - start);
+        return isGameOver;
+    }
+
+    @Override
+    public String getGameState() {
+        long start = System.nanoTime();
+        String state = this.model.getGameState();
+        this.metrics.recordGameState(System.nanoTime() - start);
+        return state;
+    }
+
+    @Override
+    public int getScore() {
+        return this.model.getScore();
+    }
+
+    /**
+     * This method returns a copy of the board of the wrapped model, for the models that offer one
+     * @return a copy of the board
+     * @throws UnsupportedOperationException if the wrapped model has no getBoard
+     */
+    public SlotState[][] getBoard() throws UnsupportedOperationException{
+        long start = System.nanoTime();
+        SlotState[][] board;
+        if(this.model instanceof MarbleSolitaireModelImpl) board = ((MarbleSolitaireModelImpl) this.model).getBoard();
+        else if(this.model instanceof BitboardMarbleSolitaireModel) board = ((BitboardMarbleSolitaireModel) this.model).getBoard();
+        else throw new UnsupportedOperationException(String.format("%s has no board copy", this.model.getClass().getSimpleName()));
+        this.metrics.recordBoard(System.nanoTime() - start);
+        return board;
+    }
+
+    /**
+     * Returns the wrapped model
+     * @return the model the calls are handed to
+     */
+    public MarbleSolitaireModel getModel(){return this.model;}
+
+    public ModelMetrics getMetrics(){return this.metrics;}
+}
@@ -0,0 +1,14 @@
+package marblesolitaire.metrics;
+
+/**
+ * This interface receives the values of a ModelMetrics, one call per value, so the metrics
+ * can be sent to any monitoring system or simply printed.
+ */
+public interface MetricsReporter {
+  /**
+   * Receive one value of the metrics.
+   * @param name the name of the value, such as "moves" or "move.p99.nanos"
+   * @param value the value
+   */
+  void report(String name, long value);
+}
@@ -0,0 +1,152 @@
+package marblesolitaire.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class holds the metrics of the models wrapped by MeteredModel, or of the
+ * MarbleSolitaireModelImpl models given it with setMetrics, counters of the moves,
+ * invalid moves, game over checks, game states and board copies, and a latency histogram for
+ * each of move, isGameOver, getGameState and getBoard. One object can be shared by many models
+ * and threads, the counters are LongAdders so recording threads do not contend.
+ * The metrics are read through the getters, a MetricsReporter, or JMX once registered.
+ */
+public final class ModelMetrics implements ModelMetricsMXBean {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    final LongAdder moves = new LongAdder();
+    final LongAdder invalidMoves = new LongAdder();
+    final LatencyHistogram moveLatency = new LatencyHistogram();
+    final LatencyHistogram gameOverLatency = new LatencyHistogram();
+    final LatencyHistogram gameStateLatency = new LatencyHistogram();
+    final LatencyHistogram boardLatency = new LatencyHistogram();
+
+    @Override
+    public long getMoves(){return this.moves.sum();}
+
+    @Override
+    public long getInvalidMoves(){return this.invalidMoves.sum();}
+
+    @Override
+    public long getGameOverChecks(){return this.gameOverLatency.getCount();}
+
+    @Override
+    public long getGameStates(){return this.gameStateLatency.getCount();}
+
+    @Override
+    public long getBoardCopies(){return this.boardLatency.getCount();}
+
+    public LatencyHistogram getMoveLatency(){return this.moveLatency;}
+
+    public LatencyHistogram getGameOverLatency(){return this.gameOverLatency;}
+
+    public LatencyHistogram getGameStateLatency(){return this.gameStateLatency;}
+
+    public LatencyHistogram getBoardLatency(){return this.boardLatency;}
+
+    /**
+     * This method records one move, made or refused as invalid
+     * @param made true if the move was made, false if it was not valid
+     * @param nanos the time the move took
+     */
+    public void recordMove(boolean made, long nanos){
+        if(made) this.moves.increment();
+        else this.invalidMoves.increment();
+        this.moveLatency.record(nanos);
+    }
+
+    /**
+     * This method records one isGameOver call
+     * @param nanos the time the call took
+     */
+    public void recordGameOver(long nanos){this.gameOverLatency.record(nanos);}
+
+    /**
+     * This method records one getGameState call
+     * @param nanos the time the call took
+     */
+    public void recordGameState(long nanos){this.gameStateLatency.record(nanos);}
+
+    /**
+     * This method records one board copy
+     * @param nanos the time the copy took
+     */
+    public void recordBoard(long nanos){this.boardLatency.record(nanos);}
+
+    /**
+     * This method sends every value of the metrics to a reporter, the counters first, then the
+     * count, mean and percentiles of each latency histogram
+     * @param reporter the reporter
+     */
+    public void report(MetricsReporter reporter){
+        reporter.report("moves", this.getMoves());
+        reporter.report("invalid.moves", this.getInvalidMoves());
+        reporter.report("game.over.checks", this.getGameOverChecks());
+        reporter.report("game.states", this.getGameStates());
+        reporter.report("board.copies", this.getBoardCopies());
+        reportHistogram(reporter, "move", this.moveLatency);
+        reportHistogram(reporter, "is.game.over", this.gameOverLatency);
+        reportHistogram(reporter, "get.game.state", this.gameStateLatency);
+        reportHistogram(reporter, "get.board", this.boardLatency);
+    }
+
+    private static void reportHistogram(MetricsReporter reporter, String name, LatencyHistogram histogram){
+        reporter.report(name + ".count", histogram.getCount());
+        reporter.report(name + ".mean.nanos", Math.round(histogram.getMeanNanos()));
+        for(double percent : PERCENTILES){
+            String label = percent == Math.rint(percent) ? String.valueOf((long) percent) : String.valueOf(percent).replace(".", "");
+            reporter.report(String.format("%s.p%s.nanos", name, label), histogram.getPercentileNanos(percent));
+        }
+    }
+
+    @Override
+    public Map<String, Long> getValues(){
+        Map<String, Long> values = new LinkedHashMap<>();
+        this.report(values::put);
+        return values;
+    }
+
+    @Override
+    public void reset(){
+        this.moves.reset();
+        this.invalidMoves.reset();
+        this.moveLatency.reset();
+        this.gameOverLatency.reset();
+        this.gameStateLatency.reset();
+        this.boardLatency.reset();
+    }
+
+    /**
+     * This method registers the metrics with the platform MBean server, to be read with JMX
+     * clients such as jconsole under marblesolitaire:type=ModelMetrics,name=...
+     * @param name the name of this set of metrics
+     * @return the object name it was registered under
+     * @throws IllegalArgumentException if the name is not valid or already registered
+     */
+    public ObjectName register(String name) throws IllegalArgumentException{
+        try{
+            ObjectName objectName = new ObjectName("marblesolitaire", "type", "ModelMetrics");
+            objectName = new ObjectName(objectName.getCanonicalName() + ",name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        }catch(JMException e){
+            throw new IllegalArgumentException(String.format("Cannot register metrics %s: %s", name, e.getMessage()), e);
+        }
+    }
+
+    /**
+     * This method unregisters metrics registered by register
+     * @param objectName the name returned by register
+     */
+    public static void unregister(ObjectName objectName){
+        try{
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        }catch(JMException e){
+            // already unregistered
+        }
+    }
+}
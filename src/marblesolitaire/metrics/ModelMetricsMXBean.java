@@ -0,0 +1,50 @@
+package marblesolitaire.metrics;
+
+import java.util.Map;
+
+/**
+ * This interface is the JMX view of a ModelMetrics, registered by ModelMetrics.register.
+ */
+public interface ModelMetricsMXBean {
+  /**
+   * Return the number of moves made.
+   * @return the number of valid moves
+   */
+  long getMoves();
+
+  /**
+   * Return the number of moves refused as not valid.
+   * @return the number of invalid moves
+   */
+  long getInvalidMoves();
+
+  /**
+   * Return the number of isGameOver calls.
+   * @return the number of game over checks
+   */
+  long getGameOverChecks();
+
+  /**
+   * Return the number of getGameState calls.
+   * @return the number of game states rendered
+   */
+  long getGameStates();
+
+  /**
+   * Return the number of getBoard calls.
+   * @return the number of board copies
+   */
+  long getBoardCopies();
+
+  /**
+   * Return every value of the metrics, the counters and the latency percentiles, by the
+   * names given to a MetricsReporter.
+   * @return a map from name to value
+   */
+  Map<String, Long> getValues();
+
+  /**
+   * Empty the counters and the histograms.
+   */
+  void reset();
+}
@@ -0,0 +1,272 @@
+package marblesolitaire.model;
+
+/**
+ * A second model for marble solitaire, implements the interface MarbleSolitaireModel with
+ * the same square board with arms as MarbleSolitaireModelImpl, but stores the board as bitsets
+ * packed into long words instead of a 2D array of SlotState.
+ * Slot (row, col) is bit row * dim + col, where dim is the side length of the board,
+ * one bitset marks the valid slots and one marks the marbles. Boards larger than 64 slots
+ * simply use more than one word, so every arm thickness is supported.
+ */
+public class BitboardMarbleSolitaireModel implements MarbleSolitaireModel{
+
+    // bit offsets of a single step left, right, up and down are -1, 1, -dim and dim
+    private static final int LEFT = 0;
+    private static final int RIGHT = 1;
+    private static final int UP = 2;
+    private static final int DOWN = 3;
+
+    private final int arm;
+    private final int dim;
+    private final int[] offsets;
+    private final long[] valid;
+    private final long[] marbles;
+    // for each direction, the slots whose jump destination stays inside the dim x dim grid
+    private final long[][] jumpFrom;
+    // the source and destination bit of every move made, in order, for undo
+    private final int[] history;
+    private int historySize = 0;
+
+    /**
+     * First constructor of the class, take no parameters,
+     * and initialize the game board (arm thickness 3 with the empty slot at the center)
+     */
+    public BitboardMarbleSolitaireModel(){
+        this(3, 3, 3);
+    }
+
+    /**
+     * Second constructor of the class, take (sRow, sCol) a parameter which
+     * initialize the game board (arm thickness 3 with the designated empty slot)
+     * @param sRow empty spot row coordinate
+     * @param sCol empty spot col coordinate
+     * @throws IllegalArgumentException if empty cell position inputted is invalid
+     */
+    public BitboardMarbleSolitaireModel(int sRow, int sCol) throws IllegalArgumentException{
+        this(3, sRow, sCol);
+    }
+
+    /**
+     * Third constructor of the class, take arm as parameter which
+     * initialize the game board (arm thickness arm with the empty slot at the center)
+     * @param arm arm thickness of the board
+     * @throws IllegalArgumentException if arm thickness inputted is invalid
+     */
+    public BitboardMarbleSolitaireModel(int arm) throws IllegalArgumentException{
+        this(arm, arm, arm);
+    }
+
+    /**
+     * Fourth constructor of the class, take arm, (sRow, sCol) parameters which
+     * initialize the game board (arm thickness arm with the designated empty slot)
+     * @param arm arm thickness of the board
+     * @param sRow empty spot row coordinate
+     * @param sCol empty spot col coordinate
+     * @throws IllegalArgumentException if arm thickness and/or (sRow, sCol) inputted is invalid
+     */
+    public BitboardMarbleSolitaireModel(int arm, int sRow, int sCol) throws IllegalArgumentException{
+        if(arm <= 1 || arm % 2 == 0) {
+            throw new IllegalArgumentException(String.format("Invalid arm value %d, must be positive odd number larger than 1", arm));
+        }
+        this.arm = arm;
+        this.dim = arm * 2 + 1;
+        this.offsets = new int[]{-1, 1, -this.dim, this.dim};
+        int words = (this.dim * this.dim + 63) >>> 6;
+        this.valid = new long[words];
+        this.marbles = new long[words];
+        this.jumpFrom = new long[4][words];
+        // every move removes a marble, so there are fewer moves than slots
+        this.history = new int[2 * this.dim * this.dim];
+        if(!this.initializeBoard(sRow, sCol)){
+            throw new IllegalArgumentException(String.format("Invalid empty cell position (%d,%d)", sRow, sCol));
+        }
+    }
+
+    /**
+     * This method populates the valid, marble and jump masks,
+     * called after checking the arm is valid from constructors
+     * @param sRow the empty row for starting position
+     * @param sCol the empty col for starting position
+     * @return true if the sRow, sCol is correct and board can be initialized, false if otherwise
+     */
+    private boolean initializeBoard(int sRow, int sCol){
+        if(sRow < 0 || sRow >= this.dim ||
+                sCol < 0 || sCol >= this.dim){
+            return false;
+        }
+        for(int r = 0; r < this.dim; r++){
+            for(int c = 0; c < this.dim; c++){
+                boolean verticalStrip = c >= (this.arm+1)/2 && c < (this.arm+1)/2 + this.arm;
+                boolean horizontalStrip = r >= (this.arm+1)/2 && r < (this.arm+1)/2 + this.arm;
+                int bit = r * this.dim + c;
+                if(verticalStrip || horizontalStrip){
+                    set(this.valid, bit);
+                    set(this.marbles, bit);
+                }
+                if(c >= 2) set(this.jumpFrom[LEFT], bit);
+                if(c < this.dim - 2) set(this.jumpFrom[RIGHT], bit);
+                if(r >= 2) set(this.jumpFrom[UP], bit);
+                if(r < this.dim - 2) set(this.jumpFrom[DOWN], bit);
+            }
+        }
+        // Check if the empty slot is at the marble
+        int start = sRow * this.dim + sCol;
+        if(!get(this.marbles, start)){
+            return false;
+        }
+        clear(this.marbles, start);
+        return true;
+    }
+
+    @Override
+    public void move(int fromRow, int fromCol, int toRow, int toCol) throws IllegalArgumentException {
+        if(!this.isValidMove(fromRow, fromCol, toRow, toCol)){
+            throw new IllegalArgumentException(String.format("Invalid move from (%d,%d) to (%d,%d)", fromRow, fromCol, toRow, toCol));
+        }
+        // if successful, make change on board
+        int from = fromRow * this.dim + fromCol;
+        int to = toRow * this.dim + toCol;
+        clear(this.marbles, from);
+        clear(this.marbles, (from + to) / 2);
+        set(this.marbles, to);
+        this.history[this.historySize++] = from;
+        this.history[this.historySize++] = to;
+    }
+
+    /**
+     * This method takes back the last move made, restoring the marbles to what they were
+     * before it, without allocating
+     * @return true if a move was taken back, false if no move has been made
+     */
+    public boolean undo(){
+        if(this.historySize == 0) return false;
+        int to = this.history[--this.historySize];
+        int from = this.history[--this.historySize];
+        set(this.marbles, from);
+        set(this.marbles, (from + to) / 2);
+        clear(this.marbles, to);
+        return true;
+    }
+
+    @Override
+    public boolean isGameOver() {
+        // a jump by offset d exists if some marble at i has a marble at i + d and an empty slot at i + 2d,
+        // checked one word at a time for every direction with the bitsets shifted by d and 2d
+        for(int dir = 0; dir < 4; dir++){
+            int d = this.offsets[dir];
+            for(int w = 0; w < this.marbles.length; w++){
+                long from = this.marbles[w] & this.jumpFrom[dir][w];
+                if(from == 0) continue;
+                long over = shiftedWord(this.marbles, w, d);
+                long to = shiftedWord(this.valid, w, 2 * d) & ~shiftedWord(this.marbles, w, 2 * d);
+                if((from & over & to) != 0) return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String getGameState() {
+        StringBuilder sb = new StringBuilder(this.dim * this.dim * 2);
+        for(int r = 0; r < this.dim; r++){
+            if(r > 0) sb.append('\n');
+            for(int c = 0; c < this.dim; c++){
+                if(c > 0) sb.append(' ');
+                sb.append(this.slotAt(r * this.dim + c).toString());
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public int getScore() {
+        int score = 0;
+        for(long word : this.marbles){
+            score += Long.bitCount(word);
+        }
+        return score;
+    }
+
+    /**
+     * This method returns a copy of the board as a 2D SlotState array,
+     * in the same layout as MarbleSolitaireModelImpl.getBoard
+     * @return a copy of the board
+     */
+    public SlotState[][] getBoard(){
+        SlotState[][] board = new SlotState[this.dim][this.dim];
+        for(int r = 0; r < this.dim; r++){
+            for(int c = 0; c < this.dim; c++){
+                board[r][c] = this.slotAt(r * this.dim + c);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * This method tests if the move from (fromRow, fromCol) to (toRow, toCol) is valid or not
+     * @param fromRow source row location
+     * @param fromCol source column location
+     * @param toRow destination row location
+     * @param toCol destination column location
+     * @return if the move from (fromRow, fromCol) to (toRow, toCol) is valid or not
+     */
+    private boolean isValidMove(int fromRow, int fromCol, int toRow, int toCol){
+        // out of bounds for the whole board even outside the OfB slots
+        if(fromRow < 0 || fromRow >= this.dim || fromCol < 0 || fromCol >= this.dim) return false;
+        if(toRow < 0 || toRow >= this.dim || toCol < 0 || toCol >= this.dim) return false;
+
+        // from and to must have 2 nos. of spacing, no diagonal allowed
+        if(!((Math.abs(fromRow - toRow) == 2 && (fromCol == toCol)) || (Math.abs(fromCol - toCol) == 2 && (fromRow == toRow)))) return false;
+
+        int from = fromRow * this.dim + fromCol;
+        int to = toRow * this.dim + toCol;
+        // from and the slot in between must be marbles, to must be an empty valid slot
+        return get(this.marbles, from) && get(this.marbles, (from + to) / 2)
+                && get(this.valid, to) && !get(this.marbles, to);
+    }
+
+    /**
+     * This method returns the SlotState of the given bit
+     * @param bit the bit index, row * dim + col
+     * @return the SlotState at that bit
+     */
+    private SlotState slotAt(int bit){
+        if(!get(this.valid, bit)) return SlotState.OfB;
+        return get(this.marbles, bit) ? SlotState.Marble : SlotState.Empty;
+    }
+
+    /**
+     * This method returns word w of the bitset shifted so that bit i of the result
+     * is bit i + d of the bitset, bits shifted in from outside the bitset are 0
+     * @param bits the bitset
+     * @param w the word index of the result
+     * @param d the shift distance, may be negative
+     * @return word w of the shifted bitset
+     */
+    private static long shiftedWord(long[] bits, int w, int d){
+        if(d >= 0){
+            int src = w + (d >>> 6);
+            int shift = d & 63;
+            long lo = src < bits.length ? bits[src] >>> shift : 0L;
+            long hi = (shift != 0 && src + 1 < bits.length) ? bits[src + 1] << (64 - shift) : 0L;
+            return lo | hi;
+        }
+        int src = w - ((-d) >>> 6);
+        int shift = (-d) & 63;
+        long hi = src >= 0 ? bits[src] << shift : 0L;
+        long lo = (shift != 0 && src - 1 >= 0) ? bits[src - 1] >>> (64 - shift) : 0L;
+        return hi | lo;
+    }
+
+    private static boolean get(long[] bits, int bit){
+        return (bits[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    private static void set(long[] bits, int bit){
+        bits[bit >>> 6] |= 1L << bit;
+    }
+
+    private static void clear(long[] bits, int bit){
+        bits[bit >>> 6] &= ~(1L << bit);
+    }
+}
@@ -0,0 +1,333 @@
+package marblesolitaire.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class is the shape of a marble solitaire board compiled into flat tables, so the model
+ * finds and checks moves with loops over int arrays instead of 2D coordinate arithmetic.
+ * A board is laid out on a dim x dim grid, a cell is row * dim + col, and the cells that are not
+ * part of the board are OfB. Every possible jump is precomputed once as a (from, over, to) triple
+ * of cells with its direction, along with the jump starting at each cell in each direction and
+ * the jumps that start at, jump over or land on each cell.
+ * The square boards, English (plus shaped with arms) and European, jump left, right, up and down.
+ * The triangular and hexagonal boards are laid out on the grid with their rows sheared,
+ * so a slot also neighbours the slots one up and left and one down and right, six directions.
+ * Geometries are immutable and shared.
+ */
+public final class BoardGeometry {
+    // row and column steps of the directions left, right, up and down, then up left and down right
+    private static final int[] STEP_ROW = {0, 0, -1, 1, -1, 1};
+    private static final int[] STEP_COL = {-1, 1, 0, 0, -1, 1};
+    private static final int SQUARE_DIRECTIONS = 4;
+    private static final int HEX_DIRECTIONS = 6;
+    private static final Map<Integer, BoardGeometry> ENGLISH = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final int dim;
+    private final int directions;
+    private final boolean[] valid;
+    private final int slotCount;
+    final int[] cellRow;
+    final int[] cellCol;
+    final int[] jumpFrom;
+    final int[] jumpOver;
+    final int[] jumpTo;
+    final int[] jumpDirection;
+    // jumpAt[cell * directions + dir] is the jump from cell in direction dir, or -1
+    final int[] jumpAt;
+    // the jumps touching cell are touchJumps[touchStart[cell], touchStart[cell + 1])
+    final int[] touchStart;
+    final int[] touchJumps;
+    // the ordinals of the DihedralTransforms that map the board onto itself, the identity first
+    private final int[] symmetries;
+
+    /**
+     * Constructor of the class, takes in the shape of the board and compiles its tables
+     * @param name the name of the board
+     * @param shape dim x dim array, true for the slots of the board
+     * @param directions the number of jump directions, 4 or 6
+     */
+    private BoardGeometry(String name, boolean[][] shape, int directions){
+        this.name = name;
+        this.dim = shape.length;
+        this.directions = directions;
+        int cells = this.dim * this.dim;
+        this.valid = new boolean[cells];
+        this.cellRow = new int[cells];
+        this.cellCol = new int[cells];
+        int slots = 0;
+        for(int cell = 0; cell < cells; cell++){
+            this.cellRow[cell] = cell / this.dim;
+            this.cellCol[cell] = cell % this.dim;
+            this.valid[cell] = shape[this.cellRow[cell]][this.cellCol[cell]];
+            if(this.valid[cell]) slots++;
+        }
+        this.slotCount = slots;
+
+        List<int[]> jumps = new ArrayList<>();
+        this.jumpAt = new int[cells * directions];
+        Arrays.fill(this.jumpAt, -1);
+        for(int cell = 0; cell < cells; cell++){
+            for(int dir = 0; dir < directions; dir++){
+                int over = this.cellAt(this.cellRow[cell] + STEP_ROW[dir], this.cellCol[cell] + STEP_COL[dir]);
+                int to = this.cellAt(this.cellRow[cell] + 2 * STEP_ROW[dir], this.cellCol[cell] + 2 * STEP_COL[dir]);
+                if(!this.valid[cell] || over < 0 || to < 0) continue;
+                this.jumpAt[cell * directions + dir] = jumps.size();
+                jumps.add(new int[]{cell, over, to, dir});
+            }
+        }
+        this.jumpFrom = new int[jumps.size()];
+        this.jumpOver = new int[jumps.size()];
+        this.jumpTo = new int[jumps.size()];
+        this.jumpDirection = new int[jumps.size()];
+        for(int j = 0; j < jumps.size(); j++){
+            this.jumpFrom[j] = jumps.get(j)[0];
+            this.jumpOver[j] = jumps.get(j)[1];
+            this.jumpTo[j] = jumps.get(j)[2];
+            this.jumpDirection[j] = jumps.get(j)[3];
+        }
+
+        // every jump touches three cells, counted first then placed
+        this.touchStart = new int[cells + 1];
+        for(int j = 0; j < this.jumpFrom.length; j++){
+            this.touchStart[this.jumpFrom[j] + 1]++;
+            this.touchStart[this.jumpOver[j] + 1]++;
+            this.touchStart[this.jumpTo[j] + 1]++;
+        }
+        for(int cell = 0; cell < cells; cell++){
+            this.touchStart[cell + 1] += this.touchStart[cell];
+        }
+        this.touchJumps = new int[this.touchStart[cells]];
+        int[] next = Arrays.copyOf(this.touchStart, cells);
+        for(int j = 0; j < this.jumpFrom.length; j++){
+            this.touchJumps[next[this.jumpFrom[j]]++] = j;
+            this.touchJumps[next[this.jumpOver[j]]++] = j;
+            this.touchJumps[next[this.jumpTo[j]]++] = j;
+        }
+        this.symmetries = this.findSymmetries();
+    }
+
+    /**
+     * This method finds the rotations and reflections of the grid that map every slot to a slot
+     * and every jump to a jump, all 8 for the square boards, fewer for the sheared ones
+     * @return the ordinals of the transforms, the identity first
+     */
+    private int[] findSymmetries(){
+        DihedralTransform[] transforms = DihedralTransform.values();
+        int[] found = new int[transforms.length];
+        int count = 0;
+        for(DihedralTransform t : transforms){
+            boolean symmetric = true;
+            for(int cell = 0; cell < this.valid.length && symmetric; cell++){
+                if(!this.valid[cell]) continue;
+                symmetric = this.cellAt(t.row(this.cellRow[cell], this.cellCol[cell], this.dim),
+                        t.col(this.cellRow[cell], this.cellCol[cell], this.dim)) >= 0;
+            }
+            for(int j = 0; j < this.jumpFrom.length && symmetric; j++){
+                int from = this.cellAt(t.row(this.cellRow[this.jumpFrom[j]], this.cellCol[this.jumpFrom[j]], this.dim),
+                        t.col(this.cellRow[this.jumpFrom[j]], this.cellCol[this.jumpFrom[j]], this.dim));
+                int to = this.cellAt(t.row(this.cellRow[this.jumpTo[j]], this.cellCol[this.jumpTo[j]], this.dim),
+                        t.col(this.cellRow[this.jumpTo[j]], this.cellCol[this.jumpTo[j]], this.dim));
+                symmetric = this.findJump(from, to) >= 0;
+            }
+            if(symmetric) found[count++] = t.ordinal();
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * This method returns the English board, plus shaped with arms of the given thickness,
+     * the board of MarbleSolitaireModelImpl(arm)
+     * @param arm arm thickness of the board
+     * @return the shared geometry
+     * @throws IllegalArgumentException if arm is not an odd number larger than 1
+     */
+    public static BoardGeometry english(int arm) throws IllegalArgumentException{
+        if(arm <= 1 || arm % 2 == 0) {
+            throw new IllegalArgumentException(String.format("Invalid arm value %d, must be positive odd number larger than 1", arm));
+        }
+        return ENGLISH.computeIfAbsent(arm, a -> {
+            int dim = a * 2 + 1;
+            int low = (a + 1) / 2;
+            boolean[][] shape = new boolean[dim][dim];
+            for(int r = 0; r < dim; r++){
+                for(int c = 0; c < dim; c++){
+                    // middle vertical strip or middle horizontal strip
+                    shape[r][c] = (c >= low && c < low + a) || (r >= low && r < low + a);
+                }
+            }
+            return new BoardGeometry("english", shape, SQUARE_DIRECTIONS);
+        });
+    }
+
+    /**
+     * This method returns the European (French) board, the 33 slot English board with
+     * the four slots diagonally inside its corners added, 37 slots
+     * @return the geometry
+     */
+    public static BoardGeometry european(){
+        boolean[][] shape = new boolean[7][7];
+        for(int r = 0; r < 7; r++){
+            for(int c = 0; c < 7; c++){
+                shape[r][c] = (c >= 2 && c <= 4) || (r >= 2 && r <= 4)
+                        || ((r == 1 || r == 5) && (c == 1 || c == 5));
+            }
+        }
+        return new BoardGeometry("european", shape, SQUARE_DIRECTIONS);
+    }
+
+    /**
+     * This method returns the triangular board with the given number of rows, row r holds
+     * r + 1 slots in columns 0 to r, the classic board has 5 rows and 15 slots
+     * @param rows the number of rows
+     * @return the geometry
+     * @throws IllegalArgumentException if rows is less than 4, too small for any move to be made
+     */
+    public static BoardGeometry triangular(int rows) throws IllegalArgumentException{
+        if(rows < 4) {
+            throw new IllegalArgumentException(String.format("Invalid row count %d, must be at least 4", rows));
+        }
+        boolean[][] shape = new boolean[rows][rows];
+        for(int r = 0; r < rows; r++){
+            for(int c = 0; c <= r; c++){
+                shape[r][c] = true;
+            }
+        }
+        return new BoardGeometry("triangular", shape, HEX_DIRECTIONS);
+    }
+
+    /**
+     * This method returns the hexagonal board with the given number of slots on each side,
+     * laid out on a (2 * side - 1) square grid without the corners where the row and column
+     * differ by side or more, a side of 3 gives 19 slots
+     * @param side the number of slots on each side
+     * @return the geometry
+     * @throws IllegalArgumentException if side is less than 3
+     */
+    public static BoardGeometry hexagonal(int side) throws IllegalArgumentException{
+        if(side < 3) {
+            throw new IllegalArgumentException(String.format("Invalid side %d, must be at least 3", side));
+        }
+        int dim = side * 2 - 1;
+        boolean[][] shape = new boolean[dim][dim];
+        for(int r = 0; r < dim; r++){
+            for(int c = 0; c < dim; c++){
+                shape[r][c] = Math.abs(r - c) < side;
+            }
+        }
+        return new BoardGeometry("hexagonal", shape, HEX_DIRECTIONS);
+    }
+
+    /**
+     * This method returns the square board with the shape of the given board, its slots
+     * are those that are not OfB, marbles jump left, right, up and down
+     * @param board, 2D array of enum SlotState, must be square
+     * @return the geometry
+     * @throws IllegalArgumentException if the board is not square
+     */
+    public static BoardGeometry of(SlotState[][] board) throws IllegalArgumentException{
+        boolean[][] shape = new boolean[board.length][board.length];
+        for(int r = 0; r < board.length; r++){
+            if(board[r].length != board.length) {
+                throw new IllegalArgumentException(String.format("Invalid board row %d, must have %d slots", r, board.length));
+            }
+            for(int c = 0; c < board.length; c++){
+                shape[r][c] = board[r][c] != SlotState.OfB;
+            }
+        }
+        return new BoardGeometry("custom", shape, SQUARE_DIRECTIONS);
+    }
+
+    /**
+     * This method returns the cell of (row, col), or -1 if it is not a slot of the board
+     * @param row row
+     * @param col column
+     * @return the cell, row * dim + col, or -1
+     */
+    public int cellAt(int row, int col){
+        if(row < 0 || row >= this.dim || col < 0 || col >= this.dim) return -1;
+        int cell = row * this.dim + col;
+        return this.valid[cell] ? cell : -1;
+    }
+
+    /**
+     * This method returns the jump from one cell to another, checking the few jumps
+     * that start at the from cell
+     * @param from the cell the marble jumps from
+     * @param to the cell the marble lands on
+     * @return the jump, or -1 if no jump goes from from to to
+     */
+    public int findJump(int from, int to){
+        int base = from * this.directions;
+        for(int dir = 0; dir < this.directions; dir++){
+            int jump = this.jumpAt[base + dir];
+            if(jump >= 0 && this.jumpTo[jump] == to) return jump;
+        }
+        return -1;
+    }
+
+    /**
+     * This method returns a board of this shape, every slot holding a marble but the empty one
+     * @param emptyRow row of the empty slot
+     * @param emptyCol column of the empty slot
+     * @return a new dim x dim board
+     * @throws IllegalArgumentException if (emptyRow, emptyCol) is not a slot of the board
+     */
+    public SlotState[][] newBoard(int emptyRow, int emptyCol) throws IllegalArgumentException{
+        if(this.cellAt(emptyRow, emptyCol) < 0) {
+            throw new IllegalArgumentException(String.format("Invalid empty cell position (%d,%d)", emptyRow, emptyCol));
+        }
+        SlotState[][] board = new SlotState[this.dim][this.dim];
+        for(int r = 0; r < this.dim; r++){
+            for(int c = 0; c < this.dim; c++){
+                board[r][c] = this.valid[r * this.dim + c] ? SlotState.Marble : SlotState.OfB;
+            }
+        }
+        board[emptyRow][emptyCol] = SlotState.Empty;
+        return board;
+    }
+
+    public String getName(){return this.name;}
+
+    public int getDim(){return this.dim;}
+
+    public int getSlotCount(){return this.slotCount;}
+
+    public int getDirectionCount(){return this.directions;}
+
+    public int getJumpCount(){return this.jumpFrom.length;}
+
+    /**
+     * Returns the rotations and reflections that leave the board and its jumps unchanged
+     * @return a new array of DihedralTransform ordinals, the identity first
+     */
+    public int[] getSymmetries(){return this.symmetries.clone();}
+
+    public int getJumpFrom(int jump){return this.jumpFrom[jump];}
+
+    public int getJumpOver(int jump){return this.jumpOver[jump];}
+
+    public int getJumpTo(int jump){return this.jumpTo[jump];}
+
+    public int getJumpDirection(int jump){return this.jumpDirection[jump];}
+
+    public int getRow(int cell){return this.cellRow[cell];}
+
+    public int getCol(int cell){return this.cellCol[cell];}
+
+    /**
+     * Returns if a cell is a slot of the board
+     * @param cell the cell, row * dim + col
+     * @return a boolean, true if the cell is not OfB
+     */
+    public boolean isValid(int cell){return this.valid[cell];}
+
+    @Override
+    public String toString(){
+        return String.format("%s board, %d slots", this.name, this.slotCount);
+    }
+}
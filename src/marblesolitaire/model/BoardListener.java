@@ -0,0 +1,16 @@
+package marblesolitaire.model;
+
+/**
+ * This interface is notified of every slot that changes on a MarbleSolitaireModelImpl board,
+ * so views of the board can update only what changed instead of copying the whole board.
+ * A move or undo changes three slots and calls slotChanged once for each of them.
+ */
+public interface BoardListener {
+  /**
+   * Called after the slot (row, col) changed
+   * @param row the row of the slot (starts at 0)
+   * @param col the column of the slot (starts at 0)
+   * @param state the new state of the slot
+   */
+  void slotChanged(int row, int col, SlotState state);
+}
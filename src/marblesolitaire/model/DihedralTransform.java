@@ -0,0 +1,42 @@
+package marblesolitaire.model;
+
+/**
+ * This enum class contains the 8 rotations and reflections of a square board,
+ * the plus shaped boards of MarbleSolitaireModelImpl are unchanged by all of them.
+ * Each transform maps a slot (row, col) of a dim x dim board to another slot.
+ */
+public enum DihedralTransform {
+    Identity, Rotate90, Rotate180, Rotate270, MirrorCols, Transpose, MirrorRows, AntiTranspose;
+
+    /**
+     * Returns the row that (row, col) is mapped to
+     * @param row row
+     * @param col column
+     * @param dim side length of the board
+     * @return the transformed row
+     */
+    public int row(int row, int col, int dim){
+        switch(this){
+            case Identity: case MirrorCols: return row;
+            case Rotate90: case Transpose: return col;
+            case Rotate180: case MirrorRows: return dim - 1 - row;
+            default: return dim - 1 - col;
+        }
+    }
+
+    /**
+     * Returns the column that (row, col) is mapped to
+     * @param row row
+     * @param col column
+     * @param dim side length of the board
+     * @return the transformed column
+     */
+    public int col(int row, int col, int dim){
+        switch(this){
+            case Identity: case MirrorRows: return col;
+            case Rotate90: case AntiTranspose: return dim - 1 - row;
+            case Rotate180: case MirrorCols: return dim - 1 - col;
+            default: return row;
+        }
+    }
+}
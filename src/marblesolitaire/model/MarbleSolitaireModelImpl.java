@@ -1,26 +1,57 @@
 package marblesolitaire.model;
 
+import marblesolitaire.metrics.ModelMetrics;
+
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.stream.Collectors;
+import java.util.List;
 
 /**
  * The model for marble solitaire, implements the interface MarbleSolitaireModel which gives
  * basic operations for the game to function, move, isGameOver, getGameState and getScore
- * This class only implements the square marble solitaire model with arms
+ * This class implements the square marble solitaire model with arms, and any other
+ * board shape given by a BoardGeometry, whose precomputed jump tables drive all move checking
  */
 public class MarbleSolitaireModelImpl implements MarbleSolitaireModel{
 
+    private final BoardGeometry geometry;
     private SlotState[][] board;
-    private final int arm;
+    // the marbles of the board by cell, row * dim + col, read when checking jumps
+    private boolean[] marbles;
     private int score = 0;
 
+    // the set of currently legal moves as jumps of the geometry,
+    // legalMoves[0, legalCount) holds the jumps and legalIndex maps a jump to its position or -1
+    private int[] legalMoves;
+    private int[] legalIndex;
+    private int legalCount = 0;
+
+    // Zobrist hash of the board under each DihedralTransform, index 0 is the identity
+    private ZobristTable zobrist;
+    private final long[] hashes = new long[DihedralTransform.values().length];
+    // the transforms of hashes that map the board onto itself
+    private int[] symmetries;
+    // the metrics recorded by tryMove, isGameOver, getGameState and getBoard, null for none
+    private ModelMetrics metrics;
+
+    // the moves made so far as jumps of the geometry, history[0, historySize) in order, for undo
+    private int[] history;
+    private int historySize = 0;
+
+    // the text of getGameState, slot (row, col) is the char at row * 2 * dim + 2 * col,
+    // patched by every move, and the String made from it, null until asked for after a change
+    private char[] render;
+    private String gameState;
+
+    private final List<BoardListener> listeners = new ArrayList<>();
+
     /**
      * First constructor of the class, take no parameters,
      * and initialize the game board as shown above (arm thickness 3 with the empty slot at the center)
      */
     public MarbleSolitaireModelImpl(){
-        this.arm = 3;
-        this.initializeBoard(this.arm, this.arm);
+        this.geometry = BoardGeometry.english(3);
+        this.initializeBoard(3, 3);
     }
 
     /**
@@ -31,7 +62,7 @@ public class MarbleSolitaireModelImpl implements MarbleSolitaireModel{
      * @throws IllegalArgumentException if empty cell position inputted is invalid
      */
     public MarbleSolitaireModelImpl(int sRow, int sCol) throws IllegalArgumentException{
-        this.arm = 3;
+        this.geometry = BoardGeometry.english(3);
         if(!this.initializeBoard(sRow, sCol)){
             throw new IllegalArgumentException(String.format("Invalid empty cell position (%d,%d)", sRow, sCol));
         };
@@ -47,8 +78,8 @@ public class MarbleSolitaireModelImpl implements MarbleSolitaireModel{
         if(arm <= 1 || arm % 2 == 0) {
             throw new IllegalArgumentException(String.format("Invalid arm value %d, must be positive odd number larger than 1", arm));
         }
-        this.arm = arm;
-        this.initializeBoard(this.arm, this.arm);
+        this.geometry = BoardGeometry.english(arm);
+        this.initializeBoard(arm, arm);
     }
 
     /**
@@ -63,12 +94,83 @@ public class MarbleSolitaireModelImpl implements MarbleSolitaireModel{
         if(arm <= 1 || arm % 2 == 0) {
             throw new IllegalArgumentException(String.format("Invalid arm value %d, must be positive odd number larger than 1", arm));
         }
-        this.arm = arm;
+        this.geometry = BoardGeometry.english(arm);
         if(!this.initializeBoard(sRow, sCol)){
             throw new IllegalArgumentException(String.format("Invalid empty cell position (%d,%d)", sRow, sCol));
         };
     }
 
+    /**
+     * Fifth constructor of the class, take a board as parameter which
+     * initialize the game board as a copy of it, so a game can continue from any position.
+     * The board must have the shape of one the other constructors build
+     * @param board 2D SlotState array, the position to copy
+     * @throws IllegalArgumentException if the size or the OfB slots of the board are not a valid shape
+     */
+    public MarbleSolitaireModelImpl(SlotState[][] board) throws IllegalArgumentException{
+        this(englishOf(board), board);
+    }
+
+    /**
+     * Sixth constructor of the class, take a board geometry and (sRow, sCol) parameters which
+     * initialize the game board to the shape of the geometry, with a marble in every slot but the empty one
+     * @param geometry the shape of the board, such as BoardGeometry.european()
+     * @param sRow empty spot row coordinate
+     * @param sCol empty spot col coordinate
+     * @throws IllegalArgumentException if (sRow, sCol) is not a slot of the board
+     */
+    public MarbleSolitaireModelImpl(BoardGeometry geometry, int sRow, int sCol) throws IllegalArgumentException{
+        this.geometry = geometry;
+        if(!this.initializeBoard(sRow, sCol)){
+            throw new IllegalArgumentException(String.format("Invalid empty cell position (%d,%d)", sRow, sCol));
+        }
+    }
+
+    /**
+     * Seventh constructor of the class, take a board geometry and a board as parameters which
+     * initialize the game board as a copy of the board, so a game on any shape can continue from any position
+     * @param geometry the shape of the board, such as BoardGeometry.european()
+     * @param board 2D SlotState array, the position to copy, with the OfB slots of the geometry
+     * @throws IllegalArgumentException if the size or the OfB slots of the board do not match the geometry
+     */
+    public MarbleSolitaireModelImpl(BoardGeometry geometry, SlotState[][] board) throws IllegalArgumentException{
+        int dim = geometry.getDim();
+        if(board.length != dim) {
+            throw new IllegalArgumentException(String.format("Invalid board size %d, must be %d", board.length, dim));
+        }
+        this.geometry = geometry;
+        this.board = new SlotState[dim][dim];
+        this.score = 0;
+        for(int r = 0; r < dim; r++){
+            if(board[r].length != dim) {
+                throw new IllegalArgumentException(String.format("Invalid board row %d, must have %d slots", r, dim));
+            }
+            for(int c = 0; c < dim; c++){
+                if(board[r][c] == null || (board[r][c] == SlotState.OfB) != (geometry.cellAt(r, c) < 0)) {
+                    throw new IllegalArgumentException(String.format("Invalid slot (%d,%d) for the board shape", r, c));
+                }
+                this.board[r][c] = board[r][c];
+                if(board[r][c] == SlotState.Marble) this.score++;
+            }
+        }
+        this.initializeState();
+    }
+
+    /**
+     * This method returns the English geometry of a board by its size, for the fifth constructor
+     * @param board 2D SlotState array
+     * @return the geometry of the English board of that size
+     * @throws IllegalArgumentException if the size is not the size of an English board
+     */
+    private static BoardGeometry englishOf(SlotState[][] board) throws IllegalArgumentException{
+        int dim = board.length;
+        int arm = (dim - 1) / 2;
+        if(arm <= 1 || arm % 2 == 0 || dim != arm * 2 + 1) {
+            throw new IllegalArgumentException(String.format("Invalid board size %d, must be twice a positive odd number larger than 1 plus 1", dim));
+        }
+        return BoardGeometry.english(arm);
+    }
+
     /**
      * This method initialize the 2D array the field board, populate it
      * called after checking the parameters are valid from constructors
@@ -77,67 +179,217 @@ public class MarbleSolitaireModelImpl implements MarbleSolitaireModel{
      * @return true if the sRow, sCol is correct and board can be initialized, false if otherwise
      */
     private boolean initializeBoard(int sRow, int sCol){
-        int dim = this.arm * 2 + 1;
-        if(sRow < 0 || sRow >= dim ||
-                sCol < 0 || sCol >= dim){
+        if(this.geometry.cellAt(sRow, sCol) < 0){
             return false;
         }
-        this.board = new SlotState[dim][dim];
+        this.board = this.geometry.newBoard(sRow, sCol);
+        this.score = this.geometry.getSlotCount() - 1;
+        this.initializeState();
+        return true;
+    }
+
+    /**
+     * This method sets up the legal move set, hashes and move history for the board,
+     * called once the board is populated
+     */
+    private void initializeState(){
+        int dim = this.board.length;
+        this.marbles = new boolean[dim * dim];
+        for(int cell = 0; cell < this.marbles.length; cell++){
+            this.marbles[cell] = this.board[cell / dim][cell % dim] == SlotState.Marble;
+        }
+        this.initializeLegalMoves();
+        this.zobrist = ZobristTable.forDim(this.board.length);
+        this.zobrist.hashAll(this.board, this.hashes);
+        this.symmetries = this.geometry.getSymmetries();
+        // every move removes a marble, so there can never be more moves than marbles
+        this.history = new int[this.score];
+        this.historySize = 0;
+        this.initializeRender();
+    }
+
+    /**
+     * This method fills the render buffer of getGameState from the board,
+     * one line per row with the slots separated by spaces
+     */
+    private void initializeRender(){
+        int dim = this.board.length;
+        this.render = new char[2 * dim * dim - 1];
         for(int r = 0; r < dim; r++){
             for(int c = 0; c < dim; c++){
-                // middle vertical strip
-                if(c >= (this.arm+1)/2 && c < (this.arm+1)/2 + this.arm){
-                    this.board[r][c] = SlotState.Marble;
-                    this.score++;
-                }
-                // middle horizontal strip
-                else if(r >= (this.arm+1)/2 && r < (this.arm+1)/2 + this.arm) {
-                    this.board[r][c] = SlotState.Marble;
-                    this.score++;
-                }
-                // out of bounds
-                else this.board[r][c] = SlotState.OfB;
+                int i = r * 2 * dim + 2 * c;
+                this.render[i] = this.board[r][c].toString().charAt(0);
+                if(i + 1 < this.render.length) this.render[i + 1] = c == dim - 1 ? '\n' : ' ';
             }
         }
-        // Check if the empty slot is at the marble
-        if(this.board[sRow][sCol] != SlotState.Marble){
-            return false;
+        this.gameState = null;
+    }
+
+    /**
+     * This method fills the legal move set from scratch, called once the board is populated
+     */
+    private void initializeLegalMoves(){
+        int jumps = this.geometry.getJumpCount();
+        this.legalMoves = new int[jumps];
+        this.legalIndex = new int[jumps];
+        this.legalCount = 0;
+        Arrays.fill(this.legalIndex, -1);
+        for(int jump = 0; jump < jumps; jump++){
+            this.refreshLegalMove(jump);
         }
-        this.board[sRow][sCol] = SlotState.Empty;
-        this.score--;
-        return true;
     }
 
     @Override
     public void move(int fromRow, int fromCol, int toRow, int toCol) throws IllegalArgumentException {
-        if(!this.isValidMove(fromRow, fromCol, toRow, toCol)){
+        if(!this.tryMove(fromRow, fromCol, toRow, toCol)){
             throw new IllegalArgumentException(String.format("Invalid move from (%d,%d) to (%d,%d)", fromRow, fromCol, toRow, toCol));
         }
-        // if successful, make change on board
-        int middleRow = (fromRow + toRow) / 2;
-        int middleCol = (fromCol + toCol) / 2;
-        this.board[middleRow][middleCol] = SlotState.Empty;
-        this.board[fromRow][fromCol] = SlotState.Empty;
-        this.board[toRow][toCol] = SlotState.Marble;
+    }
+
+    /**
+     * This method makes the move from (fromRow, fromCol) to (toRow, toCol) if it is valid,
+     * same as move but reporting an invalid move by returning false instead of throwing,
+     * it changes the board in place and allocates nothing
+     * @param fromRow source row location
+     * @param fromCol source column location
+     * @param toRow destination row location
+     * @param toCol destination column location
+     * @return true if the move was made, false if it is not valid and the board is unchanged
+     */
+    public boolean tryMove(int fromRow, int fromCol, int toRow, int toCol){
+        if(this.metrics == null) return this.tryJump(fromRow, fromCol, toRow, toCol);
+        long start = System.nanoTime();
+        boolean made = this.tryJump(fromRow, fromCol, toRow, toCol);
+        this.metrics.recordMove(made, System.nanoTime() - start);
+        return made;
+    }
+
+    /**
+     * This method makes the move from (fromRow, fromCol) to (toRow, toCol) if it is valid, for tryMove
+     * @return true if the move was made, false if it is not valid and the board is unchanged
+     */
+    private boolean tryJump(int fromRow, int fromCol, int toRow, int toCol){
+        int from = this.geometry.cellAt(fromRow, fromCol);
+        int to = this.geometry.cellAt(toRow, toCol);
+        if(from < 0 || to < 0) return false;
+        int jump = this.geometry.findJump(from, to);
+        // a jump can be made exactly when it is in the legal move set
+        if(jump < 0 || this.legalIndex[jump] < 0) return false;
+        this.makeJump(jump);
+        return true;
+    }
+
+    /**
+     * This method makes a jump that is in the legal move set and records it for undo
+     * @param jump the jump of the geometry
+     */
+    private void makeJump(int jump){
+        this.jump(jump, false);
         this.score--;
+        this.history[this.historySize++] = jump;
+    }
+
+    /**
+     * This method takes back the last move made, restoring the board, score,
+     * hashes and legal moves to what they were before it, without allocating
+     * @return true if a move was taken back, false if no move has been made
+     */
+    public boolean undo(){
+        if(this.historySize == 0) return false;
+        this.jump(this.history[--this.historySize], true);
+        this.score++;
+        return true;
+    }
+
+    /**
+     * This method returns the number of moves made that can be taken back by undo
+     * @return an int, the number of moves made
+     */
+    public int getMoveCount(){
+        return this.historySize;
+    }
+
+    /**
+     * This method returns the moves made so far, in order, as move ids
+     * (row * dim + col) * directions + direction of the source slot, with the directions
+     * left, right, up and down numbered 0 to 3, and on the six direction boards
+     * up left and down right numbered 4 and 5
+     * @return a new array of getMoveCount() move ids
+     */
+    public int[] getMoveHistory(){
+        int[] ids = new int[this.historySize];
+        for(int i = 0; i < ids.length; i++){
+            int jump = this.history[i];
+            ids[i] = this.geometry.jumpFrom[jump] * this.geometry.getDirectionCount() + this.geometry.jumpDirection[jump];
+        }
+        return ids;
+    }
+
+    /**
+     * This method changes the three slots of a jump and updates the hashes and legal moves,
+     * the caller has checked the jump is valid and updates the score
+     * @param jump the jump of the geometry
+     * @param reverse false to make the jump, true to take it back
+     */
+    private void jump(int jump, boolean reverse){
+        int from = this.geometry.jumpFrom[jump];
+        int over = this.geometry.jumpOver[jump];
+        int to = this.geometry.jumpTo[jump];
+        this.setCell(over, reverse);
+        this.setCell(from, reverse);
+        this.setCell(to, !reverse);
+        this.renderSlot(from);
+        this.renderSlot(over);
+        this.renderSlot(to);
+        this.refreshLegalMovesAround(from);
+        this.refreshLegalMovesAround(over);
+        this.refreshLegalMovesAround(to);
+    }
+
+    /**
+     * This method puts a marble in a slot or takes it out, updating the hashes
+     * @param cell the slot, row * dim + col
+     * @param marble true for a marble, false for an empty slot
+     */
+    private void setCell(int cell, boolean marble){
+        int row = this.geometry.cellRow[cell];
+        int col = this.geometry.cellCol[cell];
+        this.marbles[cell] = marble;
+        this.board[row][col] = marble ? SlotState.Marble : SlotState.Empty;
+        this.zobrist.toggle(this.hashes, row, col);
     }
 
     @Override
     public boolean isGameOver() {
-        for(int r = 0; r < this.board.length; r++){
-            for(int c = 0; c < this.board[0].length; c++){
-                if(this.hasValidMove(r, c)) return false;
-            }
-        }
-        return true;
+        if(this.metrics == null) return this.legalCount == 0;
+        long start = System.nanoTime();
+        boolean isGameOver = this.legalCount == 0;
+        this.metrics.recordGameOver(System.nanoTime() - start);
+        return isGameOver;
     }
 
     @Override
     public String getGameState() {
-        return Arrays.stream(this.board).map(
-                row -> Arrays.stream(row).map(
-                        e -> e.toString()).collect(Collectors.joining(" "))
-                ).collect(Collectors.joining("\n"));
+        long start = this.metrics == null ? 0 : System.nanoTime();
+        // the String is only rebuilt from the render buffer after the board changed
+        if(this.gameState == null) this.gameState = new String(this.render);
+        if(this.metrics != null) this.metrics.recordGameState(System.nanoTime() - start);
+        return this.gameState;
+    }
+
+    /**
+     * This method patches the render buffer with the current state of one slot
+     * and tells the listeners about it
+     * @param cell the slot, row * dim + col
+     */
+    private void renderSlot(int cell){
+        int row = this.geometry.cellRow[cell];
+        int col = this.geometry.cellCol[cell];
+        this.render[row * 2 * this.board.length + 2 * col] = this.board[row][col].toString().charAt(0);
+        this.gameState = null;
+        for(int i = 0; i < this.listeners.size(); i++){
+            this.listeners.get(i).slotChanged(row, col, this.board[row][col]);
+        }
     }
 
     @Override
@@ -145,66 +397,214 @@ public class MarbleSolitaireModelImpl implements MarbleSolitaireModel{
         return this.score;
     }
 
+    /**
+     * This method returns the state of one slot, reading the board without copying it
+     * @param row row
+     * @param col column
+     * @return the SlotState at (row, col)
+     * @throws IllegalArgumentException if (row, col) is outside the board
+     */
+    public SlotState getSlotAt(int row, int col) throws IllegalArgumentException{
+        if(row < 0 || row >= this.board.length || col < 0 || col >= this.board.length){
+            throw new IllegalArgumentException(String.format("Invalid slot position (%d,%d)", row, col));
+        }
+        return this.board[row][col];
+    }
+
+    /**
+     * This method returns the number of rows of the board, which is also its number of columns
+     * @return an int, the side length of the board
+     */
+    public int getBoardSize(){
+        return this.board.length;
+    }
+
+    /**
+     * This method returns the shape of the board
+     * @return the geometry of the board
+     */
+    public BoardGeometry getGeometry(){
+        return this.geometry;
+    }
+
+    /**
+     * This method registers a listener that is told about every slot changed from now on
+     * @param listener the listener to add
+     */
+    public void addBoardListener(BoardListener listener){
+        this.listeners.add(listener);
+    }
+
+    /**
+     * This method unregisters a listener added by addBoardListener
+     * @param listener the listener to remove
+     */
+    public void removeBoardListener(BoardListener listener){
+        this.listeners.remove(listener);
+    }
+
     /**
      * This method returns a copy of the board, changes made on this board
      * would not be reflected on this.board
      * @return a copy of the board
      */
     public SlotState[][] getBoard(){
-        return Arrays.stream(this.board).map(SlotState[]::clone).toArray(SlotState[][]::new);
+        long start = this.metrics == null ? 0 : System.nanoTime();
+        SlotState[][] copy = Arrays.stream(this.board).map(SlotState[]::clone).toArray(SlotState[][]::new);
+        if(this.metrics != null) this.metrics.recordBoard(System.nanoTime() - start);
+        return copy;
     }
 
-
     /**
-     * This method checks if the given slot (row, col) has any valid moves
-     * @param row row
-     * @param col column
-     * @return if the given slot (row, col) has any valid move
+     * This method sets the metrics the model records its calls to, tryMove, move and makeLegalMove, isGameOver,
+     * getGameState and getBoard are then counted and timed. Without metrics each of these calls
+     * only checks for null, so a model is metered in production at no cost when metrics are off
+     * @param metrics the metrics, shared by any number of models, or null to stop recording
      */
-    private boolean hasValidMove(int row, int col){
-        //  out of bounds for the whole board even outside the OfB slots
-        if(row < 0 || row >= this.board.length || col < 0 || col >=  this.board[0].length) return false;
+    public void setMetrics(ModelMetrics metrics){
+        this.metrics = metrics;
+    }
 
-        // out of bounds for the OfB slots
-        if(this.board[row][col] != SlotState.Marble) return false;
+    /**
+     * Returns the metrics the model records to
+     * @return the metrics, or null for none
+     */
+    public ModelMetrics getMetrics(){return this.metrics;}
 
-        // check 4 directions to see if there is at least one valid move
-        if(this.isValidMove(row, col, row, col - 2) ||
-                this.isValidMove(row, col, row, col + 2) ||
-                this.isValidMove(row, col, row - 2, col) ||
-                this.isValidMove(row, col, row + 2, col)
-        ) return true;
 
-        return false;
+    /**
+     * This method returns the moves that are currently legal, read from the
+     * legal move set kept up to date by move, so the board is not scanned
+     * @return a new list of the legal moves, empty if the game is over
+     */
+    public List<Move> getLegalMoves(){
+        List<Move> moves = new ArrayList<>(this.legalCount);
+        for(int i = 0; i < this.legalCount; i++){
+            int from = this.geometry.jumpFrom[this.legalMoves[i]];
+            int to = this.geometry.jumpTo[this.legalMoves[i]];
+            moves.add(new Move(this.geometry.cellRow[from], this.geometry.cellCol[from],
+                    this.geometry.cellRow[to], this.geometry.cellCol[to]));
+        }
+        return moves;
     }
 
+    /**
+     * This method makes one of the currently legal moves, picked by its position in the
+     * legal move set, so automated players can pick a move without building the move list.
+     * The order of the set is unspecified and changes after every move
+     * @param index position in the legal move set, from 0 to getLegalMoveCount() - 1
+     * @throws IllegalArgumentException if index is not a position in the legal move set
+     */
+    public void makeLegalMove(int index) throws IllegalArgumentException{
+        if(index < 0 || index >= this.legalCount){
+            throw new IllegalArgumentException(String.format("Invalid legal move index %d, %d legal moves", index, this.legalCount));
+        }
+        long start = this.metrics == null ? 0 : System.nanoTime();
+        this.makeJump(this.legalMoves[index]);
+        if(this.metrics != null) this.metrics.recordMove(true, System.nanoTime() - start);
+    }
 
     /**
-     * This method tests if the move from (fromRow, fromCol) to (toRow, toCol) is valid or not
+     * This method returns the position of a move in the legal move set, the index makeLegalMove
+     * takes, found from the jump of the move without scanning the set
      * @param fromRow source row location
      * @param fromCol source column location
      * @param toRow destination row location
      * @param toCol destination column location
-     * @return if the move from (fromRow, fromCol) to (toRow, toCol) is valid or not
+     * @return the position of the move, or -1 if it is not currently legal
      */
-    private boolean isValidMove(int fromRow, int fromCol, int toRow, int toCol){
-        // out of bounds for the whole board even outside the OfB slots
-        if(fromRow < 0 || fromRow >=  this.board.length || fromCol < 0 || fromCol >=  this.board[0].length) return false;
-        if(toRow < 0 || toRow >=  this.board.length || toCol < 0 || toCol >= this.board[0].length) return false;
+    public int getLegalMoveIndex(int fromRow, int fromCol, int toRow, int toCol){
+        int from = this.geometry.cellAt(fromRow, fromCol);
+        int to = this.geometry.cellAt(toRow, toCol);
+        if(from < 0 || to < 0) return -1;
+        int jump = this.geometry.findJump(from, to);
+        return jump < 0 ? -1 : this.legalIndex[jump];
+    }
 
-        // out of bounds for the OfB slots
-        if(this.board[fromRow][fromCol] != SlotState.Marble) return false;
-        if(this.board[toRow][toCol] != SlotState.Empty) return false;
+    /**
+     * This method finds the slots the marble at (row, col) can legally jump to, checking the
+     * jumps that start at the slot against the legal move set, without allocating
+     * @param row row of the source slot
+     * @param col column of the source slot
+     * @param rows filled with the rows of the destinations, room for getGeometry().getDirectionCount()
+     * @param cols filled with the columns of the destinations, same room as rows
+     * @return the number of destinations written, 0 if (row, col) is not a marble that can move
+     */
+    public int getLegalDestinations(int row, int col, int[] rows, int[] cols){
+        int from = this.geometry.cellAt(row, col);
+        if(from < 0) return 0;
+        int count = 0;
+        int directions = this.geometry.getDirectionCount();
+        for(int dir = 0; dir < directions; dir++){
+            int jump = this.geometry.jumpAt[from * directions + dir];
+            if(jump < 0 || this.legalIndex[jump] < 0) continue;
+            rows[count] = this.geometry.cellRow[this.geometry.jumpTo[jump]];
+            cols[count] = this.geometry.cellCol[this.geometry.jumpTo[jump]];
+            count++;
+        }
+        return count;
+    }
 
-        // from and to must have 2 nos. of spacing, no diagonal allowed
-        if(!((Math.abs(fromRow - toRow) == 2 && (fromCol == toCol)) || (Math.abs(fromCol - toCol) == 2 && (fromRow == toRow)))) return false;
+    /**
+     * This method returns the number of moves that are currently legal
+     * @return an int, the size of the legal move set
+     */
+    public int getLegalMoveCount(){
+        return this.legalCount;
+    }
 
-        int middleRow = (fromRow + toRow) / 2;
-        int middleCol = (fromCol + toCol) / 2;
-        // the slot in between from and to must be marble
-        if(this.board[middleRow][middleCol] != SlotState.Marble) return false;
+    /**
+     * This method returns the Zobrist hash of the current board, updated by every move
+     * @return a long, the hash of the board
+     */
+    public long getZobristHash(){
+        return this.hashes[0];
+    }
 
-        // return true if passes all the conditional testing
-        return true;
+    /**
+     * This method returns the hash of the current board that is shared by all boards
+     * equal to it under rotation or reflection, the smallest of its Zobrist hashes under the
+     * transforms that map the board onto itself, all 8 for the square boards
+     * @return a long, the canonical hash of the board
+     */
+    public long getCanonicalHash(){
+        long min = this.hashes[0];
+        for(int t : this.symmetries){
+            min = Math.min(min, this.hashes[t]);
+        }
+        return min;
+    }
+
+    /**
+     * This method rechecks every move that starts at, jumps over or lands on the given slot,
+     * called for each of the three slots changed by a move
+     * @param cell the changed slot, row * dim + col
+     */
+    private void refreshLegalMovesAround(int cell){
+        int[] touchJumps = this.geometry.touchJumps;
+        for(int t = this.geometry.touchStart[cell]; t < this.geometry.touchStart[cell + 1]; t++){
+            this.refreshLegalMove(touchJumps[t]);
+        }
+    }
+
+    /**
+     * This method adds a jump to the legal move set if it is valid now, or removes it if it is not,
+     * a jump is valid when its from and over slots hold marbles and its to slot is empty
+     * @param jump the jump of the geometry
+     */
+    private void refreshLegalMove(int jump){
+        boolean valid = this.marbles[this.geometry.jumpFrom[jump]] && this.marbles[this.geometry.jumpOver[jump]]
+                && !this.marbles[this.geometry.jumpTo[jump]];
+        int index = this.legalIndex[jump];
+        if(valid && index < 0){
+            this.legalMoves[this.legalCount] = jump;
+            this.legalIndex[jump] = this.legalCount++;
+        }else if(!valid && index >= 0){
+            // swap the last jump into the removed position
+            int last = this.legalMoves[--this.legalCount];
+            this.legalMoves[index] = last;
+            this.legalIndex[last] = index;
+            this.legalIndex[jump] = -1;
+        }
     }
 }
@@ -0,0 +1,66 @@
+package marblesolitaire.model;
+
+/**
+ * This class represents a single move of a marble from (fromRow, fromCol) to (toRow, toCol),
+ * jumping over the marble in between. It is immutable and only holds the coordinates,
+ * whether it is valid depends on the board it is applied to.
+ */
+public final class Move {
+    private final int fromRow;
+    private final int fromCol;
+    private final int toRow;
+    private final int toCol;
+
+    /**
+     * Constructor of the class, takes in the source and destination coordinates
+     * @param fromRow source row location
+     * @param fromCol source column location
+     * @param toRow destination row location
+     * @param toCol destination column location
+     */
+    public Move(int fromRow, int fromCol, int toRow, int toCol){
+        this.fromRow = fromRow;
+        this.fromCol = fromCol;
+        this.toRow = toRow;
+        this.toCol = toCol;
+    }
+
+    public int getFromRow(){return this.fromRow;}
+
+    public int getFromCol(){return this.fromCol;}
+
+    public int getToRow(){return this.toRow;}
+
+    public int getToCol(){return this.toCol;}
+
+    /**
+     * Returns the row of the marble jumped over by this move
+     * @return an int, the middle row
+     */
+    public int getMiddleRow(){return (this.fromRow + this.toRow) / 2;}
+
+    /**
+     * Returns the column of the marble jumped over by this move
+     * @return an int, the middle column
+     */
+    public int getMiddleCol(){return (this.fromCol + this.toCol) / 2;}
+
+    @Override
+    public boolean equals(Object o){
+        if(this == o) return true;
+        if(!(o instanceof Move)) return false;
+        Move other = (Move) o;
+        return this.fromRow == other.fromRow && this.fromCol == other.fromCol
+                && this.toRow == other.toRow && this.toCol == other.toCol;
+    }
+
+    @Override
+    public int hashCode(){
+        return ((this.fromRow * 31 + this.fromCol) * 31 + this.toRow) * 31 + this.toCol;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("(%d,%d) -> (%d,%d)", this.fromRow, this.fromCol, this.toRow, this.toCol);
+    }
+}
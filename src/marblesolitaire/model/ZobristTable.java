@@ -0,0 +1,97 @@
+package marblesolitaire.model;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class holds the random keys for Zobrist hashing of a dim x dim board.
+ * The hash of a position is the XOR of the keys of all slots holding a marble, so a move
+ * updates it by XOR-ing the keys of the three slots it changes. Keys are generated from
+ * a fixed seed, so two tables of the same dim always give the same hashes.
+ * For every DihedralTransform the table also gives the key of the transformed slot,
+ * hashing the transformed position. Over the transforms that map the board onto itself, see
+ * BoardGeometry.getSymmetries, the smallest of these hashes is the same for all symmetric positions.
+ */
+public final class ZobristTable {
+    private static final long SEED = 0x5DEECE66DL;
+    private static final Map<Integer, ZobristTable> TABLES = new ConcurrentHashMap<>();
+
+    private final int dim;
+    // keys[t][row * dim + col] is the key of the slot that (row, col) is mapped to by transform t
+    private final long[][] keys;
+
+    /**
+     * Returns the shared table for boards of the given side length, created on first use
+     * @param dim, side length of the board
+     * @return the table for dim
+     */
+    public static ZobristTable forDim(int dim){
+        return TABLES.computeIfAbsent(dim, ZobristTable::new);
+    }
+
+    /**
+     * Constructor of the class, takes in the side length of the board
+     * @param dim, side length of the board
+     */
+    private ZobristTable(int dim){
+        this.dim = dim;
+        Random random = new Random(SEED + dim);
+        long[] base = new long[dim * dim];
+        for(int i = 0; i < base.length; i++){
+            base[i] = random.nextLong();
+        }
+        DihedralTransform[] transforms = DihedralTransform.values();
+        this.keys = new long[transforms.length][dim * dim];
+        for(int t = 0; t < transforms.length; t++){
+            for(int r = 0; r < dim; r++){
+                for(int c = 0; c < dim; c++){
+                    int tr = transforms[t].row(r, c, dim);
+                    int tc = transforms[t].col(r, c, dim);
+                    this.keys[t][r * dim + c] = base[tr * dim + tc];
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the key of (row, col) for the given transform
+     * @param transform index of the DihedralTransform
+     * @param row row
+     * @param col column
+     * @return the key
+     */
+    public long key(int transform, int row, int col){
+        return this.keys[transform][row * this.dim + col];
+    }
+
+    /**
+     * This method fills hashes[t] with the hash of the board under each transform
+     * @param board, 2D array of enum SlotState
+     * @param hashes, array of at least 8 longs to fill
+     */
+    public void hashAll(SlotState[][] board, long[] hashes){
+        for(int t = 0; t < this.keys.length; t++){
+            long h = 0;
+            for(int r = 0; r < this.dim; r++){
+                for(int c = 0; c < this.dim; c++){
+                    if(board[r][c] == SlotState.Marble) h ^= this.keys[t][r * this.dim + c];
+                }
+            }
+            hashes[t] = h;
+        }
+    }
+
+    /**
+     * This method updates the hashes of every transform for a marble added to or removed from (row, col)
+     * @param hashes, the 8 hashes to update in place
+     * @param row row
+     * @param col column
+     */
+    public void toggle(long[] hashes, int row, int col){
+        int i = row * this.dim + col;
+        for(int t = 0; t < this.keys.length; t++){
+            hashes[t] ^= this.keys[t][i];
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package marblesolitaire.playout;
+
+import marblesolitaire.model.Move;
+
+/**
+ * This class holds the playout results of one candidate move, how many random games were
+ * played after it, the average and best final score of those games, and how many of them
+ * ended with a single marble. A lower score is better.
+ */
+public final class MoveStatistics {
+    private final Move move;
+    private final int playouts;
+    private final long scoreSum;
+    private final int bestScore;
+    private final int solvedCount;
+
+    /**
+     * Constructor of the class
+     * @param move, the candidate move
+     * @param playouts, number of random games played after the move
+     * @param scoreSum, sum of the final scores of those games
+     * @param bestScore, lowest final score of those games
+     * @param solvedCount, number of those games that ended with one marble
+     */
+    public MoveStatistics(Move move, int playouts, long scoreSum, int bestScore, int solvedCount){
+        this.move = move;
+        this.playouts = playouts;
+        this.scoreSum = scoreSum;
+        this.bestScore = bestScore;
+        this.solvedCount = solvedCount;
+    }
+
+    public Move getMove(){return this.move;}
+
+    public int getPlayouts(){return this.playouts;}
+
+    public int getBestScore(){return this.bestScore;}
+
+    public int getSolvedCount(){return this.solvedCount;}
+
+    /**
+     * Returns the average final score of the playouts after this move
+     * @return a double, the mean score, or Double.NaN if no playout was made
+     */
+    public double getMeanScore(){
+        return this.playouts == 0 ? Double.NaN : (double) this.scoreSum / this.playouts;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("%s: mean %.2f, best %d, solved %d/%d", this.move, this.getMeanScore(),
+                this.bestScore, this.solvedCount, this.playouts);
+    }
+}
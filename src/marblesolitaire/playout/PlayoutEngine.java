@@ -0,0 +1,116 @@
+package marblesolitaire.playout;
+
+import marblesolitaire.model.BoardGeometry;
+import marblesolitaire.model.MarbleSolitaireModel;
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+import marblesolitaire.model.SlotState;
+import marblesolitaire.solver.BoardEncoding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This is the Monte Carlo engine behind move hints. For every legal move of a position it
+ * plays random games to the end and collects the final scores, so moves can be rated by the
+ * average score they lead to. The position is copied once into a MarbleSolitaireModelImpl,
+ * each playout makes its moves with makeLegalMove and is taken back with undo, so the
+ * playouts themselves allocate nothing. Playouts stop when every move has had its budget
+ * or the time limit is reached, whichever comes first.
+ * An engine object is not thread safe, use one engine per thread.
+ */
+public class PlayoutEngine {
+    private static final int DEFAULT_PLAYOUTS_PER_MOVE = 1000;
+    private static final long DEFAULT_TIME_LIMIT_MILLIS = 40;
+
+    private final int playoutsPerMove;
+    private final long timeLimitNanos;
+
+    /**
+     * First constructor of the class, with the default budget of 1000 playouts
+     * per move and a 40 ms time limit
+     */
+    public PlayoutEngine(){
+        this(DEFAULT_PLAYOUTS_PER_MOVE, DEFAULT_TIME_LIMIT_MILLIS);
+    }
+
+    /**
+     * Second constructor of the class, takes in the playout budget and time limit
+     * @param playoutsPerMove, largest number of playouts after each move
+     * @param timeLimitMillis, time after which no new playouts are started, 0 for no limit
+     * @throws IllegalArgumentException if playoutsPerMove is not positive or timeLimitMillis is negative
+     */
+    public PlayoutEngine(int playoutsPerMove, long timeLimitMillis) throws IllegalArgumentException{
+        if(playoutsPerMove <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid playout budget %d, must be positive", playoutsPerMove));
+        }
+        if(timeLimitMillis < 0) {
+            throw new IllegalArgumentException(String.format("Invalid time limit %d, must not be negative", timeLimitMillis));
+        }
+        this.playoutsPerMove = playoutsPerMove;
+        this.timeLimitNanos = timeLimitMillis * 1_000_000L;
+    }
+
+    /**
+     * This method rates every legal move of the model's position, the model itself is not changed
+     * @param model the position to rate the moves of
+     * @return the statistics of every legal move, best average score first,
+     *         empty if the game is over
+     */
+    public List<MoveStatistics> rateMoves(MarbleSolitaireModel model){
+        SlotState[][] position = BoardEncoding.boardOf(model);
+        BoardGeometry geometry = model instanceof MarbleSolitaireModelImpl
+                ? ((MarbleSolitaireModelImpl) model).getGeometry() : BoardGeometry.of(position);
+        MarbleSolitaireModelImpl board = new MarbleSolitaireModelImpl(geometry, position);
+        List<Move> moves = board.getLegalMoves();
+        int n = moves.size();
+        int[] playouts = new int[n];
+        long[] scoreSum = new long[n];
+        int[] bestScore = new int[n];
+        int[] solved = new int[n];
+        Arrays.fill(bestScore, Integer.MAX_VALUE);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long deadline = System.nanoTime() + this.timeLimitNanos;
+        // one playout per move in each round, so a time limited run stays balanced between moves
+        for(int round = 0; round < this.playoutsPerMove && n > 0; round++){
+            if(this.timeLimitNanos > 0 && round > 0 && System.nanoTime() - deadline > 0) break;
+            for(int i = 0; i < n; i++){
+                Move m = moves.get(i);
+                board.tryMove(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol());
+                int score = playout(board, random);
+                while(board.getMoveCount() > 0){
+                    board.undo();
+                }
+                playouts[i]++;
+                scoreSum[i] += score;
+                bestScore[i] = Math.min(bestScore[i], score);
+                if(score == 1) solved[i]++;
+            }
+        }
+
+        List<MoveStatistics> stats = new ArrayList<>(n);
+        for(int i = 0; i < n; i++){
+            stats.add(new MoveStatistics(moves.get(i), playouts[i], scoreSum[i], bestScore[i], solved[i]));
+        }
+        stats.sort(Comparator.comparingDouble(MoveStatistics::getMeanScore));
+        return stats;
+    }
+
+    /**
+     * This method makes random legal moves until the game is over
+     * @param board the board to play on, left at the end of the game
+     * @param random the random number generator
+     * @return the final score
+     */
+    static int playout(MarbleSolitaireModelImpl board, ThreadLocalRandom random){
+        int count;
+        while((count = board.getLegalMoveCount()) > 0){
+            board.makeLegalMove(random.nextInt(count));
+        }
+        return board.getScore();
+    }
+}
@@ -0,0 +1,131 @@
+package marblesolitaire.record;
+
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class reads a game archive written by GameArchiveWriter with random access by game index.
+ * The data file and the index file are memory mapped in segments, so archives larger than 2 GB
+ * work, and reading a game goes straight from the mapped pages without copying the file.
+ * Game n is found by reading entry n of the index. It is safe to read from many threads,
+ * each with its own GameCursor. The mappings are released by the garbage collector, close
+ * only drops them.
+ */
+public class GameArchive implements Closeable {
+    private static final int SEGMENT_BITS = 30;
+
+    private MappedSegments data;
+    private MappedSegments index;
+
+    /**
+     * First constructor of the class, maps an archive in 1 GB segments
+     * @param path the data file
+     * @throws IOException if a file cannot be mapped or is not a game archive
+     */
+    public GameArchive(Path path) throws IOException{
+        this(path, SEGMENT_BITS);
+    }
+
+    /**
+     * Second constructor of the class, maps an archive in segments of the given size
+     * @param path the data file
+     * @param segmentBits log 2 of the segment size in bytes, from 3 to 30
+     * @throws IOException if a file cannot be mapped or is not a game archive
+     * @throws IllegalArgumentException if segmentBits is out of range
+     */
+    public GameArchive(Path path, int segmentBits) throws IOException, IllegalArgumentException{
+        try(FileChannel data = FileChannel.open(path, StandardOpenOption.READ);
+            FileChannel index = FileChannel.open(indexPath(path), StandardOpenOption.READ)){
+            this.data = new MappedSegments(data, segmentBits);
+            this.index = new MappedSegments(index, segmentBits);
+        }
+        int header = GameRecordWriter.MAGIC.length;
+        for(int i = 0; i < header; i++){
+            if(this.data.size() <= header || this.data.get(i) != GameRecordWriter.MAGIC[i]) {
+                throw new IOException("Invalid game archive header");
+            }
+        }
+        if(this.data.get(header) != GameRecordWriter.VERSION) {
+            throw new IOException(String.format("Unsupported game archive version %d", this.data.get(header)));
+        }
+        if(this.index.size() % Long.BYTES != 0) {
+            throw new IOException(String.format("Invalid game archive index size %d", this.index.size()));
+        }
+    }
+
+    /**
+     * This method returns the index file of a data file, the data file name with ".idx" added
+     * @param path the data file
+     * @return the index file
+     */
+    public static Path indexPath(Path path){
+        return path.resolveSibling(path.getFileName() + ".idx");
+    }
+
+    /**
+     * Returns the number of games in the archive
+     * @return a long, the number of games
+     */
+    public long getGameCount(){
+        return this.index.size() / Long.BYTES;
+    }
+
+    /**
+     * This method creates a cursor on the archive, at game 0 if there is one
+     * @return the cursor
+     */
+    public GameCursor cursor(){
+        GameCursor cursor = new GameCursor(this.data, this.index);
+        if(this.getGameCount() > 0) cursor.seek(0);
+        return cursor;
+    }
+
+    /**
+     * This method reads one game
+     * @param game the index of the game, from 0 to getGameCount() - 1
+     * @return the game
+     * @throws IllegalArgumentException if there is no such game
+     */
+    public GameRecord getGame(long game) throws IllegalArgumentException{
+        GameCursor cursor = new GameCursor(this.data, this.index);
+        cursor.seek(game);
+        int[] moves = new int[cursor.getMoveCount()];
+        for(int i = 0; i < moves.length; i++){
+            moves[i] = cursor.nextMoveId();
+        }
+        return new GameRecord(cursor.getArm(), cursor.getStartRow(), cursor.getStartCol(), moves);
+    }
+
+    /**
+     * This method rebuilds the position of a game after its first moves, by making them
+     * on a new game with move
+     * @param game the index of the game, from 0 to getGameCount() - 1
+     * @param moves the number of moves to make, from 0 to the number of moves of the game
+     * @return the new game after the moves
+     * @throws IllegalArgumentException if there is no such game or moves is out of range,
+     *                                  or the game is not valid
+     */
+    public MarbleSolitaireModelImpl replay(long game, int moves) throws IllegalArgumentException{
+        GameCursor cursor = new GameCursor(this.data, this.index);
+        cursor.seek(game);
+        if(moves < 0 || moves > cursor.getMoveCount()) {
+            throw new IllegalArgumentException(String.format("Invalid move count %d, game %d has %d moves", moves, game, cursor.getMoveCount()));
+        }
+        MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(cursor.getArm(), cursor.getStartRow(), cursor.getStartCol());
+        for(int i = 0; i < moves; i++){
+            cursor.nextMove(model);
+        }
+        return model;
+    }
+
+    @Override
+    public void close(){
+        this.data = null;
+        this.index = null;
+    }
+}
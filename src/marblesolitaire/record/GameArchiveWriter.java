@@ -0,0 +1,96 @@
+package marblesolitaire.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class writes a game archive, the games in the GameRecordWriter format in the data file,
+ * and next to it an index file of the position of every game in the data file, one big endian
+ * long per game in order, so GameArchive can find game n without reading the games before it.
+ */
+public class GameArchiveWriter implements Closeable {
+    private final GameRecordWriter data;
+    private final FileChannel index;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(GameRecordWriter.BUFFER_SIZE);
+
+    /**
+     * Constructor of the class, creates the data file and its index file,
+     * replacing them if they exist
+     * @param path the data file, the index file is GameArchive.indexPath(path)
+     * @throws IOException if a file cannot be opened
+     */
+    public GameArchiveWriter(Path path) throws IOException{
+        this.index = FileChannel.open(GameArchive.indexPath(path), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try{
+            this.data = GameRecordWriter.open(path);
+        }catch(IOException e){
+            this.index.close();
+            throw e;
+        }
+    }
+
+    /**
+     * This method writes one game
+     * @param record the game
+     * @throws IOException if writing fails
+     */
+    public void write(GameRecord record) throws IOException{
+        this.addOffset();
+        this.data.write(record);
+    }
+
+    /**
+     * This method writes one game from its parts, without building a GameRecord
+     * @param arm arm thickness of the board
+     * @param startRow empty spot row coordinate
+     * @param startCol empty spot col coordinate
+     * @param moves array holding the move ids
+     * @param count number of moves, the ids are moves[0, count)
+     * @throws IOException if writing fails
+     */
+    public void write(int arm, int startRow, int startCol, int[] moves, int count) throws IOException{
+        this.addOffset();
+        this.data.write(arm, startRow, startCol, moves, count);
+    }
+
+    /**
+     * Returns the number of games written so far
+     * @return a long, the number of games
+     */
+    public long getGameCount(){return this.data.getGameCount();}
+
+    /**
+     * This method flushes both files and closes them
+     * @throws IOException if writing or closing fails
+     */
+    @Override
+    public void close() throws IOException{
+        try{
+            this.flushIndex();
+        }finally{
+            try{
+                this.data.close();
+            }finally{
+                this.index.close();
+            }
+        }
+    }
+
+    private void addOffset() throws IOException{
+        if(this.buffer.remaining() < Long.BYTES) this.flushIndex();
+        this.buffer.putLong(this.data.getPosition());
+    }
+
+    private void flushIndex() throws IOException{
+        this.buffer.flip();
+        while(this.buffer.hasRemaining()){
+            this.index.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+}
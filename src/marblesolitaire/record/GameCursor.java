@@ -0,0 +1,126 @@
+package marblesolitaire.record;
+
+import marblesolitaire.model.MarbleSolitaireModel;
+
+/**
+ * This class walks over the games of a GameArchive, reading the moves of one game at a time
+ * straight from the mapped archive, so iterating over millions of games allocates nothing.
+ * seek moves to a game and reads its start, then nextMoveId reads its moves in order.
+ * A cursor is used by one thread at a time.
+ */
+public final class GameCursor {
+    // row and column offsets of a jump to the left, right, up and down, in that order
+    private static final int[] JUMP_ROW = {0, 0, -2, 2};
+    private static final int[] JUMP_COL = {-2, 2, 0, 0};
+
+    private final MappedSegments data;
+    private final MappedSegments index;
+
+    private long game = -1;
+    private long position;
+    private int arm;
+    private int startRow;
+    private int startCol;
+    private int moveCount;
+    private int movesRead;
+
+    GameCursor(MappedSegments data, MappedSegments index){
+        this.data = data;
+        this.index = index;
+    }
+
+    /**
+     * This method moves the cursor to the start of a game
+     * @param game the index of the game
+     * @throws IllegalArgumentException if there is no such game
+     * @throws IllegalStateException if the move count of the game is more than its board or the archive allows
+     */
+    public void seek(long game) throws IllegalArgumentException, IllegalStateException{
+        long games = this.index.size() / Long.BYTES;
+        if(game < 0 || game >= games) {
+            throw new IllegalArgumentException(String.format("Invalid game %d, archive has %d games", game, games));
+        }
+        this.game = game;
+        this.position = this.index.getLong(game * Long.BYTES);
+        this.arm = this.readVarint();
+        this.startRow = this.readVarint();
+        this.startCol = this.readVarint();
+        this.moveCount = this.readVarint();
+        // every move takes at least one byte
+        if(this.moveCount < 0 || this.moveCount > GameRecord.maxMoveCount(this.arm)
+                || this.moveCount > this.data.size() - this.position) {
+            throw new IllegalStateException(String.format("Invalid game %d, %d moves for arm %d", game, this.moveCount, this.arm));
+        }
+        this.movesRead = 0;
+    }
+
+    /**
+     * This method moves the cursor to the start of the game after the current one,
+     * the moves of the current game that were not read are skipped
+     * @return true if there was a next game, false if the current game is the last
+     */
+    public boolean nextGame(){
+        if(this.game + 1 >= this.index.size() / Long.BYTES) return false;
+        this.seek(this.game + 1);
+        return true;
+    }
+
+    public long getGame(){return this.game;}
+
+    public int getArm(){return this.arm;}
+
+    public int getStartRow(){return this.startRow;}
+
+    public int getStartCol(){return this.startCol;}
+
+    public int getMoveCount(){return this.moveCount;}
+
+    /**
+     * Returns if the current game has moves that were not read yet
+     * @return a boolean, true if nextMoveId can be called
+     */
+    public boolean hasNextMove(){return this.movesRead < this.moveCount;}
+
+    /**
+     * This method reads the next move of the current game
+     * @return an int, the move id (row * dim + col) * 4 + direction
+     * @throws IllegalStateException if all moves of the game were read
+     */
+    public int nextMoveId() throws IllegalStateException{
+        if(this.movesRead >= this.moveCount) {
+            throw new IllegalStateException(String.format("Game %d has no moves left", this.game));
+        }
+        this.movesRead++;
+        return this.readVarint();
+    }
+
+    /**
+     * This method reads the next move of the current game and makes it on the model
+     * @param model the model, at the position before the move
+     * @throws IllegalStateException if all moves of the game were read
+     * @throws IllegalArgumentException if the move is invalid on the model
+     */
+    public void nextMove(MarbleSolitaireModel model) throws IllegalStateException, IllegalArgumentException{
+        int id = this.nextMoveId();
+        int dim = this.arm * 2 + 1;
+        int dir = id % 4;
+        int row = id / 4 / dim;
+        int col = id / 4 % dim;
+        model.move(row, col, row + JUMP_ROW[dir], col + JUMP_COL[dir]);
+    }
+
+    /**
+     * This method reads an unsigned varint at the current position
+     * @return the value
+     * @throws IllegalStateException if the varint is too long
+     */
+    private int readVarint() throws IllegalStateException{
+        int value = 0;
+        for(int shift = 0; shift < 7 * GameRecordWriter.MAX_VARINT_BYTES; shift += 7){
+            byte b = this.data.get(this.position++);
+            value |= (b & 0x7F) << shift;
+            if(b >= 0) return value;
+        }
+        throw new IllegalStateException(String.format("Invalid varint in game %d, too long", this.game));
+    }
+}
@@ -0,0 +1,232 @@
+package marblesolitaire.record;
+
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class is the record of one game, the start of the board, the arguments of the
+ * MarbleSolitaireModelImpl(arm, sRow, sCol) constructor, and the moves made from it.
+ * A move is kept as its move id (row * dim + col) * 4 + direction of the source slot,
+ * the same ids MarbleSolitaireModelImpl.getMoveHistory returns, with the directions
+ * left, right, up and down numbered 0 to 3. It is immutable.
+ */
+public final class GameRecord {
+    // row and column offsets of a jump to the left, right, up and down, in that order
+    private static final int[] JUMP_ROW = {0, 0, -2, 2};
+    private static final int[] JUMP_COL = {-2, 2, 0, 0};
+
+    private final int arm;
+    private final int startRow;
+    private final int startCol;
+    private final int[] moves;
+
+    /**
+     * Constructor of the class, takes in the start and the move ids
+     * @param arm arm thickness of the board
+     * @param startRow empty spot row coordinate
+     * @param startCol empty spot col coordinate
+     * @param moves the move ids in order, copied
+     */
+    public GameRecord(int arm, int startRow, int startCol, int[] moves){
+        this.arm = arm;
+        this.startRow = startRow;
+        this.startCol = startCol;
+        this.moves = moves.clone();
+    }
+
+    /**
+     * This method records the moves made so far on a game
+     * @param arm arm thickness the game was started with
+     * @param startRow empty spot row coordinate the game was started with
+     * @param startCol empty spot col coordinate the game was started with
+     * @param game the game
+     * @return the record
+     */
+    public static GameRecord of(int arm, int startRow, int startCol, MarbleSolitaireModelImpl game){
+        return new GameRecord(arm, startRow, startCol, game.getMoveHistory());
+    }
+
+    /**
+     * This method returns the most moves a recorded game can have, every move removes a marble,
+     * so a game has fewer moves than its board has slots
+     * @param arm arm thickness of the board
+     * @return a long, the number of slots of the board less one, or -1 if the arm is not valid
+     */
+    static long maxMoveCount(int arm){
+        if(arm <= 1 || arm % 2 == 0) return -1;
+        // a cross of two arm x dim strips sharing an arm x arm square
+        return (long) arm * (3L * arm + 2) - 1;
+    }
+
+    public int getArm(){return this.arm;}
+
+    public int getStartRow(){return this.startRow;}
+
+    public int getStartCol(){return this.startCol;}
+
+    public int getMoveCount(){return this.moves.length;}
+
+    /**
+     * Returns the id of one move
+     * @param index position of the move, from 0 to getMoveCount() - 1
+     * @return an int, the move id
+     */
+    public int getMoveId(int index){return this.moves[index];}
+
+    /**
+     * Returns the move ids of the game
+     * @return a new array of the move ids in order
+     */
+    public int[] getMoveIds(){return this.moves.clone();}
+
+    /**
+     * Returns the moves of the game
+     * @return a new list of the moves in order
+     */
+    public List<Move> getMoves(){
+        int dim = this.arm * 2 + 1;
+        List<Move> list = new ArrayList<>(this.moves.length);
+        for(int id : this.moves){
+            list.add(toMove(id, dim));
+        }
+        return list;
+    }
+
+    /**
+     * This method starts a new game at the start of this record
+     * @return the new game, no moves made
+     * @throws IllegalArgumentException if the start is invalid
+     */
+    public MarbleSolitaireModelImpl newGame() throws IllegalArgumentException{
+        return new MarbleSolitaireModelImpl(this.arm, this.startRow, this.startCol);
+    }
+
+    /**
+     * This method replays the record, making every move on a new game
+     * @return the game after the last move
+     * @throws IllegalArgumentException if the start or one of the moves is invalid
+     */
+    public MarbleSolitaireModelImpl replay() throws IllegalArgumentException{
+        MarbleSolitaireModelImpl game = this.newGame();
+        int dim = game.getBoardSize();
+        for(int id : this.moves){
+            int dir = id % 4;
+            int row = id / 4 / dim;
+            int col = id / 4 % dim;
+            game.move(row, col, row + JUMP_ROW[dir], col + JUMP_COL[dir]);
+        }
+        return game;
+    }
+
+    /**
+     * This method packs the record into bytes, the varints of a game in a record file
+     * without its header, about one byte per move
+     * @return a new array
+     */
+    public byte[] toBytes(){
+        ByteBuffer buffer = ByteBuffer.allocate((4 + this.moves.length) * GameRecordWriter.MAX_VARINT_BYTES);
+        GameRecordWriter.putVarint(buffer, this.arm);
+        GameRecordWriter.putVarint(buffer, this.startRow);
+        GameRecordWriter.putVarint(buffer, this.startCol);
+        GameRecordWriter.putVarint(buffer, this.moves.length);
+        for(int id : this.moves){
+            GameRecordWriter.putVarint(buffer, id);
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * This method unpacks a record packed by toBytes
+     * @param bytes the packed record
+     * @return the record
+     * @throws IllegalArgumentException if the bytes are not a packed record
+     */
+    public static GameRecord fromBytes(byte[] bytes) throws IllegalArgumentException{
+        int[] at = {0};
+        int arm = varintAt(bytes, at);
+        int startRow = varintAt(bytes, at);
+        int startCol = varintAt(bytes, at);
+        int count = varintAt(bytes, at);
+        // every move takes at least one byte
+        if(count < 0 || count > GameRecord.maxMoveCount(arm) || count > bytes.length - at[0]) {
+            throw new IllegalArgumentException(String.format("Invalid packed game record, %d moves for arm %d in %d bytes", count, arm, bytes.length));
+        }
+        int[] moves = new int[count];
+        for(int i = 0; i < moves.length; i++){
+            moves[i] = varintAt(bytes, at);
+        }
+        return new GameRecord(arm, startRow, startCol, moves);
+    }
+
+    /**
+     * This method reads an unsigned varint of a packed record
+     * @param bytes the packed record
+     * @param at the position to read at, moved past the varint
+     * @return the value
+     * @throws IllegalArgumentException if the bytes end or the varint is too long
+     */
+    private static int varintAt(byte[] bytes, int[] at) throws IllegalArgumentException{
+        int value = 0;
+        for(int shift = 0; shift < 7 * GameRecordWriter.MAX_VARINT_BYTES && at[0] < bytes.length; shift += 7){
+            byte b = bytes[at[0]++];
+            value |= (b & 0x7F) << shift;
+            if(b >= 0) return value;
+        }
+        throw new IllegalArgumentException(String.format("Invalid packed game record at byte %d", at[0]));
+    }
+
+    /**
+     * This method returns the move id of a move
+     * @param move the move, two slots apart in a row or a column
+     * @param dim the number of rows of the board
+     * @return an int, the move id
+     * @throws IllegalArgumentException if the move is not two slots apart in a row or a column
+     */
+    public static int moveId(Move move, int dim) throws IllegalArgumentException{
+        int dRow = move.getToRow() - move.getFromRow();
+        int dCol = move.getToCol() - move.getFromCol();
+        for(int dir = 0; dir < 4; dir++){
+            if(JUMP_ROW[dir] == dRow && JUMP_COL[dir] == dCol){
+                return (move.getFromRow() * dim + move.getFromCol()) * 4 + dir;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Invalid move %s, must jump two slots", move));
+    }
+
+    /**
+     * This method returns the move of a move id
+     * @param id the move id
+     * @param dim the number of rows of the board
+     * @return the move
+     */
+    public static Move toMove(int id, int dim){
+        int dir = id % 4;
+        int row = id / 4 / dim;
+        int col = id / 4 % dim;
+        return new Move(row, col, row + JUMP_ROW[dir], col + JUMP_COL[dir]);
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if(this == o) return true;
+        if(!(o instanceof GameRecord)) return false;
+        GameRecord other = (GameRecord) o;
+        return this.arm == other.arm && this.startRow == other.startRow && this.startCol == other.startCol
+                && Arrays.equals(this.moves, other.moves);
+    }
+
+    @Override
+    public int hashCode(){
+        return ((this.arm * 31 + this.startRow) * 31 + this.startCol) * 31 + Arrays.hashCode(this.moves);
+    }
+
+    @Override
+    public String toString(){
+        return String.format("arm %d start (%d,%d) %d moves", this.arm, this.startRow, this.startCol, this.moves.length);
+    }
+}
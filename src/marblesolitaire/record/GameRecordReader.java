@@ -0,0 +1,127 @@
+package marblesolitaire.record;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class reads the game records written by GameRecordWriter from a channel, one game after
+ * another, through a fixed buffer so files of any size can be streamed.
+ */
+public class GameRecordReader implements Closeable {
+    private static final int INITIAL_MOVES = 256;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(GameRecordWriter.BUFFER_SIZE);
+    private boolean ended = false;
+
+    /**
+     * Constructor of the class, takes in the channel to read from, and checks the header
+     * @param channel the channel, closed by close
+     * @throws IOException if reading fails or the header is not of a game record file
+     */
+    public GameRecordReader(ReadableByteChannel channel) throws IOException{
+        this.channel = channel;
+        this.buffer.limit(0);
+        byte[] magic = new byte[GameRecordWriter.MAGIC.length];
+        for(int i = 0; i < magic.length; i++){
+            magic[i] = this.readByte();
+        }
+        if(!Arrays.equals(magic, GameRecordWriter.MAGIC)) {
+            throw new IOException("Invalid game record header");
+        }
+        byte version = this.readByte();
+        if(version != GameRecordWriter.VERSION) {
+            throw new IOException(String.format("Unsupported game record version %d", version));
+        }
+    }
+
+    /**
+     * This method creates a reader of a file
+     * @param path the file
+     * @return the reader
+     * @throws IOException if the file cannot be opened or its header is invalid
+     */
+    public static GameRecordReader open(Path path) throws IOException{
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try{
+            return new GameRecordReader(channel);
+        }catch(IOException e){
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * This method reads the next game
+     * @return the game, or null if all games have been read
+     * @throws IOException if reading fails, the data ends in the middle of a game, or the
+     *                     move count is more than the board of the game allows
+     */
+    public GameRecord read() throws IOException{
+        if(!this.fill(1)) return null;
+        int arm = this.readVarint();
+        int startRow = this.readVarint();
+        int startCol = this.readVarint();
+        int count = this.readVarint();
+        if(count < 0 || count > GameRecord.maxMoveCount(arm)) {
+            throw new IOException(String.format("Invalid game record, %d moves for arm %d", count, arm));
+        }
+        // the count of a large board may still be more than the data holds, so the array only
+        // grows with the moves actually read
+        int[] moves = new int[Math.min(count, INITIAL_MOVES)];
+        for(int i = 0; i < count; i++){
+            if(i == moves.length) moves = Arrays.copyOf(moves, Math.min(count, moves.length * 2));
+            moves[i] = this.readVarint();
+        }
+        return new GameRecord(arm, startRow, startCol, moves);
+    }
+
+    @Override
+    public void close() throws IOException{
+        this.channel.close();
+    }
+
+    /**
+     * This method reads an unsigned varint
+     * @return the value
+     * @throws IOException if reading fails, the data ends or the varint is too long
+     */
+    private int readVarint() throws IOException{
+        int value = 0;
+        for(int shift = 0; shift < 7 * GameRecordWriter.MAX_VARINT_BYTES; shift += 7){
+            byte b = this.readByte();
+            value |= (b & 0x7F) << shift;
+            if(b >= 0) return value;
+        }
+        throw new IOException("Invalid varint, too long");
+    }
+
+    private byte readByte() throws IOException{
+        if(!this.fill(1)) throw new EOFException("Game record ends in the middle of a game");
+        return this.buffer.get();
+    }
+
+    /**
+     * This method reads from the channel until the buffer has the given number of bytes left
+     * @param bytes the number of bytes needed
+     * @return true if they are there, false if the channel ended first
+     * @throws IOException if reading fails
+     */
+    private boolean fill(int bytes) throws IOException{
+        while(this.buffer.remaining() < bytes){
+            if(this.ended) return false;
+            this.buffer.compact();
+            int read = this.channel.read(this.buffer);
+            this.buffer.flip();
+            if(read < 0) this.ended = true;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,153 @@
+package marblesolitaire.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class writes game records to a channel in the compact binary format, one game after
+ * another, through a fixed buffer so any number of games can be streamed.
+ * The format is a header of the MAGIC bytes and the VERSION byte, then for every game
+ * the arm, start row, start column and number of moves, then the move ids, all as
+ * unsigned varints (7 bits per byte, lowest bits first, high bit set on all bytes but the last).
+ * A move id is the slot index of the source with the direction in its 2 lowest bits,
+ * so most moves of the smaller boards take one or two bytes.
+ */
+public class GameRecordWriter implements Closeable {
+    static final byte[] MAGIC = {'M', 'S', 'G', 'R'};
+    static final byte VERSION = 1;
+    static final int BUFFER_SIZE = 1 << 16;
+    // the longest varint of an int
+    static final int MAX_VARINT_BYTES = 5;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private long games = 0;
+    // the number of bytes written to the channel by flush
+    private long flushed = 0;
+
+    /**
+     * Constructor of the class, takes in the channel to write to, and writes the header
+     * @param channel the channel, closed by close
+     */
+    public GameRecordWriter(WritableByteChannel channel){
+        this.channel = channel;
+        this.buffer.put(MAGIC).put(VERSION);
+    }
+
+    /**
+     * This method creates a writer of a new file, replacing the file if it exists
+     * @param path the file
+     * @return the writer
+     * @throws IOException if the file cannot be opened
+     */
+    public static GameRecordWriter open(Path path) throws IOException{
+        return new GameRecordWriter(FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * This method writes one game
+     * @param record the game
+     * @throws IOException if writing fails
+     */
+    public void write(GameRecord record) throws IOException{
+        this.ensure(4 * MAX_VARINT_BYTES);
+        putVarint(this.buffer, record.getArm());
+        putVarint(this.buffer, record.getStartRow());
+        putVarint(this.buffer, record.getStartCol());
+        putVarint(this.buffer, record.getMoveCount());
+        for(int i = 0; i < record.getMoveCount(); i++){
+            this.ensure(MAX_VARINT_BYTES);
+            putVarint(this.buffer, record.getMoveId(i));
+        }
+        this.games++;
+    }
+
+    /**
+     * This method writes one game from its parts, without building a GameRecord
+     * @param arm arm thickness of the board
+     * @param startRow empty spot row coordinate
+     * @param startCol empty spot col coordinate
+     * @param moves array holding the move ids
+     * @param count number of moves, the ids are moves[0, count)
+     * @throws IOException if writing fails
+     */
+    public void write(int arm, int startRow, int startCol, int[] moves, int count) throws IOException{
+        this.ensure(4 * MAX_VARINT_BYTES);
+        putVarint(this.buffer, arm);
+        putVarint(this.buffer, startRow);
+        putVarint(this.buffer, startCol);
+        putVarint(this.buffer, count);
+        for(int i = 0; i < count; i++){
+            this.ensure(MAX_VARINT_BYTES);
+            putVarint(this.buffer, moves[i]);
+        }
+        this.games++;
+    }
+
+    /**
+     * Returns the number of games written so far
+     * @return a long, the number of games
+     */
+    public long getGameCount(){return this.games;}
+
+    /**
+     * Returns the number of bytes written so far, header included, which is
+     * where the next game starts in the output
+     * @return a long, the position of the next game
+     */
+    public long getPosition(){return this.flushed + this.buffer.position();}
+
+    /**
+     * This method writes the buffered bytes to the channel
+     * @throws IOException if writing fails
+     */
+    public void flush() throws IOException{
+        this.buffer.flip();
+        this.flushed += this.buffer.remaining();
+        while(this.buffer.hasRemaining()){
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * This method flushes the buffer and closes the channel
+     * @throws IOException if writing or closing fails
+     */
+    @Override
+    public void close() throws IOException{
+        try{
+            this.flush();
+        }finally{
+            this.channel.close();
+        }
+    }
+
+    /**
+     * This method flushes the buffer if it has less than the given room left
+     * @param bytes the number of bytes about to be put
+     * @throws IOException if writing fails
+     */
+    private void ensure(int bytes) throws IOException{
+        if(this.buffer.remaining() < bytes) this.flush();
+    }
+
+    /**
+     * This method puts a non negative int as an unsigned varint
+     * @param buffer the buffer, with room for MAX_VARINT_BYTES
+     * @param value the value
+     */
+    static void putVarint(ByteBuffer buffer, int value){
+        while((value & ~0x7F) != 0){
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+}
@@ -0,0 +1,54 @@
+package marblesolitaire.record;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class maps a whole file read only as a row of segments of 2^bits bytes, since one
+ * MappedByteBuffer cannot be larger than 2 GB. Byte position p is at p & (2^bits - 1) of
+ * segment p >>> bits, so reading a byte is a shift, a mask and an absolute get, and nothing
+ * is copied out of the page cache.
+ */
+final class MappedSegments {
+    private final MappedByteBuffer[] segments;
+    private final int bits;
+    private final long mask;
+    private final long size;
+
+    /**
+     * Constructor of the class, maps the whole channel
+     * @param channel the channel of the file, may be closed after mapping
+     * @param bits log 2 of the segment size, at least 3 so a long never spans two segments
+     * @throws IOException if the file cannot be mapped
+     */
+    MappedSegments(FileChannel channel, int bits) throws IOException{
+        if(bits < 3 || bits > 30) {
+            throw new IllegalArgumentException(String.format("Invalid segment bits %d, must be from 3 to 30", bits));
+        }
+        this.bits = bits;
+        this.mask = (1L << bits) - 1;
+        this.size = channel.size();
+        int count = (int) ((this.size + this.mask) >>> bits);
+        this.segments = new MappedByteBuffer[count];
+        for(int i = 0; i < count; i++){
+            long start = (long) i << bits;
+            this.segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(1L << bits, this.size - start));
+        }
+    }
+
+    long size(){return this.size;}
+
+    byte get(long position){
+        return this.segments[(int) (position >>> this.bits)].get((int) (position & this.mask));
+    }
+
+    /**
+     * This method reads a big endian long, its position must be a multiple of 8
+     * @param position the position of the first byte
+     * @return the long
+     */
+    long getLong(long position){
+        return this.segments[(int) (position >>> this.bits)].getLong((int) (position & this.mask));
+    }
+}
@@ -0,0 +1,257 @@
+package marblesolitaire.record;
+
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.SlotState;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class replays trusted game logs in bulk, such as the games of an archive written by the
+ * batch runner. The moves are not checked, each one only flips the three bits of its slots in a
+ * packed bitset of the marbles (bit row * dim + col), so a log that is not a valid game gives
+ * positions that are not either. While a game is loaded the position after every checkpoint
+ * interval K moves is kept, so the position after any move m is rebuilt from the checkpoint
+ * before it with at most K - 1 moves, and only turned into a board or a model when asked.
+ * The arrays are reused from game to game, so replaying a corpus allocates almost nothing.
+ * An engine is used by one thread at a time.
+ */
+public class ReplayEngine {
+    private static final int DEFAULT_CHECKPOINT_INTERVAL = 8;
+
+    private final int interval;
+    // the valid slots of every arm, and the start positions, packed
+    private final Map<Integer, long[]> shapes = new HashMap<>();
+    private final Map<Long, long[]> starts = new HashMap<>();
+
+    private int arm;
+    private int dim;
+    private int words;
+    // slot index offset of a jump to the left, right, up and down, in that order
+    private final int[] offsets = new int[4];
+    private int[] moves = new int[64];
+    private int moveCount = 0;
+    // checkpoint i is the position after i * interval moves, words i * words to (i + 1) * words
+    private long[] checkpoints = new long[64];
+    private long[] scratch = new long[1];
+
+    /**
+     * First constructor of the class, keeps a checkpoint every 8 moves
+     */
+    public ReplayEngine(){
+        this(DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Second constructor of the class, takes in the number of moves between checkpoints
+     * @param checkpointInterval, number of moves between checkpoints
+     * @throws IllegalArgumentException if checkpointInterval is not positive
+     */
+    public ReplayEngine(int checkpointInterval) throws IllegalArgumentException{
+        if(checkpointInterval <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid checkpoint interval %d, must be positive", checkpointInterval));
+        }
+        this.interval = checkpointInterval;
+    }
+
+    /**
+     * This method loads the game of a record and replays it
+     * @param record the game
+     * @throws IllegalArgumentException if the start of the game is invalid
+     */
+    public void load(GameRecord record) throws IllegalArgumentException{
+        this.start(record.getArm(), record.getStartRow(), record.getStartCol());
+        for(int i = 0; i < record.getMoveCount(); i++){
+            this.add(record.getMoveId(i));
+        }
+    }
+
+    /**
+     * This method loads the current game of a cursor and replays it, reading the moves
+     * of the game that were not read yet
+     * @param cursor the cursor, at the game
+     * @throws IllegalArgumentException if the start of the game is invalid
+     */
+    public void load(GameCursor cursor) throws IllegalArgumentException{
+        this.start(cursor.getArm(), cursor.getStartRow(), cursor.getStartCol());
+        while(cursor.hasNextMove()){
+            this.add(cursor.nextMoveId());
+        }
+    }
+
+    /**
+     * Returns the number of moves of the loaded game
+     * @return an int, the number of moves
+     */
+    public int getMoveCount(){return this.moveCount;}
+
+    /**
+     * Returns the number of long words of a packed position of the loaded game
+     * @return an int, the number of words
+     */
+    public int getWords(){return this.words;}
+
+    /**
+     * This method rebuilds the packed position after the first moves of the loaded game
+     * @param move the number of moves, from 0 to getMoveCount()
+     * @param into the array receiving the position, at least getWords() long
+     * @throws IllegalArgumentException if move is out of range
+     */
+    public void positionAt(int move, long[] into) throws IllegalArgumentException{
+        if(move < 0 || move > this.moveCount) {
+            throw new IllegalArgumentException(String.format("Invalid move %d, game has %d moves", move, this.moveCount));
+        }
+        System.arraycopy(this.checkpoints, move / this.interval * this.words, into, 0, this.words);
+        for(int m = move - move % this.interval; m < move; m++){
+            this.apply(into, this.moves[m]);
+        }
+    }
+
+    /**
+     * This method returns the score, the number of marbles, after the first moves of the loaded game
+     * @param move the number of moves, from 0 to getMoveCount()
+     * @return an int, the score
+     * @throws IllegalArgumentException if move is out of range
+     */
+    public int getScoreAt(int move) throws IllegalArgumentException{
+        this.positionAt(move, this.scratch);
+        int score = 0;
+        for(int w = 0; w < this.words; w++){
+            score += Long.bitCount(this.scratch[w]);
+        }
+        return score;
+    }
+
+    /**
+     * This method returns the board after the first moves of the loaded game
+     * @param move the number of moves, from 0 to getMoveCount()
+     * @return a new 2D array of the slots
+     * @throws IllegalArgumentException if move is out of range
+     */
+    public SlotState[][] getBoardAt(int move) throws IllegalArgumentException{
+        this.positionAt(move, this.scratch);
+        long[] valid = this.shapes.get(this.arm);
+        SlotState[][] board = new SlotState[this.dim][this.dim];
+        for(int r = 0; r < this.dim; r++){
+            for(int c = 0; c < this.dim; c++){
+                int i = r * this.dim + c;
+                if(!isSet(valid, i)) board[r][c] = SlotState.OfB;
+                else board[r][c] = isSet(this.scratch, i) ? SlotState.Marble : SlotState.Empty;
+            }
+        }
+        return board;
+    }
+
+    /**
+     * This method returns a model at the position after the first moves of the loaded game,
+     * to continue the game from there
+     * @param move the number of moves, from 0 to getMoveCount()
+     * @return a new model, with no moves to undo
+     * @throws IllegalArgumentException if move is out of range
+     */
+    public MarbleSolitaireModelImpl getModelAt(int move) throws IllegalArgumentException{
+        return new MarbleSolitaireModelImpl(this.getBoardAt(move));
+    }
+
+    /**
+     * This method sets up an empty game at a start, the first checkpoint, the start is checked
+     * before anything is changed, so a rejected start leaves the loaded game as it was
+     * @param arm arm thickness of the board
+     * @param sRow empty spot row coordinate
+     * @param sCol empty spot col coordinate
+     * @throws IllegalArgumentException if the start is invalid
+     */
+    private void start(int arm, int sRow, int sCol) throws IllegalArgumentException{
+        long key = ((long) arm << 40) | ((long) sRow << 20) | sCol;
+        long[] position = this.starts.get(key);
+        if(position == null){
+            position = this.startPosition(arm, sRow, sCol);
+            this.starts.put(key, position);
+        }
+        if(arm != this.arm){
+            this.arm = arm;
+            this.dim = arm * 2 + 1;
+            this.words = position.length;
+            this.offsets[0] = -1;
+            this.offsets[1] = 1;
+            this.offsets[2] = -this.dim;
+            this.offsets[3] = this.dim;
+            if(this.scratch.length < this.words) this.scratch = new long[this.words];
+        }
+        if(this.checkpoints.length < this.words) this.checkpoints = new long[this.words * 2];
+        System.arraycopy(position, 0, this.checkpoints, 0, this.words);
+        this.moveCount = 0;
+    }
+
+    /**
+     * This method adds the next move of the loaded game, and a checkpoint after it if it ends an interval
+     * @param id the move id
+     */
+    private void add(int id){
+        if(this.moveCount == this.moves.length) this.moves = Arrays.copyOf(this.moves, this.moveCount * 2);
+        this.moves[this.moveCount++] = id;
+        if(this.moveCount % this.interval == 0){
+            int base = this.moveCount / this.interval * this.words;
+            if(base + this.words > this.checkpoints.length) {
+                this.checkpoints = Arrays.copyOf(this.checkpoints, (base + this.words) * 2);
+            }
+            System.arraycopy(this.checkpoints, base - this.words, this.checkpoints, base, this.words);
+            for(int m = this.moveCount - this.interval; m < this.moveCount; m++){
+                this.applyAt(this.checkpoints, base, this.moves[m]);
+            }
+        }
+    }
+
+    private void apply(long[] position, int id){
+        this.applyAt(position, 0, id);
+    }
+
+    /**
+     * This method makes a move on a packed position without checking it, by flipping its three slots
+     * @param position the array holding the position
+     * @param base the index of the first word of the position
+     * @param id the move id
+     */
+    private void applyAt(long[] position, int base, int id){
+        int from = id >>> 2;
+        int offset = this.offsets[id & 3];
+        int over = from + offset;
+        int to = over + offset;
+        position[base + (from >>> 6)] ^= 1L << from;
+        position[base + (over >>> 6)] ^= 1L << over;
+        position[base + (to >>> 6)] ^= 1L << to;
+    }
+
+    /**
+     * This method packs the start position of a game, the valid slots of the arm
+     * but the empty one, without changing the loaded game
+     * @throws IllegalArgumentException if the start is invalid
+     */
+    private long[] startPosition(int arm, int sRow, int sCol) throws IllegalArgumentException{
+        int dim = arm * 2 + 1;
+        long[] valid = this.shapes.get(arm);
+        if(valid == null){
+            SlotState[][] board = new MarbleSolitaireModelImpl(arm).getBoard();
+            valid = new long[(dim * dim + Long.SIZE - 1) / Long.SIZE];
+            for(int r = 0; r < dim; r++){
+                for(int c = 0; c < dim; c++){
+                    int i = r * dim + c;
+                    if(board[r][c] != SlotState.OfB) valid[i >>> 6] |= 1L << i;
+                }
+            }
+            this.shapes.put(arm, valid);
+        }
+        int empty = sRow * dim + sCol;
+        if(sRow < 0 || sCol < 0 || sRow >= dim || sCol >= dim || !isSet(valid, empty)) {
+            throw new IllegalArgumentException(String.format("Invalid empty cell position (%d,%d)", sRow, sCol));
+        }
+        long[] position = valid.clone();
+        position[empty >>> 6] ^= 1L << empty;
+        return position;
+    }
+
+    private static boolean isSet(long[] position, int i){
+        return (position[i >>> 6] & (1L << i)) != 0;
+    }
+}
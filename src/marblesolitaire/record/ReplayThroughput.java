@@ -0,0 +1,99 @@
+package marblesolitaire.record;
+
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * This class measures the replay throughput of a game archive, in moves per second, of the
+ * trusted ReplayEngine and of checked replay through MarbleSolitaireModelImpl.move.
+ * Run it with the arguments archive, games and checkpoint interval, all optional, if the archive
+ * does not exist it is first filled with that many random games of the default board
+ * (10 million by default). It prints one CSV line per replay mode.
+ */
+public class ReplayThroughput {
+
+    /**
+     * This method replays every game of the archive with the engine, rebuilding the position
+     * after the last move of each game
+     * @param archive the archive
+     * @param engine the engine
+     * @return the number of moves replayed
+     */
+    public static long replayTrusted(GameArchive archive, ReplayEngine engine){
+        if(archive.getGameCount() == 0) return 0;
+        long moves = 0;
+        long[] position = new long[4];
+        GameCursor cursor = archive.cursor();
+        do{
+            engine.load(cursor);
+            if(position.length < engine.getWords()) position = new long[engine.getWords()];
+            engine.positionAt(engine.getMoveCount(), position);
+            moves += engine.getMoveCount();
+        }while(cursor.nextGame());
+        return moves;
+    }
+
+    /**
+     * This method replays the first games of the archive through move on a new model per game
+     * @param archive the archive
+     * @param games the number of games to replay
+     * @return the number of moves replayed
+     */
+    public static long replayChecked(GameArchive archive, long games){
+        long moves = 0;
+        GameCursor cursor = archive.cursor();
+        for(long g = 0; g < games; g++){
+            cursor.seek(g);
+            MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(cursor.getArm(), cursor.getStartRow(), cursor.getStartCol());
+            while(cursor.hasNextMove()){
+                cursor.nextMove(model);
+            }
+            moves += model.getMoveCount();
+        }
+        return moves;
+    }
+
+    public static void main(String[] args) throws IOException{
+        Path path = Paths.get(args.length > 0 ? args[0] : "games.msga");
+        long games = args.length > 1 ? Long.parseLong(args[1]) : 10_000_000L;
+        int interval = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        if(!Files.exists(path)){
+            SplittableRandom random = new SplittableRandom(1);
+            MarbleSolitaireModelImpl game = new MarbleSolitaireModelImpl();
+            try(GameArchiveWriter writer = new GameArchiveWriter(path)){
+                for(long g = 0; g < games; g++){
+                    while(!game.isGameOver()){
+                        game.makeLegalMove(random.nextInt(game.getLegalMoveCount()));
+                    }
+                    writer.write(GameRecord.of(3, 3, 3, game));
+                    while(game.undo());
+                }
+            }
+        }
+
+        try(GameArchive archive = new GameArchive(path)){
+            System.out.println("mode,games,moves,seconds,moves_per_sec");
+            // one pass to warm up the JIT and the page cache
+            replayTrusted(archive, new ReplayEngine(interval));
+            long start = System.nanoTime();
+            long moves = replayTrusted(archive, new ReplayEngine(interval));
+            print("trusted", archive.getGameCount(), moves, System.nanoTime() - start);
+
+            long checked = Math.min(archive.getGameCount(), 1_000_000L);
+            replayChecked(archive, Math.min(checked, 100_000L));
+            start = System.nanoTime();
+            moves = replayChecked(archive, checked);
+            print("checked", checked, moves, System.nanoTime() - start);
+        }
+    }
+
+    private static void print(String mode, long games, long moves, long nanos){
+        System.out.println(String.format("%s,%d,%d,%.3f,%.0f", mode, games, moves, nanos / 1e9, moves / (nanos / 1e9)));
+    }
+}
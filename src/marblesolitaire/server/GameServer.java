@@ -0,0 +1,240 @@
+package marblesolitaire.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import marblesolitaire.metrics.ModelMetrics;
+import marblesolitaire.model.Move;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is a small local HTTP front end for a SessionManager, on the HTTP server of the JDK,
+ * bound to the loopback address. Requests are handled on a fixed pool of threads, replies are
+ * plain text:
+ * POST   /sessions?arm=3&amp;row=3&amp;col=3   starts a game, replies its session id
+ * GET    /sessions/{id}                   the game state, then the score and if the game is over
+ * GET    /sessions/{id}/moves             the legal moves, one "fromRow fromCol toRow toCol" per line
+ * POST   /sessions/{id}/move?fromRow=..&amp;fromCol=..&amp;toRow=..&amp;toCol=..
+ *                                         makes a move, replies the score and if the game is over,
+ *                                         or 409 if the move is not valid
+ * DELETE /sessions/{id}                   ends the session
+ * GET    /metrics                         the ModelMetrics of the games, one "name value" per line,
+ *                                         when the SessionManager has metrics
+ * An unknown session is 404, a bad request 400.
+ */
+public class GameServer implements AutoCloseable {
+    private static final String PREFIX = "/sessions";
+    private static final String METRICS = "/metrics";
+
+    static {
+        // the JDK server writes the headers and the body of a reply apart, with Nagle's algorithm on
+        // every small reply then waits for the delayed ack of the client, about 40 ms
+        if(System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final SessionManager sessions;
+    private final HttpServer server;
+    private final ExecutorService pool;
+
+    /**
+     * Constructor of the class, binds the server, call start to serve requests
+     * @param sessions, the sessions to serve
+     * @param port, the port on the loopback address, 0 for any free port
+     * @param threads, the number of request threads
+     * @throws IOException if the port cannot be bound
+     */
+    public GameServer(SessionManager sessions, int port, int threads) throws IOException{
+        this.sessions = sessions;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "marble-solitaire-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.setExecutor(this.pool);
+        this.server.createContext(PREFIX, this::handle);
+        if(sessions.getMetrics() != null) this.server.createContext(METRICS, this::handleMetrics);
+    }
+
+    public void start(){this.server.start();}
+
+    public int getPort(){return this.server.getAddress().getPort();}
+
+    @Override
+    public void close(){
+        this.server.stop(0);
+        this.pool.shutdown();
+    }
+
+    /**
+     * This method routes one request and sends its reply
+     * @param exchange the request
+     * @throws IOException if the reply cannot be sent
+     */
+    private void handle(HttpExchange exchange) throws IOException{
+        int status = 200;
+        String body;
+        try{
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().substring(PREFIX.length()).split("/");
+            Map<String, String> query = queryOf(exchange.getRequestURI().getRawQuery());
+            GameSession session = path.length > 1 ? this.sessions.get(path[1]) : null;
+            if(path.length <= 1 && method.equals("POST")){
+                body = this.sessions.create(intOf(query, "arm"), intOf(query, "row"), intOf(query, "col")).getId();
+            }else if(path.length <= 1 || path.length > 3){
+                status = 404;
+                body = "Not found";
+            }else if(session == null){
+                status = 404;
+                body = String.format("Unknown session %s", path[1]);
+            }else if(path.length == 2 && method.equals("GET")){
+                body = session.apply(model -> model.getGameState() + "\n" + status(model.getScore(), model.isGameOver()));
+            }else if(path.length == 2 && method.equals("DELETE")){
+                this.sessions.close(session.getId());
+                body = "closed";
+            }else if(path.length == 3 && path[2].equals("moves") && method.equals("GET")){
+                StringBuilder moves = new StringBuilder();
+                for(Move m : session.getLegalMoves()){
+                    moves.append(m.getFromRow()).append(' ').append(m.getFromCol()).append(' ')
+                            .append(m.getToRow()).append(' ').append(m.getToCol()).append('\n');
+                }
+                body = moves.toString();
+            }else if(path.length == 3 && path[2].equals("move") && method.equals("POST")){
+                int fromRow = intOf(query, "fromRow");
+                int fromCol = intOf(query, "fromCol");
+                int toRow = intOf(query, "toRow");
+                int toCol = intOf(query, "toCol");
+                body = session.apply(model -> model.tryMove(fromRow, fromCol, toRow, toCol)
+                        ? status(model.getScore(), model.isGameOver()) : null);
+                if(body == null){
+                    status = 409;
+                    body = String.format("Invalid move from (%d,%d) to (%d,%d)", fromRow, fromCol, toRow, toCol);
+                }
+            }else{
+                status = 404;
+                body = "Not found";
+            }
+        }catch(IllegalArgumentException e){
+            status = 400;
+            body = e.getMessage();
+        }
+        reply(exchange, status, body);
+    }
+
+    /**
+     * This method replies the metrics of the games to a GET request
+     * @param exchange the request
+     * @throws IOException if the reply cannot be sent
+     */
+    private void handleMetrics(HttpExchange exchange) throws IOException{
+        if(!exchange.getRequestMethod().equals("GET") || !exchange.getRequestURI().getPath().equals(METRICS)){
+            reply(exchange, 404, "Not found");
+            return;
+        }
+        StringBuilder body = new StringBuilder();
+        this.sessions.getMetrics().report((name, value) -> body.append(name).append(' ').append(value).append('\n'));
+        reply(exchange, 200, body.toString());
+    }
+
+    private static void reply(HttpExchange exchange, int status, String body) throws IOException{
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try(OutputStream out = exchange.getResponseBody()){
+            out.write(bytes);
+        }
+    }
+
+    private static String status(int score, boolean isGameOver){
+        return String.format("score %d over %b", score, isGameOver);
+    }
+
+    private static Map<String, String> queryOf(String query){
+        Map<String, String> values = new HashMap<>();
+        if(query == null) return values;
+        for(String pair : query.split("&")){
+            int eq = pair.indexOf('=');
+            if(eq > 0) values.put(pair.substring(0, eq), pair.substring(eq + 1));
+        }
+        return values;
+    }
+
+    /**
+     * This method reads an int parameter of a request
+     * @throws IllegalArgumentException if the parameter is missing or not an int
+     */
+    private static int intOf(Map<String, String> query, String name) throws IllegalArgumentException{
+        String value = query.get(name);
+        if(value == null) throw new IllegalArgumentException(String.format("Missing parameter %s", name));
+        try{
+            return Integer.parseInt(value);
+        }catch(NumberFormatException e){
+            throw new IllegalArgumentException(String.format("Invalid parameter %s=%s", name, value));
+        }
+    }
+
+    /**
+     * This method starts a server until the process is stopped. Options, all optional:
+     * --port N      default 8080
+     * --threads N        default one per processor
+     * --store FILE       keep idle games in a SessionStore with this scratch file, default none
+     * --idle-seconds N   seconds before an idle game is packed, default 60
+     * --max-packed N     packed games kept in memory before the oldest are stored, default 100000
+     * --metrics NAME     meter the games, served on /metrics and registered with JMX under NAME, default none
+     */
+    public static void main(String[] args) throws IOException{
+        int port = 8080;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String store = null;
+        long idleSeconds = 60;
+        int maxPacked = 100_000;
+        String metrics = null;
+        for(int i = 0; i + 1 < args.length; i += 2){
+            switch(args[i]){
+                case "--port": port = Integer.parseInt(args[i + 1]); break;
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--store": store = args[i + 1]; break;
+                case "--idle-seconds": idleSeconds = Long.parseLong(args[i + 1]); break;
+                case "--max-packed": maxPacked = Integer.parseInt(args[i + 1]); break;
+                case "--metrics": metrics = args[i + 1]; break;
+                default: throw new IllegalArgumentException(String.format("Unknown option %s", args[i]));
+            }
+        }
+        ModelMetrics modelMetrics = null;
+        if(metrics != null){
+            modelMetrics = new ModelMetrics();
+            modelMetrics.register(metrics);
+        }
+        SessionManager sessions = new SessionManager(store == null ? null
+                : new SessionStore(Paths.get(store), TimeUnit.SECONDS.toNanos(idleSeconds), maxPacked), modelMetrics);
+        if(store != null){
+            ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "marble-solitaire-sweeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sweeper.scheduleWithFixedDelay(() -> {
+                try{
+                    sessions.sweep();
+                }catch(IOException e){
+                    e.printStackTrace();
+                }
+            }, 1, 1, TimeUnit.SECONDS);
+        }
+        GameServer server = new GameServer(sessions, port, threads);
+        server.start();
+        System.out.println(String.format("Serving marble solitaire sessions on http://localhost:%d%s", server.getPort(), PREFIX));
+    }
+}
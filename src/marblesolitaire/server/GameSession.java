@@ -0,0 +1,199 @@
+package marblesolitaire.server;
+
+import marblesolitaire.metrics.ModelMetrics;
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+import marblesolitaire.record.GameRecord;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * This class is one game hosted by the SessionManager, a model with its session id.
+ * Every method takes the lock of its session, so the moves of one session are made one
+ * at a time in the order they arrive, while the other sessions are never blocked by it.
+ * A session idle for a while can be packed into the bytes of its GameRecord, and a packed
+ * session can be stored further away in a SessionStore file. The next call that needs the game
+ * rehydrates it into a full model by replaying its moves, so packing never changes the game.
+ */
+public final class GameSession {
+    private final String id;
+    private final int arm;
+    private final int sRow;
+    private final int sCol;
+    // exactly one of model, packed and a stored offset holds the game
+    private MarbleSolitaireModelImpl model;
+    private byte[] packed;
+    private SessionStore store;
+    private long storedOffset;
+    private int storedLength;
+    private volatile long lastAccess;
+    private final ModelMetrics metrics;
+
+    /**
+     * Constructor of the class, starts a new game on the English board
+     * @param id, the session id
+     * @param arm, arm thickness of the board
+     * @param sRow, row of the empty slot
+     * @param sCol, column of the empty slot
+     * @param metrics, the metrics the model of the game records to, also once rehydrated, or null for none
+     * @throws IllegalArgumentException if the arm or the empty slot is not valid
+     */
+    GameSession(String id, int arm, int sRow, int sCol, ModelMetrics metrics) throws IllegalArgumentException{
+        this.id = id;
+        this.arm = arm;
+        this.sRow = sRow;
+        this.sCol = sCol;
+        this.metrics = metrics;
+        this.model = new MarbleSolitaireModelImpl(arm, sRow, sCol);
+        this.model.setMetrics(metrics);
+        this.lastAccess = System.nanoTime();
+    }
+
+    /**
+     * This method makes a move on the game of the session if it is valid
+     * @param fromRow source row location
+     * @param fromCol source column location
+     * @param toRow destination row location
+     * @param toCol destination column location
+     * @return true if the move was made, false if it is not valid and the game is unchanged
+     */
+    public synchronized boolean move(int fromRow, int fromCol, int toRow, int toCol){
+        this.lastAccess = System.nanoTime();
+        return this.model().tryMove(fromRow, fromCol, toRow, toCol);
+    }
+
+    /**
+     * This method runs a computation that reads or changes the model while holding the lock of the session
+     * @param task the computation, must not keep the model
+     * @param <T> the type of the result
+     * @return the result of the computation
+     */
+    public synchronized <T> T apply(Function<MarbleSolitaireModelImpl, T> task){
+        this.lastAccess = System.nanoTime();
+        return task.apply(this.model());
+    }
+
+    public synchronized int getScore(){return this.model().getScore();}
+
+    public synchronized boolean isGameOver(){return this.model().isGameOver();}
+
+    public synchronized String getGameState(){return this.model().getGameState();}
+
+    public synchronized List<Move> getLegalMoves(){return this.model().getLegalMoves();}
+
+    public String getId(){return this.id;}
+
+    /**
+     * Returns the time of the last move or computation on the session
+     * @return a long, System.nanoTime() of the last access
+     */
+    public long getLastAccess(){return this.lastAccess;}
+
+    /**
+     * Returns if the game is held as a full model
+     * @return a boolean, false if it is packed or stored
+     */
+    public synchronized boolean isLive(){return this.model != null;}
+
+    /**
+     * Returns if the game is held packed in memory
+     * @return a boolean, false if it is live or stored
+     */
+    public synchronized boolean isPacked(){return this.packed != null;}
+
+    /**
+     * This method packs the game if the session has not been used since the given time
+     * @param idleSince the System.nanoTime() the session must not have been used after
+     * @return true if the game was packed, false if it is not live or was used since
+     */
+    synchronized boolean pack(long idleSince){
+        if(this.model == null || this.lastAccess - idleSince > 0) return false;
+        this.packed = GameRecord.of(this.arm, this.sRow, this.sCol, this.model).toBytes();
+        this.model = null;
+        return true;
+    }
+
+    /**
+     * This method moves a packed game to a store
+     * @param store the store to write it to
+     * @return true if the game was stored, false if it is not packed
+     * @throws IOException if the store cannot be written
+     */
+    synchronized boolean spill(SessionStore store) throws IOException{
+        if(this.packed == null) return false;
+        this.storedOffset = store.append(this.packed);
+        this.storedLength = this.packed.length;
+        this.store = store;
+        this.packed = null;
+        return true;
+    }
+
+    /**
+     * This method returns where the game is stored in a store
+     * @param store the store
+     * @return the offset of the game in the file of the store, -1 if it is not stored there
+     */
+    synchronized long getStoredOffset(SessionStore store){
+        return this.store == store ? this.storedOffset : -1;
+    }
+
+    /**
+     * This method moves the stored game to another offset of the file of its store
+     * @param store the store the game should be in
+     * @param offset the offset to move it to, not after its current offset
+     * @return the length of the game in bytes, 0 if it is no longer stored there
+     * @throws IOException if the file cannot be read or written
+     */
+    synchronized int relocate(SessionStore store, long offset) throws IOException{
+        if(this.store != store) return 0;
+        if(offset != this.storedOffset){
+            store.write(store.read(this.storedOffset, this.storedLength), offset);
+            this.storedOffset = offset;
+        }
+        return this.storedLength;
+    }
+
+    /**
+     * This method takes a stored game back into memory packed, freeing its space in the store,
+     * for a session that is closed, see SessionStore.release
+     * @throws UncheckedIOException if the stored game cannot be read
+     */
+    synchronized void release() throws UncheckedIOException{
+        if(this.store != null) this.packed = this.unstore();
+    }
+
+    /**
+     * This method reads the stored game and frees its space in the store, called with the lock held
+     * @return the packed game
+     * @throws UncheckedIOException if the stored game cannot be read
+     */
+    private byte[] unstore() throws UncheckedIOException{
+        byte[] bytes;
+        try{
+            bytes = this.store.read(this.storedOffset, this.storedLength);
+        }catch(IOException e){
+            throw new UncheckedIOException(String.format("Cannot read the stored game of session %s", this.id), e);
+        }
+        this.store.free(this.storedLength);
+        this.store = null;
+        return bytes;
+    }
+
+    /**
+     * This method returns the model of the game, rehydrating it if it is packed or stored,
+     * called with the lock held
+     * @throws UncheckedIOException if the stored game cannot be read
+     */
+    private MarbleSolitaireModelImpl model() throws UncheckedIOException{
+        if(this.model != null) return this.model;
+        byte[] bytes = this.packed;
+        if(bytes == null) bytes = this.unstore();
+        this.model = GameRecord.fromBytes(bytes).replay();
+        this.model.setMetrics(this.metrics);
+        this.packed = null;
+        return this.model;
+    }
+}
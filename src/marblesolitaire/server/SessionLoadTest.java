@@ -0,0 +1,208 @@
+package marblesolitaire.server;
+
+import marblesolitaire.model.Move;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This class is the load test of the session manager. It starts many sessions, then clients
+ * play random legal moves on random sessions and time every move, starting a new session in
+ * place of each finished game, and prints the move latency percentiles. Options, all optional:
+ * --sessions N   default 10000
+ * --clients N    client threads, default 8
+ * --moves N      timed moves in total, default 200000
+ * --http         play through a GameServer on a free local port instead of calling the sessions
+ * --seed N       default 1
+ * --store FILE   keep idle games in a SessionStore with this scratch file, swept between the
+ *                warm up and the measured round, so the measured moves rehydrate them
+ * --max-packed N packed games kept in memory by the store, default 1000
+ */
+public class SessionLoadTest {
+    private final SessionManager manager;
+    private final AtomicReferenceArray<String> ids;
+    private final HttpClient client;
+    private final String base;
+
+    /**
+     * Constructor of the class, starts the sessions
+     * @param manager, the sessions
+     * @param sessions, the number of sessions to start on the default board
+     * @param port, the port of a GameServer of the manager to play through, or -1 to call the sessions directly
+     */
+    public SessionLoadTest(SessionManager manager, int sessions, int port){
+        this.manager = manager;
+        this.ids = new AtomicReferenceArray<>(sessions);
+        for(int i = 0; i < sessions; i++){
+            this.ids.set(i, manager.create(3, 3, 3).getId());
+        }
+        this.client = port < 0 ? null : HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        this.base = String.format("http://localhost:%d/sessions/", port);
+    }
+
+    /**
+     * This method plays the timed moves on a pool of client threads
+     * @param clients the number of client threads
+     * @param moves the number of timed moves in total
+     * @param seed the seed of the random choices
+     * @return the latency of every move in nanoseconds, sorted
+     * @throws Exception if a client fails
+     */
+    public long[] run(int clients, long moves, long seed) throws Exception{
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try{
+            List<Future<long[]>> futures = new ArrayList<>();
+            for(int c = 0; c < clients; c++){
+                int count = (int) (moves / clients + (c < moves % clients ? 1 : 0));
+                Random random = new Random(seed + c);
+                futures.add(pool.submit(() -> this.play(count, random)));
+            }
+            long[] latencies = new long[(int) moves];
+            int size = 0;
+            for(Future<long[]> future : futures){
+                long[] part = future.get();
+                System.arraycopy(part, 0, latencies, size, part.length);
+                size += part.length;
+            }
+            Arrays.sort(latencies);
+            return latencies;
+        }finally{
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * This method is one client, it plays moves on random sessions
+     * @return the latency of each of its moves in nanoseconds
+     */
+    private long[] play(int count, Random random) throws IOException, InterruptedException{
+        long[] latencies = new long[count];
+        int done = 0;
+        while(done < count){
+            int slot = random.nextInt(this.ids.length());
+            String id = this.ids.get(slot);
+            List<Move> legal = this.legalMoves(id);
+            if(legal.isEmpty()){
+                // the game is over, another client may have replaced it already
+                String next = this.manager.create(3, 3, 3).getId();
+                if(this.ids.compareAndSet(slot, id, next)) this.manager.close(id);
+                else this.manager.close(next);
+                continue;
+            }
+            Move m = legal.get(random.nextInt(legal.size()));
+            long start = System.nanoTime();
+            this.move(id, m);
+            latencies[done++] = System.nanoTime() - start;
+        }
+        return latencies;
+    }
+
+    private List<Move> legalMoves(String id) throws IOException, InterruptedException{
+        if(this.client == null){
+            GameSession session = this.manager.get(id);
+            return session == null ? new ArrayList<>() : session.getLegalMoves();
+        }
+        HttpResponse<String> response = this.client.send(HttpRequest.newBuilder(URI.create(this.base + id + "/moves")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        List<Move> moves = new ArrayList<>();
+        if(response.statusCode() != 200) return moves;
+        for(String line : response.body().split("\n")){
+            if(line.isEmpty()) continue;
+            String[] v = line.split(" ");
+            moves.add(new Move(Integer.parseInt(v[0]), Integer.parseInt(v[1]), Integer.parseInt(v[2]), Integer.parseInt(v[3])));
+        }
+        return moves;
+    }
+
+    /**
+     * This method makes a move, another client may have made a move on the same session
+     * in between, so the move may be refused, which is timed all the same
+     */
+    private void move(String id, Move m) throws IOException, InterruptedException{
+        if(this.client == null){
+            GameSession session = this.manager.get(id);
+            if(session != null) session.move(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol());
+            return;
+        }
+        String uri = String.format("%s%s/move?fromRow=%d&fromCol=%d&toRow=%d&toCol=%d", this.base, id,
+                m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol());
+        this.client.send(HttpRequest.newBuilder(URI.create(uri)).POST(HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.discarding());
+    }
+
+    /**
+     * This method returns a percentile of sorted latencies
+     * @param sorted the latencies, sorted
+     * @param percent the percentile, from 0 to 100
+     * @return the latency at the percentile
+     */
+    public static long percentile(long[] sorted, double percent){
+        if(sorted.length == 0) return 0;
+        int index = (int) Math.ceil(percent / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    public static void main(String[] args) throws Exception{
+        int sessions = 10_000;
+        int clients = 8;
+        long moves = 200_000;
+        boolean http = false;
+        long seed = 1;
+        String store = null;
+        int maxPacked = 1000;
+        for(int i = 0; i < args.length; i++){
+            switch(args[i]){
+                case "--sessions": sessions = Integer.parseInt(args[++i]); break;
+                case "--clients": clients = Integer.parseInt(args[++i]); break;
+                case "--moves": moves = Long.parseLong(args[++i]); break;
+                case "--http": http = true; break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--store": store = args[++i]; break;
+                case "--max-packed": maxPacked = Integer.parseInt(args[++i]); break;
+                default: throw new IllegalArgumentException(String.format("Unknown option %s", args[i]));
+            }
+        }
+        SessionStore sessionStore = store == null ? null : new SessionStore(Paths.get(store), 0, maxPacked);
+        SessionManager manager = new SessionManager(sessionStore);
+        GameServer server = http ? new GameServer(manager, 0, Math.max(2, clients)) : null;
+        try{
+            if(server != null) server.start();
+            SessionLoadTest test = new SessionLoadTest(manager, sessions, server == null ? -1 : server.getPort());
+            // one untimed round to warm up the JIT, then the measured round
+            test.run(clients, Math.min(moves, 20_000), seed);
+            printMemory(manager, "before sweep");
+            if(manager.sweep() > 0) printMemory(manager, "after sweep");
+            long start = System.nanoTime();
+            long[] latencies = test.run(clients, moves, seed + clients);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("%s, %d sessions, %d clients, %d moves in %.2f s, %.0f moves/sec",
+                    http ? "http" : "direct", manager.size(), clients, latencies.length, seconds, latencies.length / seconds));
+            System.out.println(String.format("move latency p50 %.1f us, p90 %.1f us, p99 %.1f us, max %.1f us",
+                    percentile(latencies, 50) / 1e3, percentile(latencies, 90) / 1e3,
+                    percentile(latencies, 99) / 1e3, percentile(latencies, 100) / 1e3));
+        }finally{
+            if(server != null) server.close();
+            if(sessionStore != null) sessionStore.close();
+        }
+    }
+
+    private static void printMemory(SessionManager manager, String when){
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        System.out.println(String.format("%s: %d live, %d packed, %d stored, heap used %.1f MB", when, manager.countLive(),
+                manager.countPacked(), manager.size() - manager.countLive() - manager.countPacked(),
+                (runtime.totalMemory() - runtime.freeMemory()) / (1024.0 * 1024.0)));
+    }
+}
@@ -0,0 +1,130 @@
+package marblesolitaire.server;
+
+import marblesolitaire.metrics.ModelMetrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class holds the games of many players, each an independent GameSession keyed by its
+ * session id. The sessions live in a ConcurrentHashMap and are only locked one at a time
+ * by their own methods, so there is no global lock and unrelated sessions run in parallel.
+ * With a SessionStore, sweep packs the idle games and stores the oldest packed ones, see SessionStore.
+ * The methods of this class are thread safe.
+ */
+public class SessionManager {
+    private final ConcurrentHashMap<String, GameSession> sessions = new ConcurrentHashMap<>();
+    private final SessionStore store;
+    private final ModelMetrics metrics;
+
+    /**
+     * First constructor of the class, every game stays a full model
+     */
+    public SessionManager(){
+        this(null, null);
+    }
+
+    /**
+     * Second constructor of the class
+     * @param store, the store of the idle games, or null to keep every game a full model
+     */
+    public SessionManager(SessionStore store){
+        this(store, null);
+    }
+
+    /**
+     * Third constructor of the class
+     * @param store, the store of the idle games, or null to keep every game a full model
+     * @param metrics, the metrics the models of all games record to, or null for none
+     */
+    public SessionManager(SessionStore store, ModelMetrics metrics){
+        this.store = store;
+        this.metrics = metrics;
+    }
+
+    /**
+     * This method starts a new game on the English board
+     * @param arm arm thickness of the board
+     * @param sRow row of the empty slot
+     * @param sCol column of the empty slot
+     * @return the new session
+     * @throws IllegalArgumentException if the arm or the empty slot is not valid
+     */
+    public GameSession create(int arm, int sRow, int sCol) throws IllegalArgumentException{
+        while(true){
+            String id = Long.toHexString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE);
+            GameSession session = new GameSession(id, arm, sRow, sCol, this.metrics);
+            if(this.sessions.putIfAbsent(id, session) == null) return session;
+        }
+    }
+
+    /**
+     * This method returns the session with the given id
+     * @param id the session id
+     * @return the session, or null if no session has the id
+     */
+    public GameSession get(String id){
+        return this.sessions.get(id);
+    }
+
+    /**
+     * This method ends a session and forgets its game, freeing its space in the store
+     * @param id the session id
+     * @return true if the session was ended, false if no session has the id
+     * @throws UncheckedIOException if the stored game cannot be read
+     */
+    public boolean close(String id) throws UncheckedIOException{
+        GameSession session = this.sessions.remove(id);
+        if(session == null) return false;
+        if(this.store != null) this.store.release(session);
+        return true;
+    }
+
+    /**
+     * This method packs the idle games and stores the oldest packed ones, with the policy of
+     * the store, call it now and then, for example from a scheduled thread
+     * @return the number of games packed or stored
+     * @throws IOException if the store cannot be written
+     */
+    public int sweep() throws IOException{
+        return this.store == null ? 0 : this.store.sweep(this.sessions.values());
+    }
+
+    /**
+     * This method counts the sessions whose game is held as a full model
+     * @return an int, the live sessions
+     */
+    public int countLive(){
+        int count = 0;
+        for(GameSession session : this.sessions.values()){
+            if(session.isLive()) count++;
+        }
+        return count;
+    }
+
+    /**
+     * This method counts the sessions whose game is held packed in memory
+     * @return an int, the packed sessions
+     */
+    public int countPacked(){
+        int count = 0;
+        for(GameSession session : this.sessions.values()){
+            if(session.isPacked()) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the metrics of the games
+     * @return the metrics the models record to, or null if they are not metered
+     */
+    public ModelMetrics getMetrics(){return this.metrics;}
+
+    /**
+     * Returns the number of sessions
+     * @return an int, the number of sessions not yet closed
+     */
+    public int size(){return this.sessions.size();}
+}
@@ -0,0 +1,218 @@
+package marblesolitaire.server;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This class is where the SessionManager keeps idle games, in two tiers. A game not used for
+ * idleNanos is packed into the bytes of its GameRecord, a few dozen bytes instead of a full model.
+ * When more than maxPacked games are packed, the least recently used of them are written to a
+ * scratch file and only their offset stays in memory. The tiers are only changed by sweep, one
+ * session lock at a time, so moves never wait on the store; a stored game is read back with a
+ * positional read by the next move on it. Games are appended at the end of the file, and the
+ * space of games read back or closed is freed; once less than half of the file is live and it is
+ * larger than MIN_COMPACT_SIZE, sweep moves the stored games down to the start of the file and
+ * truncates it. The file is deleted when the store is closed.
+ */
+public class SessionStore implements Closeable {
+    // the file is never compacted below this size
+    static final long MIN_COMPACT_SIZE = 1 << 12;
+
+    private final FileChannel channel;
+    private final long idleNanos;
+    private final int maxPacked;
+    // held by sweep, so only one sweep appends or compacts at a time
+    private final Object sweepLock = new Object();
+    // the end of the file and the bytes of the games still stored, guarded by this
+    private long end;
+    private long live;
+
+    /**
+     * Constructor of the class, creates the scratch file, replacing any file at the path
+     * @param path, the scratch file
+     * @param idleNanos, how long a game must not be used before it is packed
+     * @param maxPacked, how many packed games are kept in memory before the oldest are stored
+     * @throws IOException if the file cannot be created
+     * @throws IllegalArgumentException if idleNanos or maxPacked is negative
+     */
+    public SessionStore(Path path, long idleNanos, int maxPacked) throws IOException, IllegalArgumentException{
+        if(idleNanos < 0 || maxPacked < 0){
+            throw new IllegalArgumentException(String.format("Invalid idle time %d or packed limit %d, must not be negative", idleNanos, maxPacked));
+        }
+        this.idleNanos = idleNanos;
+        this.maxPacked = maxPacked;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+    }
+
+    /**
+     * This method packs the sessions idle for idleNanos, then stores the least recently used
+     * packed sessions until at most maxPacked remain in memory, and compacts the file if less
+     * than half of it is live
+     * @param sessions the sessions to look at, every session stored in this store must be in it
+     * @return the number of sessions packed or stored
+     * @throws IOException if the file cannot be written
+     */
+    public int sweep(Collection<GameSession> sessions) throws IOException{
+        synchronized(this.sweepLock){
+            int changed = this.store(sessions);
+            if(this.shouldCompact()) this.compact(sessions);
+            return changed;
+        }
+    }
+
+    /**
+     * This method packs the idle sessions and stores the oldest packed ones, called with the sweep lock held
+     * @param sessions the sessions to look at
+     * @return the number of sessions packed or stored
+     * @throws IOException if the file cannot be written
+     */
+    private int store(Collection<GameSession> sessions) throws IOException{
+        long idleSince = System.nanoTime() - this.idleNanos;
+        int changed = 0;
+        List<GameSession> packed = new ArrayList<>();
+        for(GameSession session : sessions){
+            if(session.pack(idleSince)) changed++;
+            if(session.isPacked()) packed.add(session);
+        }
+        int excess = packed.size() - this.maxPacked;
+        if(excess <= 0) return changed;
+        // the access times keep changing, so they are copied before sorting, the oldest first
+        long[] times = new long[packed.size()];
+        Integer[] order = new Integer[packed.size()];
+        for(int i = 0; i < order.length; i++){
+            times[i] = packed.get(i).getLastAccess();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(times[a] - idleSince, times[b] - idleSince));
+        for(int i = 0; i < excess; i++){
+            if(packed.get(order[i]).spill(this)) changed++;
+        }
+        return changed;
+    }
+
+    /**
+     * This method frees the space of a session that is closed, after it is no longer in the
+     * sessions given to sweep, so no sweep can store or move it again
+     * @param session the closed session
+     * @throws UncheckedIOException if the stored game cannot be read
+     */
+    void release(GameSession session) throws UncheckedIOException{
+        synchronized(this.sweepLock){
+            session.release();
+        }
+    }
+
+    private synchronized boolean shouldCompact(){
+        return this.end > MIN_COMPACT_SIZE && this.live * 2 < this.end;
+    }
+
+    /**
+     * This method moves the stored sessions down to the start of the file in the order of their
+     * offsets, so a game is only written over space that is free or already moved, then truncates
+     * the file, called with the sweep lock held. A session read back meanwhile is skipped.
+     * @param sessions the sessions to look at, every session stored in this store must be in it
+     * @throws IOException if the file cannot be written
+     */
+    private void compact(Collection<GameSession> sessions) throws IOException{
+        List<GameSession> stored = new ArrayList<>();
+        List<Long> offsets = new ArrayList<>();
+        for(GameSession session : sessions){
+            long offset = session.getStoredOffset(this);
+            if(offset >= 0){
+                stored.add(session);
+                offsets.add(offset);
+            }
+        }
+        Integer[] order = new Integer[stored.size()];
+        for(int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(offsets.get(a), offsets.get(b)));
+        long target = 0;
+        for(int i : order){
+            target += stored.get(i).relocate(this, target);
+        }
+        synchronized(this){
+            this.channel.truncate(target);
+            this.end = target;
+        }
+    }
+
+    /**
+     * This method appends a packed game to the file
+     * @param bytes the packed game
+     * @return the offset it was written at
+     * @throws IOException if the file cannot be written
+     */
+    synchronized long append(byte[] bytes) throws IOException{
+        long offset = this.end;
+        this.write(bytes, offset);
+        this.end += bytes.length;
+        this.live += bytes.length;
+        return offset;
+    }
+
+    /**
+     * This method writes a packed game at an offset of the file
+     * @param bytes the packed game
+     * @param offset the offset to write it at
+     * @throws IOException if the file cannot be written
+     */
+    void write(byte[] bytes, long offset) throws IOException{
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while(buffer.hasRemaining()){
+            this.channel.write(buffer, offset + buffer.position());
+        }
+    }
+
+    /**
+     * This method frees the space of a game read back or closed, to be reclaimed by the next compaction
+     * @param length its length in bytes
+     */
+    synchronized void free(int length){
+        this.live -= length;
+    }
+
+    /**
+     * This method reads a packed game back from the file
+     * @param offset the offset it was written at
+     * @param length its length in bytes
+     * @return a new array
+     * @throws IOException if the file cannot be read
+     */
+    byte[] read(long offset, int length) throws IOException{
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while(buffer.hasRemaining()){
+            if(this.channel.read(buffer, offset + buffer.position()) < 0){
+                throw new EOFException(String.format("Stored game at %d ends early", offset));
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Returns the size of the file
+     * @return a long, the bytes written so far
+     */
+    public synchronized long getFileSize(){return this.end;}
+
+    /**
+     * Returns the bytes of the games still stored in the file
+     * @return a long, at most the size of the file
+     */
+    public synchronized long getLiveSize(){return this.live;}
+
+    @Override
+    public void close() throws IOException{
+        this.channel.close();
+    }
+}
@@ -0,0 +1,276 @@
+package marblesolitaire.solver;
+
+import marblesolitaire.model.MarbleSolitaireModel;
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is the best score optimizer for marble solitaire. Many positions cannot be reduced to one
+ * marble, for those the solver only proves there is no solution, the optimizer finds the moves
+ * that leave the fewest marbles. It is a depth first branch and bound search over the packed
+ * position: the first game played out gives a score to beat, and a position is cut off as soon
+ * as a lower bound of its score is no better than the best score found so far.
+ * The lower bound of a position is 2 when the pagoda weights of SolverPruning, kept up to date
+ * move by move, rule out one marble, and 1 otherwise. Once all of the moves of a position are
+ * searched the best score found becomes its bound, as none of them could beat it, these bounds
+ * are kept in a ScoreTable so a position reached again by other moves is cut off at once.
+ * The start position is also bounded by its position class and live regions, which are too
+ * costly to check at every position for the few more positions they cut off.
+ * Jumps are tried from the edges of the board inwards, so the first games played out already
+ * leave few marbles.
+ * The search is anytime: it stops when the time budget runs out and returns the best moves found
+ * so far, along with the lower bound of the start position. It also stops as soon as the score
+ * meets that bound, or when every move is searched, the score is then proven the lowest.
+ * Optionally positions are stored in their canonical form under the symmetries of the board.
+ * An optimizer object is not thread safe, but can be reused for many optimize calls.
+ */
+public class BestScoreOptimizer {
+    // how many nodes between two checks of the clock and samples of the used heap
+    private static final int CLOCK_INTERVAL = 1 << 12;
+    private static final int DEFAULT_MAX_ENTRIES = 1 << 22;
+
+    private final boolean useSymmetry;
+    private final int maxEntries;
+
+    private BoardEncoding encoding;
+    private BoardSymmetry symmetry;
+    private SolverPruning pruning;
+    private long[] key;
+    private ScoreTable table;
+    private int[] path;
+    private int[] order;
+    private int[] bestPath;
+    private int bestLength;
+    private int bestScore;
+    private int rootBound;
+    private long start;
+    private long budgetNanos;
+    private boolean timedOut;
+    private long nodes;
+    private long pruned;
+    private long peakMemory;
+
+    /**
+     * First constructor of the class, the optimizer keys its table on the positions as they are
+     */
+    public BestScoreOptimizer(){
+        this(false, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Second constructor of the class
+     * @param useSymmetry, true to key the table on canonical positions,
+     *                     false to key it on the positions as they are
+     * @param maxEntries, number of positions after which the table stores no new ones
+     * @throws IllegalArgumentException if maxEntries is not positive
+     */
+    public BestScoreOptimizer(boolean useSymmetry, int maxEntries) throws IllegalArgumentException{
+        if(maxEntries <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid table size %d, must be positive", maxEntries));
+        }
+        this.useSymmetry = useSymmetry;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * This method finds the moves leaving the fewest marbles from the current position of the model,
+     * the model itself is not changed
+     * @param model the model whose position is optimized
+     * @param budgetNanos the time budget in nanoseconds, Long.MAX_VALUE to search until proven
+     * @return the result, with the moves to make on the model
+     */
+    public OptimizerResult optimize(MarbleSolitaireModel model, long budgetNanos){
+        BoardEncoding encoding = BoardEncoding.of(model);
+        return this.optimize(encoding, encoding.encode(BoardEncoding.boardOf(model)), budgetNanos);
+    }
+
+    /**
+     * This method finds the moves leaving the fewest marbles from a packed position of the given board shape
+     * @param encoding the shape of the board
+     * @param position the packed marbles, this array is not changed
+     * @param budgetNanos the time budget in nanoseconds, Long.MAX_VALUE to search until proven
+     * @return the result, with the moves to make
+     */
+    public OptimizerResult optimize(BoardEncoding encoding, long[] position, long budgetNanos){
+        if(this.encoding != encoding){
+            this.symmetry = this.useSymmetry ? new BoardSymmetry(encoding) : null;
+            this.order = orderOf(encoding);
+        }
+        this.encoding = encoding;
+        this.key = new long[encoding.getWords()];
+        this.table = new ScoreTable(encoding.getWords(), this.maxEntries);
+        int marbles = BoardEncoding.count(position);
+        this.path = new int[Math.max(0, marbles - 1)];
+        this.bestPath = new int[this.path.length];
+        this.bestLength = 0;
+        this.bestScore = marbles == 0 ? 0 : marbles + 1;
+        this.pruning = new SolverPruning(encoding, position);
+        this.rootBound = marbles == 0 ? 0
+                : Math.max(this.pruning.canReachOne(position) ? 1 : 2, this.pruning.lowerBound(position));
+        this.budgetNanos = budgetNanos;
+        this.timedOut = false;
+        this.nodes = 0;
+        this.pruned = 0;
+        this.peakMemory = usedMemory();
+
+        this.start = System.nanoTime();
+        if(marbles > 0) this.search(position.clone(), marbles, 0);
+        long elapsed = System.nanoTime() - this.start;
+        this.peakMemory = Math.max(this.peakMemory, usedMemory());
+
+        List<Move> moves = new ArrayList<>();
+        for(int i = 0; i < this.bestLength; i++){
+            moves.add(encoding.toMove(this.bestPath[i]));
+        }
+        // a search that ran to the end has tried everything that could beat the best score
+        int lowerBound = this.timedOut ? this.rootBound : this.bestScore;
+        SolverStats stats = new SolverStats(this.nodes, elapsed, this.table.getLookups(),
+                this.table.getHits(), this.table.size(), this.peakMemory, this.pruned);
+        return new OptimizerResult(this.bestScore, lowerBound, moves, stats);
+    }
+
+    /**
+     * This method is the recursive search, it tries every legal jump from the position in place
+     * and undoes it on the way back, recording the jumps in path and copying them to bestPath
+     * whenever a game ends with fewer marbles than the best so far
+     * @param position the packed marbles, changed during the search and restored before returning
+     * @param marbles the number of marbles in the position
+     * @param depth the number of jumps made from the root
+     */
+    private void search(long[] position, int marbles, int depth){
+        int bound = this.table.get(this.keyOf(position));
+        if(bound >= this.bestScore) return;
+        if((++this.nodes & (CLOCK_INTERVAL - 1)) == 0){
+            this.peakMemory = Math.max(this.peakMemory, usedMemory());
+            if(System.nanoTime() - this.start >= this.budgetNanos) this.timedOut = true;
+        }
+        if(this.timedOut) return;
+        bound = Math.max(bound, this.pruning.isTrackedAlive() ? 1 : 2);
+        if(bound >= this.bestScore){
+            this.pruned++;
+            this.table.raise(this.keyOf(position), bound);
+            return;
+        }
+        BoardEncoding enc = this.encoding;
+        boolean moved = false;
+        for(int i = 0; i < this.order.length && !this.isDone(); i++){
+            int j = this.order[i];
+            int from = enc.getJumpFrom(j);
+            int over = enc.getJumpOver(j);
+            int to = enc.getJumpTo(j);
+            if(!PegSolitaireSolver.isSet(position, from) || !PegSolitaireSolver.isSet(position, over)
+                    || PegSolitaireSolver.isSet(position, to)) continue;
+            moved = true;
+            PegSolitaireSolver.flip(position, from, over, to);
+            this.pruning.jump(j);
+            this.path[depth] = j;
+            this.search(position, marbles - 1, depth + 1);
+            PegSolitaireSolver.flip(position, from, over, to);
+            this.pruning.undo(j);
+        }
+        if(!moved){
+            // a finished game, its score is exact
+            if(marbles < this.bestScore){
+                this.bestScore = marbles;
+                this.bestLength = depth;
+                System.arraycopy(this.path, 0, this.bestPath, 0, depth);
+            }
+            this.table.raise(this.keyOf(position), marbles);
+        }else if(!this.isDone()){
+            this.table.raise(this.keyOf(position), Math.max(bound, this.bestScore));
+        }
+    }
+
+    /**
+     * This method checks if the search should stop, out of time or with a score meeting the root bound
+     * @return true if no more positions should be searched
+     */
+    private boolean isDone(){
+        return this.timedOut || this.bestScore <= this.rootBound;
+    }
+
+    /**
+     * This method returns the table key of a position, its canonical form if symmetry is used
+     * @param position the packed position
+     * @return the key, only valid until the next call
+     */
+    private long[] keyOf(long[] position){
+        if(this.symmetry == null) return position;
+        this.symmetry.canonicalize(position, this.key);
+        return this.key;
+    }
+
+    /**
+     * This method returns the order the jumps are tried in, the jumps from the slots farthest from
+     * the middle of the board first, so the first games played clear the edges of the board before
+     * its middle, which leaves far fewer marbles than trying the jumps row by row
+     * @param enc the shape of the board
+     * @return the jumps of the encoding, in the order to try them
+     */
+    private static int[] orderOf(BoardEncoding enc){
+        double mid = (enc.getDim() - 1) / 2.0;
+        Integer[] jumps = new Integer[enc.getJumpCount()];
+        double[] distance = new double[jumps.length];
+        for(int j = 0; j < jumps.length; j++){
+            jumps[j] = j;
+            double row = enc.getSlotRow(enc.getJumpFrom(j)) - mid;
+            double col = enc.getSlotCol(enc.getJumpFrom(j)) - mid;
+            distance[j] = row * row + col * col;
+        }
+        Arrays.sort(jumps, (a, b) -> Double.compare(distance[b], distance[a]));
+        int[] order = new int[jumps.length];
+        for(int j = 0; j < order.length; j++){
+            order[j] = jumps[j];
+        }
+        return order;
+    }
+
+    private static long usedMemory(){
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * This method optimizes every start of an English board and prints one CSV line per start.
+     * Options, all optional:
+     * --arm N        arm thickness of the board, default 3
+     * --seconds N    time budget of each start, default 10
+     * --symmetry     key the table on canonical positions
+     */
+    public static void main(String[] args){
+        int arm = 3;
+        long seconds = 10;
+        boolean useSymmetry = false;
+        for(int i = 0; i < args.length; i++){
+            switch(args[i]){
+                case "--arm": arm = Integer.parseInt(args[++i]); break;
+                case "--seconds": seconds = Long.parseLong(args[++i]); break;
+                case "--symmetry": useSymmetry = true; break;
+                default: throw new IllegalArgumentException(String.format("Unknown option %s", args[i]));
+            }
+        }
+        BestScoreOptimizer optimizer = new BestScoreOptimizer(useSymmetry, DEFAULT_MAX_ENTRIES);
+        int dim = arm * 2 + 1;
+        System.out.println("arm,row,col,score,lower_bound,optimal,moves,nodes,pruned_nodes,seconds");
+        for(int r = 0; r < dim; r++){
+            for(int c = 0; c < dim; c++){
+                MarbleSolitaireModelImpl model;
+                try{
+                    model = new MarbleSolitaireModelImpl(arm, r, c);
+                }catch(IllegalArgumentException e){
+                    continue;
+                }
+                OptimizerResult result = optimizer.optimize(model, TimeUnit.SECONDS.toNanos(seconds));
+                SolverStats stats = result.getStats();
+                System.out.println(String.format("%d,%d,%d,%d,%d,%b,%d,%d,%d,%.3f", arm, r, c, result.getScore(),
+                        result.getLowerBound(), result.isOptimal(), result.getMoves().size(), stats.getNodes(),
+                        stats.getPrunedNodes(), stats.getElapsedNanos() / 1e9));
+            }
+        }
+    }
+}
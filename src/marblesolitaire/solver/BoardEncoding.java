@@ -0,0 +1,191 @@
+package marblesolitaire.solver;
+
+import marblesolitaire.model.BitboardMarbleSolitaireModel;
+import marblesolitaire.model.BoardGeometry;
+import marblesolitaire.model.MarbleSolitaireModel;
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+import marblesolitaire.model.SlotState;
+
+/**
+ * This class compiles the shape of a board into a compact encoding for the solvers.
+ * Every valid (non OfB) slot gets an index, numbered row by row, and a position is a bitset
+ * over those indices packed into long words with a bit set for each marble.
+ * All possible jumps on the shape are taken from its BoardGeometry as (from, over, to) slot index triples.
+ */
+public final class BoardEncoding {
+    private final int dim;
+    private final int slotCount;
+    private final int words;
+    private final int[][] slotIndex;
+    private final int[] slotRow;
+    private final int[] slotCol;
+    private final int[] jumpFrom;
+    private final int[] jumpOver;
+    private final int[] jumpTo;
+
+    /**
+     * First constructor of the class, takes in a board and records its shape,
+     * the marbles on the board do not matter, only which slots are OfB,
+     * marbles jump left, right, up and down
+     * @param board, 2D array of enum SlotState, must be square
+     */
+    public BoardEncoding(SlotState[][] board){
+        this(BoardGeometry.of(board));
+    }
+
+    /**
+     * Second constructor of the class, takes in the geometry of a board, and numbers its slots
+     * and jumps in the order of the geometry
+     * @param geometry, the shape of the board
+     */
+    public BoardEncoding(BoardGeometry geometry){
+        this.dim = geometry.getDim();
+        this.slotIndex = new int[this.dim][this.dim];
+        this.slotCount = geometry.getSlotCount();
+        this.words = Math.max(1, (this.slotCount + 63) >>> 6);
+        this.slotRow = new int[this.slotCount];
+        this.slotCol = new int[this.slotCount];
+        int[] cellSlot = new int[this.dim * this.dim];
+        int slot = 0;
+        for(int cell = 0; cell < cellSlot.length; cell++){
+            int r = geometry.getRow(cell);
+            int c = geometry.getCol(cell);
+            if(geometry.isValid(cell)){
+                this.slotRow[slot] = r;
+                this.slotCol[slot] = c;
+                cellSlot[cell] = slot++;
+            }else{
+                cellSlot[cell] = -1;
+            }
+            this.slotIndex[r][c] = cellSlot[cell];
+        }
+
+        this.jumpFrom = new int[geometry.getJumpCount()];
+        this.jumpOver = new int[geometry.getJumpCount()];
+        this.jumpTo = new int[geometry.getJumpCount()];
+        for(int j = 0; j < this.jumpFrom.length; j++){
+            this.jumpFrom[j] = cellSlot[geometry.getJumpFrom(j)];
+            this.jumpOver[j] = cellSlot[geometry.getJumpOver(j)];
+            this.jumpTo[j] = cellSlot[geometry.getJumpTo(j)];
+        }
+    }
+
+    /**
+     * This method returns the encoding of the board of any model, from its geometry when
+     * the model offers it, or from the shape of its board otherwise
+     * @param model the model to read
+     * @return the encoding of the model's board
+     */
+    public static BoardEncoding of(MarbleSolitaireModel model){
+        if(model instanceof MarbleSolitaireModelImpl) return new BoardEncoding(((MarbleSolitaireModelImpl) model).getGeometry());
+        return new BoardEncoding(boardOf(model));
+    }
+
+    /**
+     * This method returns the board of any model as a 2D SlotState array, using getBoard
+     * when the model offers it, or reading it back from getGameState otherwise
+     * @param model the model to read
+     * @return a copy of the model's board
+     */
+    public static SlotState[][] boardOf(MarbleSolitaireModel model){
+        if(model instanceof MarbleSolitaireModelImpl) return ((MarbleSolitaireModelImpl) model).getBoard();
+        if(model instanceof BitboardMarbleSolitaireModel) return ((BitboardMarbleSolitaireModel) model).getBoard();
+        String[] rows = model.getGameState().split("\n");
+        SlotState[][] board = new SlotState[rows.length][rows.length];
+        for(int r = 0; r < rows.length; r++){
+            for(int c = 0; c < rows.length; c++){
+                char ch = 2 * c < rows[r].length() ? rows[r].charAt(2 * c) : ' ';
+                if(ch == 'O') board[r][c] = SlotState.Marble;
+                else if(ch == '_') board[r][c] = SlotState.Empty;
+                else board[r][c] = SlotState.OfB;
+            }
+        }
+        return board;
+    }
+
+    /**
+     * This method packs the marbles of a board of this shape into a bitset
+     * @param board, 2D array of enum SlotState with the same shape as this encoding
+     * @return a new bitset of getWords() longs, one bit per marble
+     */
+    public long[] encode(SlotState[][] board){
+        long[] bits = new long[this.words];
+        for(int i = 0; i < this.slotCount; i++){
+            if(board[this.slotRow[i]][this.slotCol[i]] == SlotState.Marble){
+                bits[i >>> 6] |= 1L << i;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * This method unpacks a bitset back into a 2D SlotState board
+     * @param bits the bitset of marbles
+     * @return a new 2D SlotState board
+     */
+    public SlotState[][] decode(long[] bits){
+        SlotState[][] board = new SlotState[this.dim][this.dim];
+        for(int r = 0; r < this.dim; r++){
+            for(int c = 0; c < this.dim; c++){
+                int i = this.slotIndex[r][c];
+                if(i < 0) board[r][c] = SlotState.OfB;
+                else board[r][c] = (bits[i >>> 6] & (1L << i)) != 0 ? SlotState.Marble : SlotState.Empty;
+            }
+        }
+        return board;
+    }
+
+    /**
+     * This method converts a jump index into a Move in board coordinates
+     * @param jump index of the jump, from 0 to getJumpCount() - 1
+     * @return the Move for that jump
+     */
+    public Move toMove(int jump){
+        int from = this.jumpFrom[jump];
+        int to = this.jumpTo[jump];
+        return new Move(this.slotRow[from], this.slotCol[from], this.slotRow[to], this.slotCol[to]);
+    }
+
+    /**
+     * Returns the slot index of (row, col)
+     * @param row row
+     * @param col column
+     * @return the slot index, or -1 if (row, col) is OfB or outside the board
+     */
+    public int indexOf(int row, int col){
+        if(row < 0 || row >= this.dim || col < 0 || col >= this.dim) return -1;
+        return this.slotIndex[row][col];
+    }
+
+    public int getDim(){return this.dim;}
+
+    public int getSlotCount(){return this.slotCount;}
+
+    public int getWords(){return this.words;}
+
+    public int getSlotRow(int slot){return this.slotRow[slot];}
+
+    public int getSlotCol(int slot){return this.slotCol[slot];}
+
+    public int getJumpCount(){return this.jumpFrom.length;}
+
+    public int getJumpFrom(int jump){return this.jumpFrom[jump];}
+
+    public int getJumpOver(int jump){return this.jumpOver[jump];}
+
+    public int getJumpTo(int jump){return this.jumpTo[jump];}
+
+    /**
+     * This method counts the marbles in a bitset
+     * @param bits the bitset of marbles
+     * @return the number of bits set
+     */
+    public static int count(long[] bits){
+        int count = 0;
+        for(long word : bits){
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
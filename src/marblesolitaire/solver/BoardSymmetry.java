@@ -0,0 +1,112 @@
+package marblesolitaire.solver;
+
+import marblesolitaire.model.DihedralTransform;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class maps packed positions of a BoardEncoding to a canonical representative
+ * under the rotations and reflections that leave the board shape unchanged, which are all
+ * 8 of them for the plus shaped boards. Positions equal under symmetry have the same
+ * canonical form, so caches keyed on it store each class of positions only once.
+ * The canonical form is the transformed bitset that is smallest as an unsigned number.
+ */
+public final class BoardSymmetry {
+    private final int words;
+    // permutations[t][slot] is the slot that slot is mapped to by the t-th symmetry of the shape
+    private final int[][] permutations;
+    private final long[] scratch;
+
+    /**
+     * Constructor of the class, finds the symmetries of the shape of the encoding
+     * @param encoding, the board shape
+     */
+    public BoardSymmetry(BoardEncoding encoding){
+        this.words = encoding.getWords();
+        this.scratch = new long[this.words];
+        int dim = encoding.getDim();
+        List<int[]> found = new ArrayList<>();
+        for(DihedralTransform t : DihedralTransform.values()){
+            if(t == DihedralTransform.Identity) continue;
+            int[] permutation = new int[encoding.getSlotCount()];
+            boolean symmetric = true;
+            for(int i = 0; i < permutation.length && symmetric; i++){
+                int r = encoding.getSlotRow(i);
+                int c = encoding.getSlotCol(i);
+                permutation[i] = encoding.indexOf(t.row(r, c, dim), t.col(r, c, dim));
+                symmetric = permutation[i] >= 0;
+            }
+            if(symmetric) found.add(permutation);
+        }
+        this.permutations = found.toArray(new int[0][]);
+    }
+
+    /**
+     * Returns the number of symmetries of the shape, including the identity
+     * @return an int between 1 and 8
+     */
+    public int getSymmetryCount(){
+        return this.permutations.length + 1;
+    }
+
+    /**
+     * This method writes the canonical form of a position into out, without allocating
+     * @param position the packed position, not changed
+     * @param out array of getWords() longs that receives the canonical form, must not be position
+     */
+    public void canonicalize(long[] position, long[] out){
+        System.arraycopy(position, 0, out, 0, this.words);
+        for(int[] permutation : this.permutations){
+            transform(position, permutation, this.scratch);
+            if(compare(this.scratch, out) < 0){
+                System.arraycopy(this.scratch, 0, out, 0, this.words);
+            }
+        }
+    }
+
+    /**
+     * This method returns the canonical form of a position in a new array
+     * @param position the packed position, not changed
+     * @return the canonical form
+     */
+    public long[] canonicalize(long[] position){
+        long[] out = new long[this.words];
+        this.canonicalize(position, out);
+        return out;
+    }
+
+    /**
+     * This method moves every marble of the position to its image under the permutation
+     * @param position the packed position
+     * @param permutation the slot mapping
+     * @param out array that receives the transformed position
+     */
+    private static void transform(long[] position, int[] permutation, long[] out){
+        Arrays.fill(out, 0L);
+        for(int w = 0; w < position.length; w++){
+            long word = position[w];
+            while(word != 0){
+                int slot = (w << 6) + Long.numberOfTrailingZeros(word);
+                int image = permutation[slot];
+                out[image >>> 6] |= 1L << image;
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * This method compares two packed positions as unsigned numbers, highest word first
+     * @param a first position
+     * @param b second position
+     * @return negative, zero or positive as a is less than, equal to or greater than b
+     */
+    static int compare(long[] a, long[] b){
+        for(int w = a.length - 1; w >= 0; w--){
+            int cmp = Long.compareUnsigned(a[w], b[w]);
+            if(cmp != 0) return cmp;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,94 @@
+package marblesolitaire.solver;
+
+/**
+ * This class is a transposition table of dead positions shared by many search threads.
+ * It is split into lock striped segments, each a TranspositionTable guarded by its own lock,
+ * and a key always goes to the same segment chosen from the high bits of its hash,
+ * so threads only contend when they touch the same segment at the same time.
+ */
+public class ConcurrentTranspositionTable {
+    private static final int SEGMENT_BITS = 6;
+    private static final int SEGMENT_CAPACITY = 1 << 12;
+
+    private final TranspositionTable[] segments;
+
+    /**
+     * Constructor of the class, takes in the key width in words
+     * @param words, number of long words in every key
+     */
+    public ConcurrentTranspositionTable(int words){
+        this.segments = new TranspositionTable[1 << SEGMENT_BITS];
+        for(int i = 0; i < this.segments.length; i++){
+            this.segments[i] = new TranspositionTable(words, SEGMENT_CAPACITY);
+        }
+    }
+
+    /**
+     * This method checks if the key is in the table, counted in the lookup statistics
+     * @param key the packed position
+     * @return true if the key was added before
+     */
+    public boolean contains(long[] key){
+        TranspositionTable segment = this.segmentOf(key);
+        synchronized(segment){
+            return segment.contains(key);
+        }
+    }
+
+    /**
+     * This method adds a copy of the key to the table if it is not already there
+     * @param key the packed position
+     */
+    public void add(long[] key){
+        TranspositionTable segment = this.segmentOf(key);
+        synchronized(segment){
+            segment.add(key);
+        }
+    }
+
+    /**
+     * Returns the total number of keys in all segments
+     * @return an int, the size of the table
+     */
+    public int size(){
+        int size = 0;
+        for(TranspositionTable segment : this.segments){
+            synchronized(segment){
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the total number of lookups in all segments
+     * @return a long, the number of lookups
+     */
+    public long getLookups(){
+        long lookups = 0;
+        for(TranspositionTable segment : this.segments){
+            synchronized(segment){
+                lookups += segment.getLookups();
+            }
+        }
+        return lookups;
+    }
+
+    /**
+     * Returns the total number of lookups that found their key in all segments
+     * @return a long, the number of hits
+     */
+    public long getHits(){
+        long hits = 0;
+        for(TranspositionTable segment : this.segments){
+            synchronized(segment){
+                hits += segment.getHits();
+            }
+        }
+        return hits;
+    }
+
+    private TranspositionTable segmentOf(long[] key){
+        return this.segments[TranspositionTable.hash(key) >>> (Integer.SIZE - SEGMENT_BITS)];
+    }
+}
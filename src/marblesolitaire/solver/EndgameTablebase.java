@@ -0,0 +1,362 @@
+package marblesolitaire.solver;
+
+import marblesolitaire.model.MarbleSolitaireModel;
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.SlotState;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class is the endgame tablebase of a board shape, for every position with 1 to maxMarbles
+ * marbles it holds the best final score that can still be reached, the fewest marbles left when
+ * no move is possible, so a position can be reduced to one marble exactly when its entry is 1.
+ * Every position of k marbles, reachable or not, has an entry at a fixed place: the positions
+ * of k marbles follow those of fewer marbles, and among them a position is at its rank in the
+ * combinatorial number system, the sum of C(slot, j) over its j-th lowest marble slot.
+ * So a lookup is a rank computation and one read, with no search and no hashing.
+ * The entries are 4 bits, two per byte, built once level by level from 1 marble up, a position
+ * taking the best entry of the positions one move away, and stored in a file that is memory
+ * mapped when the tablebase is opened. Only shapes with at most 64 valid slots are supported,
+ * such as the default arm 3 board.
+ */
+public class EndgameTablebase {
+    private static final byte[] MAGIC = {'M', 'S', 'T', 'B'};
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 3;
+    // the largest marble count an entry of 4 bits can hold
+    private static final int MAX_MARBLES = 15;
+    // the number of positions a build task fills, even so two tasks never write the same byte
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final int arm;
+    private final int maxMarbles;
+    private final Shape shape;
+    private final ByteBuffer entries;
+
+    private EndgameTablebase(int arm, int maxMarbles, ByteBuffer entries){
+        this.arm = arm;
+        this.maxMarbles = maxMarbles;
+        this.shape = new Shape(arm, maxMarbles);
+        this.entries = entries;
+    }
+
+    /**
+     * This method opens a tablebase file by memory mapping it
+     * @param path the file written by build
+     * @return the tablebase
+     * @throws IOException if the file cannot be mapped or is not a tablebase
+     */
+    public static EndgameTablebase open(Path path) throws IOException{
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for(int i = 0; i < MAGIC.length; i++){
+                if(buffer.limit() < HEADER_SIZE || buffer.get(i) != MAGIC[i]) {
+                    throw new IOException("Invalid tablebase header");
+                }
+            }
+            if(buffer.get(MAGIC.length) != VERSION) {
+                throw new IOException(String.format("Unsupported tablebase version %d", buffer.get(MAGIC.length)));
+            }
+            int arm = buffer.get(MAGIC.length + 1);
+            int maxMarbles = buffer.get(MAGIC.length + 2);
+            Shape shape;
+            try{
+                shape = new Shape(arm, maxMarbles);
+            }catch(IllegalArgumentException e){
+                throw new IOException("Invalid tablebase header", e);
+            }
+            if(buffer.limit() != HEADER_SIZE + shape.bytes) {
+                throw new IOException(String.format("Invalid tablebase size %d, must be %d", buffer.limit(), HEADER_SIZE + shape.bytes));
+            }
+            buffer.position(HEADER_SIZE);
+            return new EndgameTablebase(arm, maxMarbles, buffer.slice());
+        }
+    }
+
+    /**
+     * This method builds the tablebase of a board shape and writes it to a file
+     * @param arm arm thickness of the board
+     * @param maxMarbles the largest number of marbles of a position in the tablebase, from 1 to 15
+     * @param threads number of threads filling the entries of a level
+     * @param path the file, replaced if it exists
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if the arm is invalid, its board has more than 64 valid slots,
+     *                                  maxMarbles is out of range, the file would be larger than 2 GB,
+     *                                  or threads is not positive
+     */
+    public static void build(int arm, int maxMarbles, int threads, Path path) throws IOException, IllegalArgumentException{
+        if(threads <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid thread count %d, must be positive", threads));
+        }
+        Shape shape = new Shape(arm, maxMarbles);
+        byte[] entries = new byte[shape.bytes];
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try{
+            for(int marbles = 1; marbles <= maxMarbles; marbles++){
+                int level = marbles;
+                long count = shape.binomial[shape.slots][marbles];
+                List<Future<?>> chunks = new ArrayList<>();
+                for(long first = 0; first < count; first += CHUNK_SIZE){
+                    long start = first;
+                    long end = Math.min(count, first + CHUNK_SIZE);
+                    chunks.add(pool.submit(() -> fill(shape, entries, level, start, end)));
+                }
+                for(Future<?> chunk : chunks){
+                    chunk.get();
+                }
+            }
+        }catch(InterruptedException ie){
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while building the tablebase", ie);
+        }catch(ExecutionException ee){
+            throw new IllegalStateException("Tablebase build failed", ee.getCause());
+        }finally{
+            pool.shutdown();
+        }
+
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.put(MAGIC).put(VERSION).put((byte) arm).put((byte) maxMarbles).flip();
+            ByteBuffer body = ByteBuffer.wrap(entries);
+            while(header.hasRemaining() || body.hasRemaining()){
+                channel.write(new ByteBuffer[]{header, body});
+            }
+        }
+    }
+
+    /**
+     * This method fills the entries of the positions of one marble count from rank start to end,
+     * the entries of one marble less are already filled
+     */
+    private static void fill(Shape shape, byte[] entries, int marbles, long start, long end){
+        long position = shape.unrank(start, marbles);
+        for(long rank = start; rank < end; rank++){
+            int best = marbles;
+            for(int j = 0; j < shape.jumpFrom.length && best > 1; j++){
+                long from = 1L << shape.jumpFrom[j];
+                long over = 1L << shape.jumpOver[j];
+                long to = 1L << shape.jumpTo[j];
+                if((position & from) == 0 || (position & over) == 0 || (position & to) != 0) continue;
+                best = Math.min(best, get(entries, shape.index(position ^ from ^ over ^ to, marbles - 1)));
+            }
+            long index = shape.levelStart[marbles] + rank;
+            entries[(int) (index >>> 1)] |= (byte) (best << ((index & 1) << 2));
+            // the next position with the same number of marbles, in rank order
+            long low = position & -position;
+            long ripple = position + low;
+            position = (((ripple ^ position) >>> 2) / low) | ripple;
+        }
+    }
+
+    private static int get(byte[] entries, long index){
+        return (entries[(int) (index >>> 1)] >>> ((index & 1) << 2)) & 0xF;
+    }
+
+    /**
+     * This method returns the best final score that can be reached from a position
+     * @param position the packed marbles, in the slot order of BoardEncoding, one word
+     * @return an int, the fewest marbles that can be left, 1 if the position is solvable
+     * @throws IllegalArgumentException if the position has no marbles or more than getMaxMarbles()
+     */
+    public int getBestScore(long position) throws IllegalArgumentException{
+        int marbles = Long.bitCount(position);
+        if(marbles == 0 || marbles > this.maxMarbles
+                || (this.shape.slots < Long.SIZE && (position >>> this.shape.slots) != 0)) {
+            throw new IllegalArgumentException(String.format("Invalid position with %d marbles, tablebase has 1 to %d marbles", marbles, this.maxMarbles));
+        }
+        long index = this.shape.index(position, marbles);
+        return (this.entries.get((int) (index >>> 1)) >>> ((index & 1) << 2)) & 0xF;
+    }
+
+    /**
+     * This method returns the best final score that can be reached from the position of a model
+     * @param model the model, with the board of the tablebase
+     * @return an int, the fewest marbles that can be left, 1 if the position is solvable
+     * @throws IllegalArgumentException if the model is not covered by the tablebase
+     */
+    public int getBestScore(MarbleSolitaireModel model) throws IllegalArgumentException{
+        return this.getBestScore(this.positionOf(model));
+    }
+
+    /**
+     * This method checks if the position of a model can be reduced to one marble
+     * @param model the model, with the board of the tablebase
+     * @return true if the model can be solved
+     * @throws IllegalArgumentException if the model is not covered by the tablebase
+     */
+    public boolean isSolvable(MarbleSolitaireModel model) throws IllegalArgumentException{
+        return this.getBestScore(model) == 1;
+    }
+
+    /**
+     * This method checks if the position of a model is in the tablebase, having the board of
+     * the tablebase and at most getMaxMarbles() marbles
+     * @param model the model
+     * @return true if getBestScore can be called with the model
+     */
+    public boolean covers(MarbleSolitaireModel model){
+        return model.getScore() >= 1 && model.getScore() <= this.maxMarbles && this.hasShapeOf(model);
+    }
+
+    public int getArm(){return this.arm;}
+
+    public int getMaxMarbles(){return this.maxMarbles;}
+
+    /**
+     * Returns the shape of the board of the tablebase, the slot order of its packed positions
+     * @return the encoding of the board
+     */
+    public BoardEncoding getEncoding(){return this.shape.encoding;}
+
+    /**
+     * This method packs the position of a model into one word
+     * @throws IllegalArgumentException if the model has another board
+     */
+    private long positionOf(MarbleSolitaireModel model) throws IllegalArgumentException{
+        if(!this.hasShapeOf(model)) {
+            throw new IllegalArgumentException(String.format("Invalid board, tablebase is of the English board of arm %d", this.arm));
+        }
+        return this.shape.encoding.encode(BoardEncoding.boardOf(model))[0];
+    }
+
+    /**
+     * This method checks if a model is played on the board of the tablebase, the same size with the
+     * same OfB slots, and the same four jump directions when the model has a geometry
+     * @param model the model
+     * @return true if the slots of the model are those of the tablebase
+     */
+    private boolean hasShapeOf(MarbleSolitaireModel model){
+        if(model instanceof MarbleSolitaireModelImpl
+                && ((MarbleSolitaireModelImpl) model).getGeometry().getDirectionCount() != 4) return false;
+        SlotState[][] board = BoardEncoding.boardOf(model);
+        BoardEncoding encoding = this.shape.encoding;
+        if(board.length != encoding.getDim()) return false;
+        for(int r = 0; r < board.length; r++){
+            for(int c = 0; c < board.length; c++){
+                if((board[r][c] == SlotState.OfB) != (encoding.indexOf(r, c) < 0)) return false;
+            }
+        }
+        return true;
+    }
+
+    public static void main(String[] args) throws IOException{
+        Path path = Paths.get(args.length > 0 ? args[0] : "endgame.mstb");
+        int maxMarbles = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        build(3, maxMarbles, threads, path);
+        long elapsed = System.nanoTime() - start;
+        EndgameTablebase tablebase = open(path);
+        System.out.println(String.format("built %s in %.3f s, %d bytes", path, elapsed / 1e9, HEADER_SIZE + tablebase.shape.bytes));
+        System.out.println("marbles,positions,solvable");
+        for(int k = 1; k <= maxMarbles; k++){
+            long count = tablebase.shape.binomial[tablebase.shape.slots][k];
+            long solvable = 0;
+            for(long i = 0; i < count; i++){
+                long index = tablebase.shape.levelStart[k] + i;
+                if(((tablebase.entries.get((int) (index >>> 1)) >>> ((index & 1) << 2)) & 0xF) == 1) solvable++;
+            }
+            System.out.println(String.format("%d,%d,%d", k, count, solvable));
+        }
+    }
+
+    /**
+     * This class holds the layout of the entries of a board shape
+     */
+    private static final class Shape {
+        private final BoardEncoding encoding;
+        private final int slots;
+        private final int[] jumpFrom;
+        private final int[] jumpOver;
+        private final int[] jumpTo;
+        // binomial[n][k] is C(n, k), for n up to the slot count and k up to the largest marble count
+        private final long[][] binomial;
+        // the index of the first entry of each marble count, even so each level starts a byte
+        private final long[] levelStart;
+        private final int bytes;
+
+        private Shape(int arm, int maxMarbles) throws IllegalArgumentException{
+            if(maxMarbles < 1 || maxMarbles > MAX_MARBLES) {
+                throw new IllegalArgumentException(String.format("Invalid marble count %d, must be from 1 to %d", maxMarbles, MAX_MARBLES));
+            }
+            this.encoding = new BoardEncoding(new MarbleSolitaireModelImpl(arm).getBoard());
+            this.slots = this.encoding.getSlotCount();
+            if(this.slots > Long.SIZE) {
+                throw new IllegalArgumentException(String.format("Invalid arm %d, board has %d slots, at most %d are supported", arm, this.slots, Long.SIZE));
+            }
+            this.jumpFrom = new int[this.encoding.getJumpCount()];
+            this.jumpOver = new int[this.encoding.getJumpCount()];
+            this.jumpTo = new int[this.encoding.getJumpCount()];
+            for(int j = 0; j < this.jumpFrom.length; j++){
+                this.jumpFrom[j] = this.encoding.getJumpFrom(j);
+                this.jumpOver[j] = this.encoding.getJumpOver(j);
+                this.jumpTo[j] = this.encoding.getJumpTo(j);
+            }
+            this.binomial = new long[this.slots + 1][maxMarbles + 1];
+            for(int n = 0; n <= this.slots; n++){
+                this.binomial[n][0] = 1;
+                for(int k = 1; k <= Math.min(n, maxMarbles); k++){
+                    this.binomial[n][k] = this.binomial[n - 1][k - 1] + (k <= n - 1 ? this.binomial[n - 1][k] : 0);
+                }
+            }
+            this.levelStart = new long[maxMarbles + 2];
+            for(int k = 1; k <= maxMarbles; k++){
+                long count = this.binomial[this.slots][k];
+                this.levelStart[k + 1] = this.levelStart[k] + count + (count & 1);
+            }
+            long bytes = this.levelStart[maxMarbles + 1] >>> 1;
+            if(bytes > Integer.MAX_VALUE - HEADER_SIZE) {
+                throw new IllegalArgumentException(String.format("Invalid marble count %d, the tablebase would take %d bytes", maxMarbles, bytes));
+            }
+            this.bytes = (int) bytes;
+        }
+
+        /**
+         * This method returns the index of the entry of a position
+         * @param position the packed marbles
+         * @param marbles the number of marbles of the position
+         * @return the index
+         */
+        private long index(long position, int marbles){
+            long rank = 0;
+            for(int j = 1; position != 0; j++){
+                rank += this.binomial[Long.numberOfTrailingZeros(position)][j];
+                position &= position - 1;
+            }
+            return this.levelStart[marbles] + rank;
+        }
+
+        /**
+         * This method returns the position of a rank among the positions of a marble count
+         * @param rank the rank
+         * @param marbles the number of marbles
+         * @return the packed marbles
+         */
+        private long unrank(long rank, int marbles){
+            long position = 0;
+            int slot = this.slots;
+            for(int j = marbles; j >= 1; j--){
+                do{
+                    slot--;
+                }while(this.binomial[slot][j] > rank);
+                position |= 1L << slot;
+                rank -= this.binomial[slot][j];
+            }
+            return position;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package marblesolitaire.solver;
+
+import marblesolitaire.model.Move;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class is the outcome of a best score optimizer run, the lowest score found, the moves
+ * that reach it, the best proven lower bound of the score, and the statistics of the run
+ */
+public final class OptimizerResult {
+    private final int score;
+    private final int lowerBound;
+    private final List<Move> moves;
+    private final SolverStats stats;
+
+    /**
+     * Constructor of the class
+     * @param score, the number of marbles left by the moves
+     * @param lowerBound, no sequence of moves leaves fewer marbles than this
+     * @param moves, the moves in order
+     * @param stats, the statistics of the run
+     */
+    public OptimizerResult(int score, int lowerBound, List<Move> moves, SolverStats stats){
+        this.score = score;
+        this.lowerBound = lowerBound;
+        this.moves = Collections.unmodifiableList(moves);
+        this.stats = stats;
+    }
+
+    /**
+     * Returns the score left by the moves, the lowest found within the time budget
+     * @return an int, the number of marbles left
+     */
+    public int getScore(){return this.score;}
+
+    /**
+     * Returns the lower bound of the score, equal to the score once it is proven the best
+     * @return an int, no sequence of moves leaves fewer marbles
+     */
+    public int getLowerBound(){return this.lowerBound;}
+
+    /**
+     * Returns if the score is proven to be the lowest possible
+     * @return a boolean, true if no sequence of moves leaves fewer marbles
+     */
+    public boolean isOptimal(){return this.score == this.lowerBound;}
+
+    /**
+     * Returns the moves that reach the score, in the order they should be made
+     * @return an unmodifiable list of moves, empty if no move can be made
+     */
+    public List<Move> getMoves(){return this.moves;}
+
+    public SolverStats getStats(){return this.stats;}
+}
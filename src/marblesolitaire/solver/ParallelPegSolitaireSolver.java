@@ -0,0 +1,253 @@
+package marblesolitaire.solver;
+
+import marblesolitaire.model.MarbleSolitaireModel;
+import marblesolitaire.model.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This is the parallel solver for marble solitaire, it searches for the same result as
+ * PegSolitaireSolver but spreads the search over the worker threads of a ForkJoinPool.
+ * The first splitDepth moves of the search are forked as separate tasks, one per legal move,
+ * and work stealing balances them over the workers. Below that depth each task runs the
+ * sequential depth first search on its own copy of the packed position. All tasks share one
+ * ConcurrentTranspositionTable of dead positions, and stop as soon as any of them finds a
+ * solution or cancel is called.
+ */
+public class ParallelPegSolitaireSolver {
+    private static final int DEFAULT_SPLIT_DEPTH = 6;
+    private static final int MEMORY_SAMPLE_INTERVAL = 1 << 16;
+
+    private final ForkJoinPool pool;
+    private final int splitDepth;
+    private volatile Search current;
+
+    /**
+     * First constructor of the class, uses one worker per available processor
+     */
+    public ParallelPegSolitaireSolver(){
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Second constructor of the class, takes in the number of worker threads
+     * @param parallelism, number of worker threads
+     * @throws IllegalArgumentException if parallelism is not positive
+     */
+    public ParallelPegSolitaireSolver(int parallelism) throws IllegalArgumentException{
+        this(parallelism, DEFAULT_SPLIT_DEPTH);
+    }
+
+    /**
+     * Third constructor of the class, takes in the number of worker threads and the
+     * number of moves from the start that are forked as separate tasks
+     * @param parallelism, number of worker threads
+     * @param splitDepth, depth up to which the search forks tasks
+     * @throws IllegalArgumentException if parallelism is not positive or splitDepth is negative
+     */
+    public ParallelPegSolitaireSolver(int parallelism, int splitDepth) throws IllegalArgumentException{
+        if(parallelism <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid parallelism %d, must be positive", parallelism));
+        }
+        if(splitDepth < 0) {
+            throw new IllegalArgumentException(String.format("Invalid split depth %d, must not be negative", splitDepth));
+        }
+        this.pool = new ForkJoinPool(parallelism);
+        this.splitDepth = splitDepth;
+    }
+
+    /**
+     * This method solves the current position of the model, the model itself is not changed
+     * @param model the model whose position is solved
+     * @return the result, with the moves to make on the model if it is solvable
+     */
+    public SolverResult solve(MarbleSolitaireModel model){
+        BoardEncoding encoding = BoardEncoding.of(model);
+        return this.solve(encoding, encoding.encode(BoardEncoding.boardOf(model)));
+    }
+
+    /**
+     * This method solves a packed position of the given board shape, blocking until a solution
+     * is found, the search is exhausted, or cancel is called
+     * @param encoding the shape of the board
+     * @param position the packed marbles, this array is not changed
+     * @return the result, with the moves to make if it is solvable, if the search was cancelled
+     *         the result is unsolved but does not prove there is no solution
+     */
+    public SolverResult solve(BoardEncoding encoding, long[] position){
+        int marbles = BoardEncoding.count(position);
+        Search search = new Search(encoding, Math.max(0, marbles - 1));
+        this.current = search;
+        long start = System.nanoTime();
+        boolean solved = marbles > 0
+                && this.pool.invoke(new SearchTask(search, position.clone(), marbles, new int[search.moves], 0));
+        long elapsed = System.nanoTime() - start;
+        this.current = null;
+        search.sampleMemory();
+
+        List<Move> moves = new ArrayList<>();
+        if(solved){
+            for(int jump : search.solution.get()){
+                moves.add(encoding.toMove(jump));
+            }
+        }
+        SolverStats stats = new SolverStats(search.nodes.sum(), elapsed, search.table.getLookups(),
+                search.table.getHits(), search.table.size(), search.peakMemory.get());
+        return new SolverResult(solved, moves, stats);
+    }
+
+    /**
+     * This method stops the running solve call, if any, as soon as its tasks notice,
+     * it can be called from any thread
+     */
+    public void cancel(){
+        Search search = this.current;
+        if(search != null) search.cancelled = true;
+    }
+
+    /**
+     * Returns the number of worker threads of this solver
+     * @return an int, the parallelism
+     */
+    public int getParallelism(){
+        return this.pool.getParallelism();
+    }
+
+    /**
+     * This method stops the worker threads, the solver cannot be used afterwards
+     */
+    public void shutdown(){
+        this.pool.shutdown();
+    }
+
+    /**
+     * This class holds the state shared by all tasks of one solve call
+     */
+    private static final class Search {
+        private final BoardEncoding encoding;
+        private final int moves;
+        private final ConcurrentTranspositionTable table;
+        private final AtomicReference<int[]> solution = new AtomicReference<>();
+        private final LongAdder nodes = new LongAdder();
+        private final LongAccumulator peakMemory = new LongAccumulator(Math::max, 0);
+        private volatile boolean cancelled = false;
+
+        private Search(BoardEncoding encoding, int moves){
+            this.encoding = encoding;
+            this.moves = moves;
+            this.table = new ConcurrentTranspositionTable(encoding.getWords());
+        }
+
+        private boolean stopped(){
+            return this.cancelled || this.solution.get() != null;
+        }
+
+        private void sampleMemory(){
+            Runtime runtime = Runtime.getRuntime();
+            this.peakMemory.accumulate(runtime.totalMemory() - runtime.freeMemory());
+        }
+    }
+
+    /**
+     * This class is one task of the search, it owns its position and the path of jumps that led to it
+     */
+    private final class SearchTask extends RecursiveTask<Boolean> {
+        private static final long serialVersionUID = 1L;
+
+        private final Search search;
+        private final long[] position;
+        private final int marbles;
+        private final int[] path;
+        private final int depth;
+        private long nodes = 0;
+
+        private SearchTask(Search search, long[] position, int marbles, int[] path, int depth){
+            this.search = search;
+            this.position = position;
+            this.marbles = marbles;
+            this.path = path;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if(this.depth >= ParallelPegSolitaireSolver.this.splitDepth){
+                boolean solved = this.searchSequential(this.marbles, this.depth);
+                this.search.nodes.add(this.nodes);
+                return solved;
+            }
+            if(this.search.stopped()) return false;
+            if(this.marbles == 1) return this.found();
+            if(this.search.table.contains(this.position)) return false;
+            this.search.nodes.increment();
+
+            BoardEncoding enc = this.search.encoding;
+            List<SearchTask> children = new ArrayList<>();
+            for(int j = 0; j < enc.getJumpCount(); j++){
+                int from = enc.getJumpFrom(j);
+                int over = enc.getJumpOver(j);
+                int to = enc.getJumpTo(j);
+                if(!PegSolitaireSolver.isSet(this.position, from) || !PegSolitaireSolver.isSet(this.position, over)
+                        || PegSolitaireSolver.isSet(this.position, to)) continue;
+                long[] child = this.position.clone();
+                PegSolitaireSolver.flip(child, from, over, to);
+                int[] childPath = this.path.clone();
+                childPath[this.depth] = j;
+                children.add(new SearchTask(this.search, child, this.marbles - 1, childPath, this.depth + 1));
+            }
+            boolean solved = false;
+            for(SearchTask task : invokeAll(children)){
+                solved |= task.join();
+            }
+            // a stopped subtree was not fully searched, so it is not known to be dead
+            if(!solved && !this.search.stopped()) this.search.table.add(this.position);
+            return solved;
+        }
+
+        /**
+         * This method is the sequential search below the split depth, same as
+         * PegSolitaireSolver.search but giving up as soon as the search is stopped
+         * @param marbles the number of marbles in the position
+         * @param depth the number of moves made from the start
+         * @return true if the position can be reduced to one marble
+         */
+        private boolean searchSequential(int marbles, int depth){
+            if(this.search.stopped()) return false;
+            if(marbles == 1) return this.found();
+            if(this.search.table.contains(this.position)) return false;
+            if((++this.nodes & (MEMORY_SAMPLE_INTERVAL - 1)) == 0) this.search.sampleMemory();
+
+            BoardEncoding enc = this.search.encoding;
+            long[] pos = this.position;
+            for(int j = 0; j < enc.getJumpCount(); j++){
+                int from = enc.getJumpFrom(j);
+                int over = enc.getJumpOver(j);
+                int to = enc.getJumpTo(j);
+                if(!PegSolitaireSolver.isSet(pos, from) || !PegSolitaireSolver.isSet(pos, over)
+                        || PegSolitaireSolver.isSet(pos, to)) continue;
+                PegSolitaireSolver.flip(pos, from, over, to);
+                this.path[depth] = j;
+                boolean solved = this.searchSequential(marbles - 1, depth + 1);
+                PegSolitaireSolver.flip(pos, from, over, to);
+                if(solved) return true;
+            }
+            if(!this.search.stopped()) this.search.table.add(pos);
+            return false;
+        }
+
+        /**
+         * This method publishes the path of this task as the solution, unless another task was first
+         * @return true, the position is solved either way
+         */
+        private boolean found(){
+            this.search.solution.compareAndSet(null, this.path.clone());
+            return true;
+        }
+    }
+}
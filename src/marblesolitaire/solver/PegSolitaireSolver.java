@@ -0,0 +1,184 @@
+package marblesolitaire.solver;
+
+import marblesolitaire.model.MarbleSolitaireModel;
+import marblesolitaire.model.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is the solver for marble solitaire. It takes any MarbleSolitaireModel position and
+ * searches for a sequence of moves that leaves exactly one marble on the board, or proves
+ * that none exists. The search is a depth first search over the packed position, every
+ * position found to be dead is stored in a transposition table so it is never searched twice.
+ * Optionally positions are stored in their canonical form under the symmetries of the board,
+ * so a dead position also prunes all of its rotations and reflections, which saves memory
+ * on long exhaustive searches at the cost of canonicalizing every position.
+ * Optionally the search is pruned with SolverPruning: the root is checked with all of its
+ * tests, and every other position with its pagoda functions, which are kept up to date move by
+ * move. A position proven unable to reach one marble is cut off without searching its moves.
+ * The live region bound is only used at the root, measured over the whole tree it costs more
+ * time than the few positions it cuts off save.
+ * A solver object is not thread safe, but can be reused for many solve calls.
+ */
+public class PegSolitaireSolver {
+    // how many nodes between two samples of the used heap
+    private static final int MEMORY_SAMPLE_INTERVAL = 1 << 16;
+
+    private final boolean useSymmetry;
+    private final boolean usePruning;
+
+    private BoardEncoding encoding;
+    private BoardSymmetry symmetry;
+    private SolverPruning pruning;
+    private long[] key;
+    private TranspositionTable table;
+    private int[] path;
+    private long nodes;
+    private long pruned;
+    private long peakMemory;
+
+    /**
+     * First constructor of the class, the solver keys its table on the positions as they are
+     */
+    public PegSolitaireSolver(){
+        this(false, false);
+    }
+
+    /**
+     * Second constructor of the class
+     * @param useSymmetry, true to key the table on canonical positions,
+     *                     false to key it on the positions as they are
+     */
+    public PegSolitaireSolver(boolean useSymmetry){
+        this(useSymmetry, false);
+    }
+
+    /**
+     * Third constructor of the class
+     * @param useSymmetry, true to key the table on canonical positions,
+     *                     false to key it on the positions as they are
+     * @param usePruning, true to cut off the positions SolverPruning proves dead
+     */
+    public PegSolitaireSolver(boolean useSymmetry, boolean usePruning){
+        this.useSymmetry = useSymmetry;
+        this.usePruning = usePruning;
+    }
+
+    /**
+     * This method solves the current position of the model, the model itself is not changed
+     * @param model the model whose position is solved
+     * @return the result, with the moves to make on the model if it is solvable
+     */
+    public SolverResult solve(MarbleSolitaireModel model){
+        BoardEncoding encoding = BoardEncoding.of(model);
+        return this.solve(encoding, encoding.encode(BoardEncoding.boardOf(model)));
+    }
+
+    /**
+     * This method solves a packed position of the given board shape
+     * @param encoding the shape of the board
+     * @param position the packed marbles, this array is not changed
+     * @return the result, with the moves to make if it is solvable
+     */
+    public SolverResult solve(BoardEncoding encoding, long[] position){
+        if(this.encoding != encoding){
+            this.symmetry = this.useSymmetry ? new BoardSymmetry(encoding) : null;
+        }
+        this.encoding = encoding;
+        this.key = new long[encoding.getWords()];
+        this.table = new TranspositionTable(encoding.getWords());
+        int marbles = BoardEncoding.count(position);
+        this.path = new int[Math.max(0, marbles - 1)];
+        this.pruning = this.usePruning ? new SolverPruning(encoding, position) : null;
+        this.nodes = 0;
+        this.pruned = 0;
+        this.peakMemory = usedMemory();
+
+        long start = System.nanoTime();
+        boolean solved = marbles > 0 && (this.pruning == null || this.pruning.canReachOne(position))
+                && this.search(position.clone(), marbles);
+        long elapsed = System.nanoTime() - start;
+        this.peakMemory = Math.max(this.peakMemory, usedMemory());
+
+        List<Move> moves = new ArrayList<>();
+        if(solved){
+            for(int jump : this.path){
+                moves.add(encoding.toMove(jump));
+            }
+        }
+        SolverStats stats = new SolverStats(this.nodes, elapsed, this.table.getLookups(),
+                this.table.getHits(), this.table.size(), this.peakMemory, this.pruned);
+        return new SolverResult(solved, moves, stats);
+    }
+
+    /**
+     * This method is the recursive search, it tries every legal jump from the position
+     * in place and undoes it on the way back, recording the jumps of the solution in path
+     * @param position the packed marbles, changed during the search and restored before returning
+     * @param marbles the number of marbles in the position
+     * @return true if the position can be reduced to one marble
+     */
+    private boolean search(long[] position, int marbles){
+        if(marbles == 1) return true;
+        if(this.table.contains(this.keyOf(position))) return false;
+        if((++this.nodes & (MEMORY_SAMPLE_INTERVAL - 1)) == 0){
+            this.peakMemory = Math.max(this.peakMemory, usedMemory());
+        }
+        if(this.pruning != null && !this.pruning.isTrackedAlive()){
+            this.pruned++;
+            this.table.add(this.keyOf(position));
+            return false;
+        }
+        BoardEncoding enc = this.encoding;
+        int depth = this.path.length - (marbles - 1);
+        for(int j = 0; j < enc.getJumpCount(); j++){
+            int from = enc.getJumpFrom(j);
+            int over = enc.getJumpOver(j);
+            int to = enc.getJumpTo(j);
+            if(!isSet(position, from) || !isSet(position, over) || isSet(position, to)) continue;
+            flip(position, from, over, to);
+            if(this.pruning != null) this.pruning.jump(j);
+            this.path[depth] = j;
+            boolean solved = this.search(position, marbles - 1);
+            flip(position, from, over, to);
+            if(this.pruning != null) this.pruning.undo(j);
+            if(solved) return true;
+        }
+        this.table.add(this.keyOf(position));
+        return false;
+    }
+
+    /**
+     * This method returns the table key of a position, its canonical form if symmetry is used
+     * @param position the packed position
+     * @return the key, only valid until the next call
+     */
+    private long[] keyOf(long[] position){
+        if(this.symmetry == null) return position;
+        this.symmetry.canonicalize(position, this.key);
+        return this.key;
+    }
+
+    static boolean isSet(long[] bits, int slot){
+        return (bits[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    /**
+     * This method applies a jump to a packed position, or undoes it when applied again
+     * @param bits the packed position
+     * @param from slot of the jumping marble
+     * @param over slot of the marble jumped over
+     * @param to slot the marble lands on
+     */
+    static void flip(long[] bits, int from, int over, int to){
+        bits[from >>> 6] ^= 1L << from;
+        bits[over >>> 6] ^= 1L << over;
+        bits[to >>> 6] ^= 1L << to;
+    }
+
+    private static long usedMemory(){
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,47 @@
+package marblesolitaire.solver;
+
+import marblesolitaire.model.BoardGeometry;
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+
+/**
+ * This class measures how much SolverPruning saves, solving the same positions with and without
+ * it and comparing the nodes visited and the time taken. Run it without arguments to measure the
+ * default board from a few empty slots and the other board shapes, solvable and unsolvable,
+ * it prints one CSV line per position.
+ */
+public class PruningSpeedup {
+
+    /**
+     * This method solves a model without and with pruning
+     * @param model the position to solve, not changed
+     * @return an array of the run without pruning and the run with pruning
+     */
+    public static SolverResult[] measure(MarbleSolitaireModelImpl model){
+        return new SolverResult[]{new PegSolitaireSolver(false, false).solve(model),
+                new PegSolitaireSolver(false, true).solve(model)};
+    }
+
+    public static void main(String[] args){
+        String[] names = {"english 3,3", "english 2,3", "english 0,2", "english 1,3", "european 2,3", "triangular 0,0", "hexagonal 1,1",
+                "hexagonal 2,2", "hexagonal 0,1"};
+        MarbleSolitaireModelImpl[] models = {new MarbleSolitaireModelImpl(3, 3, 3), new MarbleSolitaireModelImpl(3, 2, 3),
+                new MarbleSolitaireModelImpl(3, 0, 2), new MarbleSolitaireModelImpl(3, 1, 3),
+                new MarbleSolitaireModelImpl(BoardGeometry.european(), 2, 3),
+                new MarbleSolitaireModelImpl(BoardGeometry.triangular(5), 0, 0),
+                new MarbleSolitaireModelImpl(BoardGeometry.hexagonal(3), 1, 1),
+                new MarbleSolitaireModelImpl(BoardGeometry.hexagonal(3), 2, 2),
+                new MarbleSolitaireModelImpl(BoardGeometry.hexagonal(3), 0, 1)};
+        // one untimed pass to warm up the JIT
+        measure(new MarbleSolitaireModelImpl(3, 2, 3));
+        System.out.println("position,solved,nodes,pruned_nodes,seconds,pruned_run_nodes,prune_rate,pruned_seconds,node_reduction,speedup");
+        for(int i = 0; i < models.length; i++){
+            SolverResult[] results = measure(models[i]);
+            SolverStats plain = results[0].getStats();
+            SolverStats pruned = results[1].getStats();
+            System.out.println(String.format("%s,%b,%d,%d,%.3f,%d,%.4f,%.3f,%.2f,%.2f", names[i], results[1].isSolved(),
+                    plain.getNodes(), plain.getPrunedNodes(), plain.getElapsedNanos() / 1e9, pruned.getNodes(),
+                    pruned.getPruneRate(), pruned.getElapsedNanos() / 1e9,
+                    (double) plain.getNodes() / pruned.getNodes(), (double) plain.getElapsedNanos() / pruned.getElapsedNanos()));
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package marblesolitaire.solver;
+
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * This class counts the positions reachable from a start, level by level. Every move removes
+ * one marble, so the positions after m moves all have the same score and form one level, and
+ * each level is made only from the one before it. A level is kept on disk as a file of
+ * positions, each a record of the BoardEncoding.getWords() long words of its bitset, sorted
+ * and without duplicates. The next level is made by reading the file, collecting the positions
+ * one move away in a bounded buffer, writing each full buffer sorted and deduplicated as a run
+ * file, then merging the runs into the level file, so the heap holds one buffer and a small read
+ * buffer per run whatever the size of the level. A level file is only renamed into place once
+ * complete, so an interrupted run is resumed from the last complete level by running again on
+ * the same directory. Boards of every arm are supported, a board of more than 64 slots just
+ * takes more than one word per position.
+ */
+public class ReachableStateEnumerator {
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 22;
+    private static final int READ_BUFFER_SIZE = 1 << 13;
+
+    private final int arm;
+    private final int sRow;
+    private final int sCol;
+    private final Path directory;
+    private final int bufferSize;
+    private final BoardEncoding encoding;
+    // the number of long words of every position, and the bytes of a position in a file
+    private final int words;
+    private final int recordBytes;
+    private final long[] start;
+    // for jump j, words j * words to (j + 1) * words hold the slots of the jump as one mask,
+    // and the slots that must hold a marble
+    private final long[] jumpMask;
+    private final long[] jumpNeed;
+
+    /**
+     * First constructor of the class, takes in the start and the directory of the level files,
+     * collects up to 4 million positions in memory before writing a run
+     * @param arm arm thickness of the board
+     * @param sRow empty spot row coordinate
+     * @param sCol empty spot col coordinate
+     * @param directory the directory of the level files, created if needed
+     * @throws IllegalArgumentException if the start is invalid
+     */
+    public ReachableStateEnumerator(int arm, int sRow, int sCol, Path directory) throws IllegalArgumentException{
+        this(arm, sRow, sCol, directory, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Second constructor of the class, takes in the start, the directory of the level files
+     * and the number of positions collected in memory before writing a run
+     * @param arm arm thickness of the board
+     * @param sRow empty spot row coordinate
+     * @param sCol empty spot col coordinate
+     * @param directory the directory of the level files, created if needed
+     * @param bufferSize number of positions held in memory, at least 16
+     * @throws IllegalArgumentException if the start is invalid, or bufferSize is too small or
+     *                                  too large for one array of the positions of the board
+     */
+    public ReachableStateEnumerator(int arm, int sRow, int sCol, Path directory, int bufferSize) throws IllegalArgumentException{
+        MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(arm, sRow, sCol);
+        this.encoding = new BoardEncoding(model.getBoard());
+        this.words = this.encoding.getWords();
+        if(bufferSize < 16 || (long) bufferSize * this.words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(String.format("Invalid buffer size %d, must be at least 16 and at most %d", bufferSize, (Integer.MAX_VALUE - 8) / this.words));
+        }
+        this.arm = arm;
+        this.sRow = sRow;
+        this.sCol = sCol;
+        this.directory = directory;
+        this.bufferSize = bufferSize;
+        this.recordBytes = this.words * Long.BYTES;
+        this.start = this.encoding.encode(model.getBoard());
+        this.jumpMask = new long[this.encoding.getJumpCount() * this.words];
+        this.jumpNeed = new long[this.jumpMask.length];
+        for(int j = 0; j < this.encoding.getJumpCount(); j++){
+            int base = j * this.words;
+            set(this.jumpNeed, base, this.encoding.getJumpFrom(j));
+            set(this.jumpNeed, base, this.encoding.getJumpOver(j));
+            System.arraycopy(this.jumpNeed, base, this.jumpMask, base, this.words);
+            set(this.jumpMask, base, this.encoding.getJumpTo(j));
+        }
+    }
+
+    /**
+     * This method enumerates the levels down to a number of marbles, or until no moves are left,
+     * reusing the complete level files already in the directory
+     * @param minMarbles the fewest marbles of a level to enumerate
+     * @return an array of the number of positions of each level, element m is the level after m moves
+     * @throws IOException if reading or writing a file fails
+     */
+    public long[] run(int minMarbles) throws IOException{
+        Files.createDirectories(this.directory);
+        int marbles = BoardEncoding.count(this.start);
+        Path level = this.levelPath(marbles);
+        if(!Files.exists(level)){
+            try(RecordWriter writer = new RecordWriter(this.temporary(level))){
+                writer.write(this.start, 0, this.words);
+            }
+            Files.move(this.temporary(level), level, StandardCopyOption.ATOMIC_MOVE);
+        }
+        List<Long> counts = new ArrayList<>();
+        counts.add(Files.size(level) / this.recordBytes);
+        while(marbles > Math.max(1, minMarbles) && counts.get(counts.size() - 1) > 0){
+            Path next = this.levelPath(marbles - 1);
+            if(!Files.exists(next)) this.expand(level, next);
+            counts.add(Files.size(next) / this.recordBytes);
+            level = next;
+            marbles--;
+        }
+        if(counts.get(counts.size() - 1) == 0) counts.remove(counts.size() - 1);
+        long[] result = new long[counts.size()];
+        for(int i = 0; i < result.length; i++){
+            result[i] = counts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * This method returns the file of a level, named after the start and the number of marbles
+     * @param marbles the number of marbles of the level
+     * @return the path of the file
+     */
+    public Path levelPath(int marbles){
+        return this.directory.resolve(String.format("arm%d-%d-%d-level-%02d.bin", this.arm, this.sRow, this.sCol, marbles));
+    }
+
+    /**
+     * This method makes the level file of the positions one move away from a level file
+     * @param level the complete level file
+     * @param next the file of the next level, written under a temporary name then renamed
+     * @throws IOException if reading or writing a file fails
+     */
+    private void expand(Path level, Path next) throws IOException{
+        List<Path> runs = new ArrayList<>();
+        long[] buffer = new long[this.bufferSize * this.words];
+        int size = 0;
+        try{
+            try(RecordReader reader = new RecordReader(level, this.words, READ_BUFFER_SIZE * 8)){
+                while(reader.next()){
+                    long[] position = reader.head;
+                    for(int base = 0; base < this.jumpMask.length; base += this.words){
+                        if(!this.canJump(position, base)) continue;
+                        if(size == this.bufferSize){
+                            size = sortUnique(buffer, size, this.words);
+                            // only write a run once deduplicating no longer frees enough room
+                            if(size > this.bufferSize / 2){
+                                runs.add(this.writeRun(next, runs.size(), buffer, size));
+                                size = 0;
+                            }
+                        }
+                        int at = size++ * this.words;
+                        for(int w = 0; w < this.words; w++){
+                            buffer[at + w] = position[w] ^ this.jumpMask[base + w];
+                        }
+                    }
+                }
+            }
+            size = sortUnique(buffer, size, this.words);
+            if(runs.isEmpty()){
+                try(RecordWriter writer = new RecordWriter(this.temporary(next))){
+                    writer.write(buffer, 0, size * this.words);
+                }
+            }else{
+                if(size > 0) runs.add(this.writeRun(next, runs.size(), buffer, size));
+                buffer = null;
+                this.merge(runs, this.temporary(next));
+            }
+            Files.move(this.temporary(next), next, StandardCopyOption.ATOMIC_MOVE);
+        }finally{
+            for(Path run : runs){
+                Files.deleteIfExists(run);
+            }
+            Files.deleteIfExists(this.temporary(next));
+        }
+    }
+
+    /**
+     * This method tests if a jump can be made on a position
+     * @param position the words of the position
+     * @param base the first word of the masks of the jump
+     * @return true if from and over hold a marble and to is empty
+     */
+    private boolean canJump(long[] position, int base){
+        for(int w = 0; w < this.words; w++){
+            if((position[w] & this.jumpMask[base + w]) != this.jumpNeed[base + w]) return false;
+        }
+        return true;
+    }
+
+    private Path writeRun(Path next, int index, long[] buffer, int size) throws IOException{
+        Path run = next.resolveSibling(next.getFileName() + ".run" + index);
+        try(RecordWriter writer = new RecordWriter(run)){
+            writer.write(buffer, 0, size * this.words);
+        }
+        return run;
+    }
+
+    /**
+     * This method merges sorted run files into one sorted file without duplicates
+     * @param runs the run files
+     * @param out the merged file
+     * @throws IOException if reading or writing a file fails
+     */
+    private void merge(List<Path> runs, Path out) throws IOException{
+        int words = this.words;
+        PriorityQueue<RecordReader> heads = new PriorityQueue<>((a, b) -> compare(a.head, 0, b.head, 0, words));
+        try(RecordWriter writer = new RecordWriter(out)){
+            for(Path run : runs){
+                RecordReader reader = new RecordReader(run, words, READ_BUFFER_SIZE);
+                if(reader.next()) heads.add(reader);
+                else reader.close();
+            }
+            boolean first = true;
+            long[] last = new long[words];
+            while(!heads.isEmpty()){
+                RecordReader reader = heads.poll();
+                if(first || compare(reader.head, 0, last, 0, words) != 0){
+                    writer.write(reader.head, 0, words);
+                    System.arraycopy(reader.head, 0, last, 0, words);
+                }
+                first = false;
+                if(reader.next()) heads.add(reader);
+                else reader.close();
+            }
+        }finally{
+            for(RecordReader reader : heads){
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * This method sorts the first size positions of the buffer and removes duplicates, positions
+     * are ordered word by word, each word unsigned
+     * @param buffer the buffer, position i in words i * words to (i + 1) * words
+     * @param size the number of positions
+     * @param words the number of words of a position
+     * @return the number of distinct positions, now at the start of the buffer
+     */
+    private static int sortUnique(long[] buffer, int size, int words){
+        if(words == 1){
+            // flipping the sign bit makes signed order unsigned order
+            for(int i = 0; i < size; i++){
+                buffer[i] ^= Long.MIN_VALUE;
+            }
+            Arrays.sort(buffer, 0, size);
+            for(int i = 0; i < size; i++){
+                buffer[i] ^= Long.MIN_VALUE;
+            }
+        }else{
+            heapSort(buffer, size, words);
+        }
+        int unique = 0;
+        for(int i = 0; i < size; i++){
+            if(unique > 0 && compare(buffer, i * words, buffer, (unique - 1) * words, words) == 0) continue;
+            if(unique != i) System.arraycopy(buffer, i * words, buffer, unique * words, words);
+            unique++;
+        }
+        return unique;
+    }
+
+    /**
+     * This method sorts the first size positions of the buffer in place, for positions of
+     * more than one word, so the buffer needs no second copy to sort
+     */
+    private static void heapSort(long[] buffer, int size, int words){
+        for(int i = size / 2 - 1; i >= 0; i--){
+            siftDown(buffer, i, size, words);
+        }
+        for(int end = size - 1; end > 0; end--){
+            swap(buffer, 0, end, words);
+            siftDown(buffer, 0, end, words);
+        }
+    }
+
+    private static void siftDown(long[] buffer, int i, int size, int words){
+        while(2 * i + 1 < size){
+            int child = 2 * i + 1;
+            if(child + 1 < size && compare(buffer, (child + 1) * words, buffer, child * words, words) > 0) child++;
+            if(compare(buffer, i * words, buffer, child * words, words) >= 0) return;
+            swap(buffer, i, child, words);
+            i = child;
+        }
+    }
+
+    private static void swap(long[] buffer, int i, int j, int words){
+        for(int w = 0; w < words; w++){
+            long t = buffer[i * words + w];
+            buffer[i * words + w] = buffer[j * words + w];
+            buffer[j * words + w] = t;
+        }
+    }
+
+    /**
+     * This method compares two positions word by word, each word unsigned
+     * @return a negative int, zero or a positive int as the first position is before, equal or after the second
+     */
+    private static int compare(long[] a, int aBase, long[] b, int bBase, int words){
+        for(int w = 0; w < words; w++){
+            int c = Long.compareUnsigned(a[aBase + w], b[bBase + w]);
+            if(c != 0) return c;
+        }
+        return 0;
+    }
+
+    private static void set(long[] bits, int base, int slot){
+        bits[base + (slot >>> 6)] |= 1L << slot;
+    }
+
+    private Path temporary(Path level){
+        return level.resolveSibling(level.getFileName() + ".tmp");
+    }
+
+    /**
+     * This class reads a file of fixed width positions through a fixed buffer
+     */
+    private static final class RecordReader implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final int bytes;
+        // the position read by the last call to next
+        private final long[] head;
+        private boolean ended = false;
+
+        private RecordReader(Path path, int words, int bufferBytes) throws IOException{
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.head = new long[words];
+            this.bytes = words * Long.BYTES;
+            this.buffer = ByteBuffer.allocateDirect(Math.max(bufferBytes, this.bytes));
+            this.buffer.limit(0);
+        }
+
+        /**
+         * This method reads the next position into head
+         * @return true if a position was read, false at the end of the file
+         * @throws IOException if reading fails
+         */
+        private boolean next() throws IOException{
+            while(this.buffer.remaining() < this.bytes && !this.ended){
+                this.buffer.compact();
+                this.ended = this.channel.read(this.buffer) < 0;
+                this.buffer.flip();
+            }
+            if(this.buffer.remaining() < this.bytes) return false;
+            for(int w = 0; w < this.head.length; w++){
+                this.head[w] = this.buffer.getLong();
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException{
+            this.channel.close();
+        }
+    }
+
+    /**
+     * This class writes a file of longs through a fixed buffer
+     */
+    private static final class RecordWriter implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE * 8);
+
+        private RecordWriter(Path path) throws IOException{
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        }
+
+        /**
+         * This method writes count longs of an array, a whole number of positions
+         */
+        private void write(long[] values, int offset, int count) throws IOException{
+            for(int i = offset; i < offset + count; i++){
+                if(this.buffer.remaining() < Long.BYTES) this.flush();
+                this.buffer.putLong(values[i]);
+            }
+        }
+
+        private void flush() throws IOException{
+            this.buffer.flip();
+            while(this.buffer.hasRemaining()){
+                this.channel.write(this.buffer);
+            }
+            this.buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException{
+            try{
+                this.flush();
+            }finally{
+                this.channel.close();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException{
+        int arm = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int sRow = args.length > 2 ? Integer.parseInt(args[1]) : arm;
+        int sCol = args.length > 2 ? Integer.parseInt(args[2]) : arm;
+        Path directory = Paths.get(args.length > 3 ? args[3] : "levels");
+        int minMarbles = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+
+        ReachableStateEnumerator enumerator = new ReachableStateEnumerator(arm, sRow, sCol, directory);
+        long begin = System.nanoTime();
+        long[] counts = enumerator.run(minMarbles);
+        int marbles = BoardEncoding.count(enumerator.start);
+        System.out.println("moves,score,positions");
+        long total = 0;
+        for(int m = 0; m < counts.length; m++){
+            System.out.println(String.format("%d,%d,%d", m, marbles - m, counts[m]));
+            total += counts[m];
+        }
+        System.out.println(String.format("total %d positions in %.3f s", total, (System.nanoTime() - begin) / 1e9));
+    }
+}
@@ -0,0 +1,110 @@
+package marblesolitaire.solver;
+
+/**
+ * This class is the memo of the best score optimizer, a hash map from positions to a lower bound
+ * of the score they can be reduced to. Keys are packed bitsets of a fixed number of long words,
+ * stored flat in one long array with open addressing and linear probing like the
+ * TranspositionTable, with the bounds in a parallel int array. The table stops taking new
+ * positions once it holds its maximum number of entries, so a long search cannot run out of
+ * memory, the positions already stored keep being raised.
+ */
+public class ScoreTable {
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private final int words;
+    private final int maxEntries;
+    private long[] keys;
+    private int[] bounds;
+    private int mask;
+    private int size = 0;
+
+    private long lookups = 0;
+    private long hits = 0;
+
+    /**
+     * Constructor of the class, takes in the key width in words and the most entries to store
+     * @param words, number of long words in every key
+     * @param maxEntries, number of positions after which new ones are no longer stored
+     */
+    public ScoreTable(int words, int maxEntries){
+        this.words = words;
+        this.maxEntries = maxEntries;
+        this.allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * This method returns the stored bound of a key, counted in the lookup statistics
+     * @param key the packed position
+     * @return the bound, 0 if the key is not in the table
+     */
+    public int get(long[] key){
+        this.lookups++;
+        int slot = TranspositionTable.hash(key) & this.mask;
+        while(this.bounds[slot] != 0){
+            if(this.matches(slot, key)){
+                this.hits++;
+                return this.bounds[slot];
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return 0;
+    }
+
+    /**
+     * This method raises the stored bound of a key, adding a copy of the key if it is not in the
+     * table and the table is not full, a lower bound never goes down
+     * @param key the packed position
+     * @param bound the lower bound of the score of the position, at least 1
+     */
+    public void raise(long[] key, int bound){
+        int slot = TranspositionTable.hash(key) & this.mask;
+        while(this.bounds[slot] != 0){
+            if(this.matches(slot, key)){
+                this.bounds[slot] = Math.max(this.bounds[slot], bound);
+                return;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        if(this.size >= this.maxEntries) return;
+        this.bounds[slot] = bound;
+        System.arraycopy(key, 0, this.keys, slot * this.words, this.words);
+        if(++this.size * 2 > this.bounds.length) this.grow();
+    }
+
+    public int size(){return this.size;}
+
+    public long getLookups(){return this.lookups;}
+
+    public long getHits(){return this.hits;}
+
+    private boolean matches(int slot, long[] key){
+        int base = slot * this.words;
+        for(int w = 0; w < this.words; w++){
+            if(this.keys[base + w] != key[w]) return false;
+        }
+        return true;
+    }
+
+    private void allocate(int capacity){
+        this.keys = new long[capacity * this.words];
+        this.bounds = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * This method doubles the capacity and re-inserts every key with its bound
+     */
+    private void grow(){
+        long[] oldKeys = this.keys;
+        int[] oldBounds = this.bounds;
+        this.allocate(oldBounds.length * 2);
+        this.size = 0;
+        long[] key = new long[this.words];
+        for(int slot = 0; slot < oldBounds.length; slot++){
+            if(oldBounds[slot] != 0){
+                System.arraycopy(oldKeys, slot * this.words, key, 0, this.words);
+                this.raise(key, oldBounds[slot]);
+            }
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package marblesolitaire.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class proves positions of a board dead without searching them, for a solver looking for
+ * a sequence of moves from a root position. It combines three tests, cheapest first:
+ * Position classes, the counts of marbles on the diagonals (a * row + b * col) mod 3, for each
+ * of the forms for which every jump direction of the board covers all three residues. A jump
+ * changes the count of each residue by one, so the parities of the sums of two residue counts
+ * never change, and only the slots whose single marble has the same parities as the root can
+ * hold the last marble. These slots are found once, for the root.
+ * Pagoda functions, one per possible last slot s, weighing slot t by phi^-d(t, s) with phi the
+ * golden ratio and d the number of steps between the slots. No jump can raise the total weight
+ * of the marbles, so a position whose weight is below 1 for every possible last slot cannot be
+ * reduced to one marble.
+ * Live regions, the slots that can ever hold a marble again, found by letting jumps fill slots
+ * until nothing changes, joined by the jumps whose three slots are all live. A jump stays inside
+ * one region and leaves a marble in it, so each region holding a marble keeps at least one, and
+ * the number of such regions is a lower bound of the final score. An isolated marble that
+ * nothing can reach is its own region.
+ * A solver walking the tree keeps the pagoda weights of its current position up to date with
+ * reset, jump and undo, so checking a position costs one comparison per possible last slot.
+ * The weights are kept as fixed point longs so undoing a jump restores them exactly.
+ * An object is used by one solver thread at a time.
+ */
+public final class SolverPruning {
+    private static final double PHI = (1 + Math.sqrt(5)) / 2;
+    private static final double EPSILON = 1e-9;
+    // fixed point scale of the tracked weights, rounding stays far below EPSILON over any game
+    private static final double SCALE = 1L << 40;
+    private static final long ONE = (long) ((1 - EPSILON) * SCALE);
+    private static final int[][] FORMS = {{1, 1}, {1, 2}};
+
+    private final BoardEncoding encoding;
+    // pagoda[f][slot] is the weight of slot under the pagoda function of the f-th possible last slot
+    private final double[][] pagoda;
+    // delta[j * lastSlots + f] is the change of the f-th tracked weight made by jump j
+    private final long[] delta;
+    private final long[] weights;
+    private final long[] live;
+    // the jumps from or over slot are feeds[feedStart[slot], feedStart[slot + 1])
+    private final int[] feedStart;
+    private final int[] feeds;
+    private final int[] stack;
+    private final int[] parent;
+    private final boolean[] counted;
+
+    /**
+     * Constructor of the class, finds the slots that can hold the last marble from the root
+     * @param encoding the shape of the board
+     * @param root the packed marbles of the root position, not changed
+     */
+    public SolverPruning(BoardEncoding encoding, long[] root){
+        this.encoding = encoding;
+        this.live = new long[encoding.getWords()];
+        this.parent = new int[encoding.getSlotCount()];
+        this.counted = new boolean[encoding.getSlotCount()];
+        this.stack = new int[encoding.getSlotCount()];
+        this.feedStart = new int[encoding.getSlotCount() + 1];
+        for(int j = 0; j < encoding.getJumpCount(); j++){
+            this.feedStart[encoding.getJumpFrom(j) + 1]++;
+            this.feedStart[encoding.getJumpOver(j) + 1]++;
+        }
+        for(int s = 0; s < encoding.getSlotCount(); s++){
+            this.feedStart[s + 1] += this.feedStart[s];
+        }
+        this.feeds = new int[this.feedStart[encoding.getSlotCount()]];
+        int[] next = Arrays.copyOf(this.feedStart, encoding.getSlotCount());
+        for(int j = 0; j < encoding.getJumpCount(); j++){
+            this.feeds[next[encoding.getJumpFrom(j)]++] = j;
+            this.feeds[next[encoding.getJumpOver(j)]++] = j;
+        }
+
+        List<int[]> forms = new ArrayList<>();
+        for(int[] form : FORMS){
+            boolean covers = true;
+            for(int j = 0; j < encoding.getJumpCount() && covers; j++){
+                int from = encoding.getJumpFrom(j);
+                int over = encoding.getJumpOver(j);
+                int to = encoding.getJumpTo(j);
+                covers = residue(form, from) != residue(form, over) && residue(form, over) != residue(form, to)
+                        && residue(form, from) != residue(form, to);
+            }
+            if(covers) forms.add(form);
+        }
+        int rootClass = this.classOf(forms, root);
+        List<double[]> weights = new ArrayList<>();
+        long[] single = new long[encoding.getWords()];
+        for(int s = 0; s < encoding.getSlotCount(); s++){
+            Arrays.fill(single, 0);
+            single[s >>> 6] |= 1L << s;
+            if(this.classOf(forms, single) == rootClass) weights.add(this.pagodaOf(s));
+        }
+        this.pagoda = weights.toArray(new double[0][]);
+
+        int count = this.pagoda.length;
+        this.weights = new long[count];
+        this.delta = new long[encoding.getJumpCount() * count];
+        for(int f = 0; f < count; f++){
+            long[] fixed = new long[encoding.getSlotCount()];
+            for(int s = 0; s < fixed.length; s++){
+                fixed[s] = (long) (this.pagoda[f][s] * SCALE);
+            }
+            for(int j = 0; j < encoding.getJumpCount(); j++){
+                this.delta[j * count + f] = fixed[encoding.getJumpTo(j)] - fixed[encoding.getJumpFrom(j)]
+                        - fixed[encoding.getJumpOver(j)];
+            }
+        }
+        this.reset(root);
+    }
+
+    /**
+     * This method sets the tracked position, the weights are then kept up to date by jump and undo
+     * @param position the packed marbles, not changed
+     */
+    public void reset(long[] position){
+        for(int f = 0; f < this.weights.length; f++){
+            double total = 0;
+            for(int w = 0; w < position.length; w++){
+                for(long bits = position[w]; bits != 0; bits &= bits - 1){
+                    total += this.pagoda[f][(w << 6) + Long.numberOfTrailingZeros(bits)];
+                }
+            }
+            this.weights[f] = (long) (total * SCALE);
+        }
+    }
+
+    /**
+     * This method makes a jump on the tracked position
+     * @param jump the jump of the encoding
+     */
+    public void jump(int jump){
+        int base = jump * this.weights.length;
+        for(int f = 0; f < this.weights.length; f++){
+            this.weights[f] += this.delta[base + f];
+        }
+    }
+
+    /**
+     * This method undoes a jump made on the tracked position
+     * @param jump the jump of the encoding
+     */
+    public void undo(int jump){
+        int base = jump * this.weights.length;
+        for(int f = 0; f < this.weights.length; f++){
+            this.weights[f] -= this.delta[base + f];
+        }
+    }
+
+    /**
+     * This method checks if the tracked position might still be reduced to one marble,
+     * with the pagoda functions only
+     * @return false if the tracked position is proven unable to reach one marble, true otherwise
+     */
+    public boolean isTrackedAlive(){
+        for(long weight : this.weights){
+            if(weight >= ONE) return true;
+        }
+        return false;
+    }
+
+    /**
+     * This method checks if a position might still be reduced to one marble
+     * @param position the packed marbles, not changed
+     * @return false if the position is proven unable to reach one marble, true otherwise
+     */
+    public boolean canReachOne(long[] position){
+        return this.passesPagoda(position) && this.lowerBound(position) <= 1;
+    }
+
+    /**
+     * This method checks if a position might still be reduced to a score
+     * @param position the packed marbles, not changed
+     * @param score the target number of marbles
+     * @return false if the position is proven unable to reach the score or less, true otherwise
+     */
+    public boolean canReach(long[] position, int score){
+        if(score <= 1) return this.canReachOne(position);
+        return this.lowerBound(position) <= score;
+    }
+
+    /**
+     * Returns the number of slots that can hold the last marble from the root
+     * @return an int, 0 if the root cannot be reduced to one marble
+     */
+    public int getLastSlotCount(){return this.pagoda.length;}
+
+    /**
+     * This method checks if the weight of a position is at least 1 for a possible last slot
+     * @param position the packed marbles
+     * @return true if some pagoda function allows one marble
+     */
+    private boolean passesPagoda(long[] position){
+        for(double[] weight : this.pagoda){
+            double total = 0;
+            for(int w = 0; w < position.length; w++){
+                for(long bits = position[w]; bits != 0; bits &= bits - 1){
+                    total += weight[(w << 6) + Long.numberOfTrailingZeros(bits)];
+                }
+            }
+            if(total >= 1 - EPSILON) return true;
+        }
+        return false;
+    }
+
+    /**
+     * This method returns a lower bound of the final score of a position, the number of its
+     * live regions holding a marble
+     * @param position the packed marbles, not changed
+     * @return an int, at least 1 for a position with marbles
+     */
+    public int lowerBound(long[] position){
+        BoardEncoding enc = this.encoding;
+        long[] live = this.live;
+        System.arraycopy(position, 0, live, 0, live.length);
+        // a slot turning live can only feed the jumps from or over it, checked from a stack
+        int top = 0;
+        for(int j = 0; j < enc.getJumpCount(); j++){
+            int to = enc.getJumpTo(j);
+            if(!PegSolitaireSolver.isSet(live, to) && PegSolitaireSolver.isSet(live, enc.getJumpFrom(j))
+                    && PegSolitaireSolver.isSet(live, enc.getJumpOver(j))){
+                live[to >>> 6] |= 1L << to;
+                this.stack[top++] = to;
+            }
+        }
+        while(top > 0){
+            int slot = this.stack[--top];
+            for(int i = this.feedStart[slot]; i < this.feedStart[slot + 1]; i++){
+                int j = this.feeds[i];
+                int to = enc.getJumpTo(j);
+                if(!PegSolitaireSolver.isSet(live, to) && PegSolitaireSolver.isSet(live, enc.getJumpFrom(j))
+                        && PegSolitaireSolver.isSet(live, enc.getJumpOver(j))){
+                    live[to >>> 6] |= 1L << to;
+                    this.stack[top++] = to;
+                }
+            }
+        }
+        for(int s = 0; s < this.parent.length; s++){
+            this.parent[s] = s;
+            this.counted[s] = false;
+        }
+        for(int j = 0; j < enc.getJumpCount(); j++){
+            int from = enc.getJumpFrom(j);
+            int over = enc.getJumpOver(j);
+            int to = enc.getJumpTo(j);
+            if(PegSolitaireSolver.isSet(live, from) && PegSolitaireSolver.isSet(live, over) && PegSolitaireSolver.isSet(live, to)){
+                this.union(from, over);
+                this.union(over, to);
+            }
+        }
+        int regions = 0;
+        for(int w = 0; w < position.length; w++){
+            for(long bits = position[w]; bits != 0; bits &= bits - 1){
+                int root = this.find((w << 6) + Long.numberOfTrailingZeros(bits));
+                if(!this.counted[root]){
+                    this.counted[root] = true;
+                    regions++;
+                }
+            }
+        }
+        return regions;
+    }
+
+    private int find(int slot){
+        while(this.parent[slot] != slot){
+            this.parent[slot] = this.parent[this.parent[slot]];
+            slot = this.parent[slot];
+        }
+        return slot;
+    }
+
+    private void union(int a, int b){
+        int ra = this.find(a);
+        int rb = this.find(b);
+        if(ra != rb) this.parent[ra] = rb;
+    }
+
+    /**
+     * This method returns the position class of a position, one bit per form and residue pair
+     */
+    private int classOf(List<int[]> forms, long[] position){
+        int bits = 0;
+        for(int f = 0; f < forms.size(); f++){
+            int[] counts = new int[3];
+            for(int s = 0; s < this.encoding.getSlotCount(); s++){
+                if(PegSolitaireSolver.isSet(position, s)) counts[this.residue(forms.get(f), s)]++;
+            }
+            bits |= ((counts[0] + counts[1]) & 1) << (2 * f);
+            bits |= ((counts[1] + counts[2]) & 1) << (2 * f + 1);
+        }
+        return bits;
+    }
+
+    private int residue(int[] form, int slot){
+        return Math.floorMod(form[0] * this.encoding.getSlotRow(slot) + form[1] * this.encoding.getSlotCol(slot), 3);
+    }
+
+    /**
+     * This method returns the pagoda function of a last slot, phi to the minus number of steps
+     * between the slots over the board, steps being the two slot moves of a jump halved
+     */
+    private double[] pagodaOf(int target){
+        int slots = this.encoding.getSlotCount();
+        int[] distance = new int[slots];
+        Arrays.fill(distance, -1);
+        int[] queue = new int[slots];
+        int head = 0;
+        int tail = 0;
+        distance[target] = 0;
+        queue[tail++] = target;
+        while(head < tail){
+            int slot = queue[head++];
+            // the neighbours of a slot are the slots it jumps over, and those that jump over it
+            for(int j = 0; j < this.encoding.getJumpCount(); j++){
+                int next = -1;
+                if(this.encoding.getJumpFrom(j) == slot) next = this.encoding.getJumpOver(j);
+                else if(this.encoding.getJumpOver(j) == slot) next = this.encoding.getJumpFrom(j);
+                if(next >= 0 && distance[next] < 0){
+                    distance[next] = distance[slot] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        double[] weight = new double[slots];
+        for(int s = 0; s < slots; s++){
+            // a slot that cannot be reached by steps can never send its marble to the target
+            weight[s] = distance[s] < 0 ? 0 : Math.pow(PHI, -distance[s]);
+        }
+        return weight;
+    }
+}
@@ -0,0 +1,43 @@
+package marblesolitaire.solver;
+
+import marblesolitaire.model.Move;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class is the outcome of a solver run, whether the position can be reduced
+ * to one marble, the moves that do so if it can, and the statistics of the run
+ */
+public final class SolverResult {
+    private final boolean solved;
+    private final List<Move> moves;
+    private final SolverStats stats;
+
+    /**
+     * Constructor of the class
+     * @param solved, true if a solution was found
+     * @param moves, the solution moves in order, empty if not solved
+     * @param stats, the statistics of the run
+     */
+    public SolverResult(boolean solved, List<Move> moves, SolverStats stats){
+        this.solved = solved;
+        this.moves = Collections.unmodifiableList(moves);
+        this.stats = stats;
+    }
+
+    /**
+     * Returns if the position can be reduced to one marble, if false the search
+     * was exhaustive and proves no such move sequence exists
+     * @return a boolean, if solved
+     */
+    public boolean isSolved(){return this.solved;}
+
+    /**
+     * Returns the moves of the solution, in the order they should be made
+     * @return an unmodifiable list of moves, empty if not solved
+     */
+    public List<Move> getMoves(){return this.moves;}
+
+    public SolverStats getStats(){return this.stats;}
+}
@@ -0,0 +1,49 @@
+package marblesolitaire.solver;
+
+import marblesolitaire.model.MarbleSolitaireModel;
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+
+/**
+ * This class measures the speedup curve of ParallelPegSolitaireSolver, solving the same
+ * position with 1 to N worker threads and comparing each time to the single thread time.
+ * Run it with the arguments arm, sRow, sCol and the largest thread count, all optional,
+ * it prints one CSV line per thread count.
+ */
+public class SolverSpeedup {
+
+    /**
+     * This method solves the model with every thread count from 1 to maxThreads
+     * @param model the position to solve, not changed
+     * @param maxThreads the largest number of worker threads to try
+     * @return an array of maxThreads results, element i is the run with i + 1 threads
+     */
+    public static SolverResult[] measure(MarbleSolitaireModel model, int maxThreads){
+        SolverResult[] results = new SolverResult[maxThreads];
+        for(int threads = 1; threads <= maxThreads; threads++){
+            ParallelPegSolitaireSolver solver = new ParallelPegSolitaireSolver(threads);
+            try{
+                results[threads - 1] = solver.solve(model);
+            }finally{
+                solver.shutdown();
+            }
+        }
+        return results;
+    }
+
+    public static void main(String[] args){
+        int arm = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int sRow = args.length > 2 ? Integer.parseInt(args[1]) : arm;
+        int sCol = args.length > 2 ? Integer.parseInt(args[2]) : arm;
+        int maxThreads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        SolverResult[] results = measure(new MarbleSolitaireModelImpl(arm, sRow, sCol), maxThreads);
+        double base = results[0].getStats().getElapsedNanos();
+        System.out.println("threads,solved,seconds,speedup,nodes,nodes_per_sec,hit_rate");
+        for(int i = 0; i < results.length; i++){
+            SolverStats stats = results[i].getStats();
+            System.out.println(String.format("%d,%b,%.3f,%.2f,%d,%.0f,%.4f", i + 1, results[i].isSolved(),
+                    stats.getElapsedNanos() / 1e9, base / stats.getElapsedNanos(), stats.getNodes(),
+                    stats.getNodesPerSecond(), stats.getHitRate()));
+        }
+    }
+}
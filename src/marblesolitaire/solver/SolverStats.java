@@ -0,0 +1,97 @@
+package marblesolitaire.solver;
+
+/**
+ * This class holds the statistics of one solver run, the number of positions
+ * searched, the time taken, the transposition table lookups and hits, the peak memory seen,
+ * and the number of positions cut off by pruning
+ */
+public final class SolverStats {
+    private final long nodes;
+    private final long elapsedNanos;
+    private final long tableLookups;
+    private final long tableHits;
+    private final int tableSize;
+    private final long peakMemoryBytes;
+    private final long prunedNodes;
+
+    /**
+     * First constructor of the class, takes in the counters of a finished run without pruning
+     * @param nodes, number of positions visited
+     * @param elapsedNanos, wall time of the run in nanoseconds
+     * @param tableLookups, number of transposition table lookups
+     * @param tableHits, number of lookups that found a dead position
+     * @param tableSize, number of dead positions stored at the end
+     * @param peakMemoryBytes, largest used heap sampled during the run
+     */
+    public SolverStats(long nodes, long elapsedNanos, long tableLookups, long tableHits,
+                       int tableSize, long peakMemoryBytes){
+        this(nodes, elapsedNanos, tableLookups, tableHits, tableSize, peakMemoryBytes, 0);
+    }
+
+    /**
+     * Second constructor of the class, takes in all the counters of a finished run
+     * @param nodes, number of positions visited
+     * @param elapsedNanos, wall time of the run in nanoseconds
+     * @param tableLookups, number of transposition table lookups
+     * @param tableHits, number of lookups that found a dead position
+     * @param tableSize, number of dead positions stored at the end
+     * @param peakMemoryBytes, largest used heap sampled during the run
+     * @param prunedNodes, number of visited positions cut off by pruning
+     */
+    public SolverStats(long nodes, long elapsedNanos, long tableLookups, long tableHits,
+                       int tableSize, long peakMemoryBytes, long prunedNodes){
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+        this.tableLookups = tableLookups;
+        this.tableHits = tableHits;
+        this.tableSize = tableSize;
+        this.peakMemoryBytes = peakMemoryBytes;
+        this.prunedNodes = prunedNodes;
+    }
+
+    public long getNodes(){return this.nodes;}
+
+    public long getElapsedNanos(){return this.elapsedNanos;}
+
+    public long getTableLookups(){return this.tableLookups;}
+
+    public long getTableHits(){return this.tableHits;}
+
+    public int getTableSize(){return this.tableSize;}
+
+    public long getPeakMemoryBytes(){return this.peakMemoryBytes;}
+
+    public long getPrunedNodes(){return this.prunedNodes;}
+
+    /**
+     * Returns the fraction of visited positions cut off by pruning
+     * @return a double between 0 and 1
+     */
+    public double getPruneRate(){
+        return this.nodes == 0 ? 0 : (double) this.prunedNodes / this.nodes;
+    }
+
+    /**
+     * Returns the search speed of the run
+     * @return a double, positions visited per second
+     */
+    public double getNodesPerSecond(){
+        return this.elapsedNanos == 0 ? 0 : this.nodes * 1e9 / this.elapsedNanos;
+    }
+
+    /**
+     * Returns the fraction of table lookups that found a dead position
+     * @return a double between 0 and 1
+     */
+    public double getHitRate(){
+        return this.tableLookups == 0 ? 0 : (double) this.tableHits / this.tableLookups;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("nodes: %d, time: %.3f s, nodes/sec: %.0f, table hit rate: %.2f%% (%d/%d), "
+                        + "table size: %d, peak memory: %.1f MB, pruned: %d",
+                this.nodes, this.elapsedNanos / 1e9, this.getNodesPerSecond(), this.getHitRate() * 100,
+                this.tableHits, this.tableLookups, this.tableSize, this.peakMemoryBytes / (1024.0 * 1024.0), this.prunedNodes);
+    }
+}
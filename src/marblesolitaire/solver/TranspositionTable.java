@@ -0,0 +1,130 @@
+package marblesolitaire.solver;
+
+/**
+ * This class is the transposition table of the solver, a hash set of positions
+ * known to be dead (no way left to reach the target). Keys are packed bitsets of
+ * a fixed number of long words, stored flat in one long array with open addressing
+ * and linear probing, so adding or looking up a key allocates nothing until the table grows.
+ */
+public class TranspositionTable {
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private final int words;
+    private long[] keys;
+    private boolean[] used;
+    private int mask;
+    private int size = 0;
+
+    private long lookups = 0;
+    private long hits = 0;
+
+    /**
+     * First constructor of the class, takes in the key width in words
+     * @param words, number of long words in every key
+     */
+    public TranspositionTable(int words){
+        this(words, INITIAL_CAPACITY);
+    }
+
+    /**
+     * Second constructor of the class, takes in the key width in words and the starting capacity
+     * @param words, number of long words in every key
+     * @param capacity, number of slots to start with, rounded up to a power of 2
+     */
+    public TranspositionTable(int words, int capacity){
+        this.words = words;
+        this.allocate(Integer.highestOneBit(Math.max(2, capacity * 2 - 1)));
+    }
+
+    /**
+     * This method checks if the key is in the table, counted in the lookup statistics
+     * @param key the packed position
+     * @return true if the key was added before
+     */
+    public boolean contains(long[] key){
+        this.lookups++;
+        int slot = hash(key) & this.mask;
+        while(this.used[slot]){
+            if(this.matches(slot, key)){
+                this.hits++;
+                return true;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return false;
+    }
+
+    /**
+     * This method adds a copy of the key to the table if it is not already there
+     * @param key the packed position
+     */
+    public void add(long[] key){
+        int slot = hash(key) & this.mask;
+        while(this.used[slot]){
+            if(this.matches(slot, key)) return;
+            slot = (slot + 1) & this.mask;
+        }
+        this.used[slot] = true;
+        System.arraycopy(key, 0, this.keys, slot * this.words, this.words);
+        if(++this.size * 2 > this.used.length) this.grow();
+    }
+
+    public int size(){return this.size;}
+
+    public long getLookups(){return this.lookups;}
+
+    public long getHits(){return this.hits;}
+
+    /**
+     * Returns the approximate number of bytes held by the table arrays
+     * @return a long, the memory used by the table
+     */
+    public long getMemoryBytes(){
+        return (long) this.keys.length * Long.BYTES + this.used.length;
+    }
+
+    /**
+     * This method hashes a packed position by mixing all of its words
+     * @param key the packed position
+     * @return the hash of the key
+     */
+    static int hash(long[] key){
+        long h = 0x9E3779B97F4A7C15L;
+        for(long word : key){
+            h = (h ^ word) * 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 31;
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private boolean matches(int slot, long[] key){
+        int base = slot * this.words;
+        for(int w = 0; w < this.words; w++){
+            if(this.keys[base + w] != key[w]) return false;
+        }
+        return true;
+    }
+
+    private void allocate(int capacity){
+        this.keys = new long[capacity * this.words];
+        this.used = new boolean[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * This method doubles the capacity and re-inserts every key
+     */
+    private void grow(){
+        long[] oldKeys = this.keys;
+        boolean[] oldUsed = this.used;
+        this.allocate(oldUsed.length * 2);
+        this.size = 0;
+        long[] key = new long[this.words];
+        for(int slot = 0; slot < oldUsed.length; slot++){
+            if(oldUsed[slot]){
+                System.arraycopy(oldKeys, slot * this.words, key, 0, this.words);
+                this.add(key);
+            }
+        }
+    }
+}
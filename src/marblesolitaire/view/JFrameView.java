@@ -1,6 +1,8 @@
 package marblesolitaire.view;
 
+import marblesolitaire.controller.ClickResult;
 import marblesolitaire.controller.Controller;
+import marblesolitaire.model.BoardListener;
 import marblesolitaire.model.SlotState;
 
 import javax.swing.*;
@@ -16,8 +18,22 @@ import java.awt.event.ActionListener;
  * The button listen to clicks by user, and aggregate the move in controller,
  * if valid move is clicked, and responses were obtained from model through
  * the controller, the updated view would be displayed on the board.
+ * The view listens to the model's board through the controller, so after a move
+ * only the buttons of the slots that changed are repainted.
  */
-public class JFrameView implements ActionListener {
+public class JFrameView implements ActionListener, BoardListener {
+
+    private static final Color OFB_COLOR = new Color(0, 0, 0);
+    private static final Color SLOT_COLOR = new Color(255, 255, 255);
+    private static final Color SELECTED_COLOR = new Color(255, 215, 0);
+    private static final Color DESTINATION_COLOR = new Color(144, 238, 144);
+    // the selected marble and its destinations, one per jump direction
+    private static final int MAX_HIGHLIGHTS = 7;
+    private static final Font TEXT_FONT = new Font("Franklin Gothic Medium", Font.BOLD, 40);
+    private static final Insets NO_MARGIN = new Insets(0, 0, 0, 0);
+    // the font fits the default 7 x 7 board, larger boards scale it down
+    private static final int DEFAULT_ROWS = 7;
+    private static final float MIN_FONT_SIZE = 8f;
 
     private final JFrame frame = new JFrame();
 
@@ -25,7 +41,8 @@ public class JFrameView implements ActionListener {
     private final JPanel labelPanel = new JPanel();
 
     private final JPanel buttonPanel = new JPanel();
-    private JButton[][] marbleButtons;
+    private SlotButton[][] marbleButtons;
+    private Font slotFont;
 
     private final String MARBLE = "O";
 
@@ -34,6 +51,11 @@ public class JFrameView implements ActionListener {
 
     private Controller controller;
 
+    // the slots highlighted for the current selection
+    private final int[] highlightRows = new int[MAX_HIGHLIGHTS];
+    private final int[] highlightCols = new int[MAX_HIGHLIGHTS];
+    private int highlightCount;
+
     /**
      * Constructor of the class, set the basic frame of display, size, title etc
      * @param title, title of JFrame
@@ -59,21 +81,21 @@ public class JFrameView implements ActionListener {
 
         this.buttonPanel.setLayout(new GridLayout(this.ROW, this.COL));
 //        this.buttonPanel.setBackground(new Color(0, 0, 0));
-        this.marbleButtons = new JButton[board.length][board[0].length];
+        this.slotFont = TEXT_FONT.deriveFont(Math.max(MIN_FONT_SIZE,
+                TEXT_FONT.getSize2D() * Math.min(1f, (float) DEFAULT_ROWS / this.ROW)));
+        this.marbleButtons = new SlotButton[board.length][board[0].length];
         for(int r = 0; r < this.ROW; r++){
             for(int c = 0; c < this.COL; c++){
-                this.marbleButtons[r][c] = new JButton();
+                this.marbleButtons[r][c] = new SlotButton(r, c);
                 this.marbleButtons[r][c].setFocusable(false);
+                this.marbleButtons[r][c].setMargin(NO_MARGIN);
                 if(board[r][c] == SlotState.OfB){
-                    this.marbleButtons[r][c].setBackground(new Color(0, 0, 0));
+                    this.marbleButtons[r][c].setBackground(OFB_COLOR);
                     this.marbleButtons[r][c].setEnabled(false);
-                }else if(board[r][c] == SlotState.Marble){
-                    this.marbleButtons[r][c].setText(MARBLE);
-                    this.marbleButtons[r][c].setBackground(new Color(255, 255, 255));
-                    this.marbleButtons[r][c].setFont(new Font("Franklin Gothic Medium", Font.BOLD, 40));
                 }else{
-                    this.marbleButtons[r][c].setBackground(new Color(255, 255, 255));
-                    this.marbleButtons[r][c].setFont(new Font("Franklin Gothic Medium", Font.BOLD, 40));
+                    this.marbleButtons[r][c].setBackground(SLOT_COLOR);
+                    this.marbleButtons[r][c].setFont(this.slotFont);
+                    this.slotChanged(r, c, board[r][c]);
                 }
                 this.marbleButtons[r][c].addActionListener(this);
                 this.buttonPanel.add(this.marbleButtons[r][c]);
@@ -91,7 +113,7 @@ public class JFrameView implements ActionListener {
      * @param score
      */
     public void initializeText(int score) {
-        this.textLabel.setFont(new Font("Franklin Gothic Medium", Font.BOLD, 40));
+        this.textLabel.setFont(TEXT_FONT);
         this.textLabel.setHorizontalAlignment(JLabel.CENTER);
         this.labelPanel.setLayout(new BorderLayout());
         this.labelPanel.setBounds(0, 0, 500, 100);
@@ -111,38 +133,72 @@ public class JFrameView implements ActionListener {
      * This method is called when the button is clicked,
      * calls the getResponse method in this class to
      * pass the button coordinate to controller class
-     * for model, and call repaintBoard method to refresh board,
-     * And update score
+     * for model, the changed slots are repainted by slotChanged
+     * as the model makes the move, then update score,
+     * and disable the board if the game is over
      * @param e, action event (button information) triggered by button clicking
      */
     @Override
     public void actionPerformed(ActionEvent e) {
-        SlotState[][] res = this.getResponse(e);
-        if(res != null){
-            this.repaintBoard(res, this.controller.isGameOver());
-            this.resetText(this.controller.getScore(), this.controller.isGameOver());
+        if(this.getResponse(e)){
+            this.refreshStatus(this.controller.getScore(), this.controller.isGameOver());
+        }
+    }
+
+    /**
+     * This method updates the score and disables the board if the game is over,
+     * called after each move, by the controller in its asynchronous mode
+     * @param score an int, the score of the game extracted from the model
+     * @param isGameOver a boolean, if the game is over or not
+     */
+    public void refreshStatus(int score, boolean isGameOver) {
+        if(isGameOver) this.disableBoard();
+        this.resetText(score, isGameOver);
+    }
+
+    /**
+     * This method is called by the model through the controller for each slot that changed,
+     * and repaints only the button of that slot
+     * @param row the row of the slot
+     * @param col the column of the slot
+     * @param state the new state of the slot
+     */
+    @Override
+    public void slotChanged(int row, int col, SlotState state) {
+        this.marbleButtons[row][col].setText(state == SlotState.Marble ? MARBLE : "");
+    }
+
+    /**
+     * This method shows the result of a click, the selected marble and the slots it can
+     * jump to are highlighted, and the highlight is removed once the selection ends
+     * @param result the outcome of the click
+     */
+    public void showClick(ClickResult result) {
+        for(int i = 0; i < this.highlightCount; i++){
+            this.marbleButtons[this.highlightRows[i]][this.highlightCols[i]].setBackground(SLOT_COLOR);
+        }
+        this.highlightCount = 0;
+        if(result.getOutcome() != ClickResult.Outcome.SELECTED) return;
+        this.highlight(result.getRow(), result.getCol(), SELECTED_COLOR);
+        for(int i = 0; i < result.getDestinationCount(); i++){
+            this.highlight(result.getDestinationRow(i), result.getDestinationCol(i), DESTINATION_COLOR);
         }
     }
 
+    private void highlight(int row, int col, Color color) {
+        this.marbleButtons[row][col].setBackground(color);
+        this.highlightRows[this.highlightCount] = row;
+        this.highlightCols[this.highlightCount] = col;
+        this.highlightCount++;
+    }
+
     /**
-     * This method is called to refresh the screen, if gameOver,
-     * disable the buttons
-     * @param board 2D  SlotSlate array to be iterated and refreshed
-     * @param isGameOver, a boolean if the game is over
+     * This method is called once the game is over to disable the buttons
      */
-    private void repaintBoard(SlotState[][] board, boolean isGameOver) {
+    private void disableBoard() {
         for(int r = 0; r < this.ROW; r++){
             for(int c = 0; c < this.COL; c++){
-                if(board[r][c] == SlotState.OfB){
-                    this.marbleButtons[r][c].setBackground(new Color(0, 0, 0));
-                    this.marbleButtons[r][c].setEnabled(false);
-                }else if(board[r][c] == SlotState.Marble){
-                    this.marbleButtons[r][c].setText(MARBLE);
-                    this.marbleButtons[r][c].setEnabled(!isGameOver);
-                }else{
-                    this.marbleButtons[r][c].setText("");
-                    this.marbleButtons[r][c].setEnabled(!isGameOver);
-                }
+                this.marbleButtons[r][c].setEnabled(false);
             }
         }
     }
@@ -161,20 +217,28 @@ public class JFrameView implements ActionListener {
      * This method is called to pass the button coordinate to the controller
      * and get its response, return back for refreshing
      * @param e, action event (button information) triggered by button clicking
-     * @return, the response from the controller extracted from the model
-     *          null, if no move made (not 2 button clicked)
-     *          2D SlotState board, if the move is complete with 2 buttons clicked
+     * @return, the response from the controller
+     *          false, if no move made (not 2 button clicked)
+     *          true, if the move is complete with 2 buttons clicked
      */
-    private SlotState[][] getResponse(ActionEvent e){
-        SlotState[][] res = null;
-        for(int r = 0; r < this.ROW; r++){
-            for(int c = 0; c < this.COL; c++){
-                if(e.getSource() == this.marbleButtons[r][c]){
-                    res = this.controller.makeMove(r, c);
-                }
-            }
-        }
-        return res;
+    private boolean getResponse(ActionEvent e){
+        SlotButton button = (SlotButton) e.getSource();
+        return this.controller.makeMove(button.row, button.col);
     }
 
+    /**
+     * This class is a board button that knows the coordinate of its slot,
+     * so a click does not need to search for its button
+     */
+    private static final class SlotButton extends JButton {
+        private static final long serialVersionUID = 1L;
+
+        private final int row;
+        private final int col;
+
+        private SlotButton(int row, int col){
+            this.row = row;
+            this.col = col;
+        }
+    }
 }
@@ -0,0 +1,103 @@
+import marblesolitaire.batch.BatchMain;
+import marblesolitaire.batch.BatchRunner;
+import marblesolitaire.batch.MobilityStrategy;
+import marblesolitaire.batch.RandomStrategy;
+import marblesolitaire.batch.StartPosition;
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is a test for the BatchRunner, on the score distributions it writes
+ */
+public class BatchRunnerTest {
+
+    /**
+     * This tests the output starts with the header, and the counts of every start
+     * add up to the number of games played from it
+     */
+    @Test
+    public void testCountsAddUp() throws IOException{
+        StringBuilder out = new StringBuilder();
+        new BatchRunner(2).run(Arrays.asList(StartPosition.center(3), new StartPosition(3, 0, 3)),
+                25_000, RandomStrategy::new, 7, out);
+        String[] lines = out.toString().split("\\R");
+
+        assertEquals("arm,row,col,strategy,score,count", lines[0]);
+        Map<String, Long> games = new HashMap<>();
+        for(int i = 1; i < lines.length; i++){
+            String[] fields = lines[i].split(",");
+            assertEquals("random", fields[3]);
+            assertTrue(Integer.parseInt(fields[4]) >= 1);
+            games.merge(fields[0] + "," + fields[1] + "," + fields[2], Long.parseLong(fields[5]), Long::sum);
+        }
+        assertEquals(2, games.size());
+        assertEquals(25_000L, (long) games.get("3,3,3"));
+        assertEquals(25_000L, (long) games.get("3,0,3"));
+    }
+
+    /**
+     * This tests the same seed gives the same output, whatever the number of threads
+     */
+    @Test
+    public void testSeedRepeats() throws IOException{
+        StringBuilder first = new StringBuilder();
+        StringBuilder second = new StringBuilder();
+        new BatchRunner(1).run(StartPosition.all(3), 50, MobilityStrategy::new, 3, first);
+        new BatchRunner(3).run(StartPosition.all(3), 50, MobilityStrategy::new, 3, second);
+
+        assertEquals(first.toString(), second.toString());
+    }
+
+    /**
+     * This tests the mobility strategy plays the move it scored best, though trying the moves
+     * with tryMove and undo changes the order of the legal move set
+     */
+    @Test
+    public void testMobilityPlaysBestMove(){
+        MobilityStrategy strategy = new MobilityStrategy();
+        SplittableRandom random = new SplittableRandom(5);
+        for(int game = 0; game < 20; game++){
+            MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(3, 2, 3);
+            while(!model.isGameOver()){
+                Map<Move, Integer> mobility = new HashMap<>();
+                int most = 0;
+                for(Move m : model.getLegalMoves()){
+                    model.move(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol());
+                    mobility.put(m, model.getLegalMoveCount());
+                    most = Math.max(most, model.getLegalMoveCount());
+                    model.undo();
+                }
+                int index = strategy.chooseMove(model, random);
+                Move chosen = model.getLegalMoves().get(index);
+                assertEquals(most, (int) mobility.get(chosen));
+                model.makeLegalMove(index);
+                assertEquals(most, model.getLegalMoveCount());
+            }
+        }
+    }
+
+    /**
+     * This tests the thread count must be positive
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidThreads(){
+        new BatchRunner(0);
+    }
+
+    /**
+     * This tests an option given last without its value is rejected instead of ignored
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testDanglingOption() throws IOException{
+        BatchMain.main(new String[]{"--games", "5", "--seed"});
+    }
+}
@@ -0,0 +1,141 @@
+import marblesolitaire.model.BoardGeometry;
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+import marblesolitaire.solver.BestScoreOptimizer;
+import marblesolitaire.solver.BoardEncoding;
+import marblesolitaire.solver.OptimizerResult;
+import marblesolitaire.solver.ScoreTable;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is a test for the BestScoreOptimizer, on solvable and unsolvable positions, with and
+ * without a time budget
+ */
+public class BestScoreOptimizerTest {
+
+    BestScoreOptimizer optimizer = new BestScoreOptimizer();
+
+    /**
+     * This method makes the moves of a result on the model
+     * @return the score of the model after the moves
+     */
+    private static int replay(MarbleSolitaireModelImpl model, OptimizerResult result){
+        for(Move m : result.getMoves()){
+            model.move(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol());
+        }
+        assertTrue(model.isGameOver());
+        return model.getScore();
+    }
+
+    /**
+     * This method finds the lowest score of a position by trying every sequence of moves
+     */
+    private static int bruteForce(BoardEncoding encoding, long position, Map<Long, Integer> memo){
+        Integer known = memo.get(position);
+        if(known != null) return known;
+        int best = Long.bitCount(position);
+        for(int j = 0; j < encoding.getJumpCount(); j++){
+            long from = 1L << encoding.getJumpFrom(j);
+            long over = 1L << encoding.getJumpOver(j);
+            long to = 1L << encoding.getJumpTo(j);
+            if((position & from) != 0 && (position & over) != 0 && (position & to) == 0){
+                best = Math.min(best, bruteForce(encoding, position ^ from ^ over ^ to, memo));
+            }
+        }
+        memo.put(position, best);
+        return best;
+    }
+
+    /**
+     * This tests the optimizer on the default board, it must find and prove one marble
+     */
+    @Test
+    public void testSolvable(){
+        MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl();
+        OptimizerResult result = this.optimizer.optimize(model, Long.MAX_VALUE);
+        assertEquals(1, result.getScore());
+        assertTrue(result.isOptimal());
+        assertEquals(31, result.getMoves().size());
+        assertEquals(1, replay(model, result));
+    }
+
+    /**
+     * This tests the optimizer finds the lowest score of every start of the small boards,
+     * against a search of every sequence of moves
+     */
+    @Test
+    public void testAgreesWithBruteForce(){
+        for(BoardGeometry geometry : new BoardGeometry[]{BoardGeometry.triangular(5), BoardGeometry.hexagonal(3)}){
+            for(int r = 0; r < geometry.getDim(); r++){
+                for(int c = 0; c < geometry.getDim(); c++){
+                    if(geometry.cellAt(r, c) < 0) continue;
+                    MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(geometry, r, c);
+                    BoardEncoding encoding = BoardEncoding.of(model);
+                    int expected = bruteForce(encoding, encoding.encode(model.getBoard())[0], new HashMap<>());
+                    OptimizerResult result = this.optimizer.optimize(model, Long.MAX_VALUE);
+                    assertEquals(expected, result.getScore());
+                    assertEquals(expected, result.getLowerBound());
+                    assertEquals(expected, replay(model, result));
+                }
+            }
+        }
+    }
+
+    /**
+     * This tests the optimizer keyed on canonical positions finds the same scores
+     */
+    @Test
+    public void testWithSymmetry(){
+        BestScoreOptimizer symmetric = new BestScoreOptimizer(true, 1 << 16);
+        for(int[] start : new int[][]{{2, 2}, {0, 1}, {1, 1}}){
+            MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(BoardGeometry.hexagonal(3), start[0], start[1]);
+            OptimizerResult result = symmetric.optimize(model, Long.MAX_VALUE);
+            assertEquals(this.optimizer.optimize(model, Long.MAX_VALUE).getScore(), result.getScore());
+            assertTrue(result.isOptimal());
+            assertEquals(result.getScore(), replay(model, result));
+        }
+    }
+
+    /**
+     * This tests the optimizer stops at its time budget on a large board, with moves that
+     * leave the score it returns and a lower bound it cannot prove
+     */
+    @Test
+    public void testTimeBudget(){
+        MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(5, 5, 5);
+        long start = System.nanoTime();
+        OptimizerResult result = this.optimizer.optimize(model, 200_000_000L);
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        assertFalse(result.isOptimal());
+        assertTrue(result.getLowerBound() < result.getScore());
+        assertTrue(result.getScore() < 84);
+        assertEquals(result.getScore(), replay(model, result));
+    }
+
+    /**
+     * This tests the score table only raises bounds, and stops taking new positions when full
+     */
+    @Test
+    public void testScoreTable(){
+        ScoreTable table = new ScoreTable(1, 2);
+        table.raise(new long[]{5}, 3);
+        table.raise(new long[]{5}, 2);
+        assertEquals(3, table.get(new long[]{5}));
+        table.raise(new long[]{5}, 4);
+        assertEquals(4, table.get(new long[]{5}));
+        table.raise(new long[]{6}, 1);
+        table.raise(new long[]{7}, 1);
+        assertEquals(2, table.size());
+        assertEquals(0, table.get(new long[]{7}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTableSize(){
+        new BestScoreOptimizer(false, 0);
+    }
+}
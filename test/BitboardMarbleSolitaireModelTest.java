@@ -0,0 +1,162 @@
+import marblesolitaire.model.BitboardMarbleSolitaireModel;
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is a test for the BitboardMarbleSolitaireModel, checking it behaves
+ * exactly like MarbleSolitaireModelImpl, including boards larger than 64 slots
+ */
+public class BitboardMarbleSolitaireModelTest {
+
+    BitboardMarbleSolitaireModel test;
+
+    /**
+     * This tests if the first constructor, the getScore and the getGameState method
+     */
+    @Test
+    public void testNormalFirstCon(){
+        this.test = new BitboardMarbleSolitaireModel();
+        assertEquals(32, this.test.getScore());
+        assertEquals("    O O O    \n"+
+                "    O O O    \n"+
+                "O O O O O O O\n"+
+                "O O O _ O O O\n"+
+                "O O O O O O O\n"+
+                "    O O O    \n"+
+                "    O O O    ", this.test.getGameState());
+    }
+
+    /**
+     * This tests if the last constructor, the getScore and the getGameState method
+     * the arm 5 board needs more than one word
+     */
+    @Test
+    public void testNormalSFourthCon(){
+        this.test = new BitboardMarbleSolitaireModel(5, 6, 6);
+        assertEquals(84, this.test.getScore());
+        assertEquals("      O O O O O      \n"+
+                "      O O O O O      \n"+
+                "      O O O O O      \n"+
+                "O O O O O O O O O O O\n"+
+                "O O O O O O O O O O O\n"+
+                "O O O O O O O O O O O\n"+
+                "O O O O O O _ O O O O\n"+
+                "O O O O O O O O O O O\n"+
+                "      O O O O O      \n"+
+                "      O O O O O      \n"+
+                "      O O O O O      ", this.test.getGameState());
+    }
+
+    /**
+     * This tests if the constructors throw exception for invalid arm or empty cell
+     */
+    @Test
+    public void testConException(){
+        int[][] invalid = {{3, 10, 3}, {3, 6, 6}, {-3, 6, 6}, {6, 6, 6}, {1, 6, 6}, {3, 1, 1}};
+        for(int[] args : invalid){
+            try{
+                new BitboardMarbleSolitaireModel(args[0], args[1], args[2]);
+                fail();
+            }catch(IllegalArgumentException iae){}
+        }
+    }
+
+    /**
+     * This tests if the move method throws exception if invalid entries are provided
+     * move across the row boundary of the bitset must not wrap around
+     */
+    @Test (expected = IllegalArgumentException.class)
+    public void testMoveException(){
+        this.test = new BitboardMarbleSolitaireModel(3, 3, 1);
+        this.test.move(2, 6, 3, 1);
+    }
+
+    /**
+     * This tests the same game as MarbleSolitaireModelImplTest.testIsGameOverTrue
+     */
+    @Test
+    public void testIsGameOverTrue(){
+        this.test = new BitboardMarbleSolitaireModel();
+        int[][] moves = {{1, 3, 3, 3}, {2, 1, 2, 3}, {2, 4, 2, 2}, {2, 6, 2, 4}, {4, 6, 2, 6},
+                {4, 1, 2, 1}, {4, 5, 2, 5}, {4, 3, 2, 3}, {6, 3, 4, 3}, {4, 3, 4, 5}, {2, 4, 4, 4},
+                {4, 4, 4, 6}, {6, 4, 4, 4}, {0, 4, 2, 4}, {0, 2, 0, 4}, {2, 2, 0, 2}, {4, 2, 2, 2}, {6, 2, 4, 2}};
+        for(int i = 0; i < moves.length; i++){
+            assertFalse(this.test.isGameOver());
+            this.test.move(moves[i][0], moves[i][1], moves[i][2], moves[i][3]);
+        }
+        assertEquals(14, this.test.getScore());
+        assertTrue(this.test.isGameOver());
+    }
+
+    /**
+     * This plays random games on several arm sizes on both models side by side
+     * and checks every observable result agrees
+     */
+    @Test
+    public void testMatchesModelImpl(){
+        Random random = new Random(42);
+        for(int arm : new int[]{3, 5, 7, 9}){
+            for(int game = 0; game < 5; game++){
+                MarbleSolitaireModelImpl expected = new MarbleSolitaireModelImpl(arm);
+                this.test = new BitboardMarbleSolitaireModel(arm);
+                int dim = arm * 2 + 1;
+                while(!expected.isGameOver()){
+                    assertFalse(this.test.isGameOver());
+                    int r = random.nextInt(dim);
+                    int c = random.nextInt(dim);
+                    int[][] targets = {{r, c - 2}, {r, c + 2}, {r - 2, c}, {r + 2, c}};
+                    int[] to = targets[random.nextInt(4)];
+                    boolean valid = true;
+                    try{
+                        expected.move(r, c, to[0], to[1]);
+                    }catch(IllegalArgumentException iae){
+                        valid = false;
+                    }
+                    try{
+                        this.test.move(r, c, to[0], to[1]);
+                        assertTrue(valid);
+                    }catch(IllegalArgumentException iae){
+                        assertFalse(valid);
+                    }
+                    assertEquals(expected.getScore(), this.test.getScore());
+                }
+                assertTrue(this.test.isGameOver());
+                assertEquals(expected.getGameState(), this.test.getGameState());
+            }
+        }
+    }
+
+    /**
+     * This tests the undo method takes back every move of a random game, in the order they
+     * were made, back to the start
+     */
+    @Test
+    public void testUndo(){
+        Random random = new Random(7);
+        MarbleSolitaireModelImpl expected = new MarbleSolitaireModelImpl(9);
+        this.test = new BitboardMarbleSolitaireModel(9);
+        assertFalse(this.test.undo());
+        List<String> states = new ArrayList<>();
+        while(!expected.isGameOver()){
+            states.add(this.test.getGameState());
+            List<Move> moves = expected.getLegalMoves();
+            Move m = moves.get(random.nextInt(moves.size()));
+            expected.move(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol());
+            this.test.move(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol());
+        }
+        assertEquals(expected.getGameState(), this.test.getGameState());
+        for(int i = states.size() - 1; i >= 0; i--){
+            assertTrue(this.test.undo());
+            assertEquals(states.get(i), this.test.getGameState());
+        }
+        assertFalse(this.test.undo());
+        assertEquals(new BitboardMarbleSolitaireModel(9).getGameState(), this.test.getGameState());
+    }
+}
@@ -0,0 +1,160 @@
+import marblesolitaire.model.BoardGeometry;
+import marblesolitaire.model.DihedralTransform;
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+import marblesolitaire.model.SlotState;
+import marblesolitaire.solver.BoardEncoding;
+import marblesolitaire.solver.BoardSymmetry;
+import marblesolitaire.solver.PegSolitaireSolver;
+import marblesolitaire.solver.SolverResult;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is a test for the BoardGeometry shapes, and the model playing on them
+ */
+public class BoardGeometryTest {
+
+    /**
+     * This tests the number of slots and jumps of each shape
+     */
+    @Test
+    public void testShapes(){
+        assertEquals(33, BoardGeometry.english(3).getSlotCount());
+        assertEquals(76, BoardGeometry.english(3).getJumpCount());
+        assertEquals(37, BoardGeometry.european().getSlotCount());
+        assertEquals(92, BoardGeometry.european().getJumpCount());
+        // the 15 slot triangle has 18 lines of three slots, each jumped both ways
+        assertEquals(15, BoardGeometry.triangular(5).getSlotCount());
+        assertEquals(36, BoardGeometry.triangular(5).getJumpCount());
+        assertEquals(19, BoardGeometry.hexagonal(3).getSlotCount());
+        assertEquals(4, BoardGeometry.english(3).getDirectionCount());
+        assertEquals(6, BoardGeometry.hexagonal(3).getDirectionCount());
+        assertSame(BoardGeometry.english(5), BoardGeometry.english(5));
+    }
+
+    /**
+     * This tests every jump of a shape goes between slots two apart in one of its directions,
+     * and is found again from its from and to slots
+     */
+    @Test
+    public void testJumpTables(){
+        for(BoardGeometry geometry : Arrays.asList(BoardGeometry.english(5), BoardGeometry.european(),
+                BoardGeometry.triangular(6), BoardGeometry.hexagonal(4))){
+            for(int j = 0; j < geometry.getJumpCount(); j++){
+                int from = geometry.getJumpFrom(j);
+                int over = geometry.getJumpOver(j);
+                int to = geometry.getJumpTo(j);
+                assertTrue(geometry.isValid(from) && geometry.isValid(over) && geometry.isValid(to));
+                assertEquals(2 * (geometry.getRow(over) - geometry.getRow(from)), geometry.getRow(to) - geometry.getRow(from));
+                assertEquals(2 * (geometry.getCol(over) - geometry.getCol(from)), geometry.getCol(to) - geometry.getCol(from));
+                assertEquals(j, geometry.findJump(from, to));
+            }
+        }
+    }
+
+    /**
+     * This tests the English geometry gives the same board as the arm constructors
+     */
+    @Test
+    public void testEnglishBoard(){
+        for(int arm : new int[]{3, 5, 7}){
+            assertEquals(new MarbleSolitaireModelImpl(arm).getGameState(),
+                    new MarbleSolitaireModelImpl(BoardGeometry.english(arm), arm, arm).getGameState());
+        }
+    }
+
+    /**
+     * This tests the moves of the triangular board, including the diagonal ones,
+     * and that diagonal moves are still rejected on the square boards
+     */
+    @Test
+    public void testTriangularMoves(){
+        MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(BoardGeometry.triangular(5), 0, 0);
+        assertEquals(14, model.getScore());
+        assertEquals(new HashSet<>(Arrays.asList(new Move(2, 0, 0, 0), new Move(2, 2, 0, 0))),
+                new HashSet<>(model.getLegalMoves()));
+        model.move(2, 2, 0, 0);
+        assertEquals(SlotState.Empty, model.getSlotAt(1, 1));
+        assertEquals(SlotState.OfB, model.getSlotAt(0, 1));
+        assertTrue(model.tryMove(4, 4, 2, 2));
+        model.undo();
+        assertFalse(model.tryMove(3, 0, 1, 2));
+
+        MarbleSolitaireModelImpl square = new MarbleSolitaireModelImpl(BoardGeometry.european(), 3, 3);
+        assertEquals(36, square.getScore());
+        assertFalse(square.tryMove(1, 1, 3, 3));
+        assertEquals(4, square.getLegalMoveCount());
+    }
+
+    /**
+     * This tests the solver finds a solution of the 15 slot triangle from its top corner,
+     * which replays on the model
+     */
+    @Test
+    public void testSolveTriangle(){
+        MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(BoardGeometry.triangular(5), 0, 0);
+        SolverResult result = new PegSolitaireSolver().solve(model);
+        assertTrue(result.isSolved());
+        for(Move move : result.getMoves()){
+            model.move(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol());
+        }
+        assertEquals(1, model.getScore());
+        assertTrue(model.isGameOver());
+    }
+
+    /**
+     * This tests the symmetries of each shape, the sheared boards only keep the transforms
+     * that map their six directions onto each other
+     */
+    @Test
+    public void testSymmetries(){
+        assertEquals(8, BoardGeometry.english(3).getSymmetries().length);
+        assertEquals(8, BoardGeometry.european().getSymmetries().length);
+        assertArrayEquals(new int[]{DihedralTransform.Identity.ordinal(), DihedralTransform.AntiTranspose.ordinal()},
+                BoardGeometry.triangular(5).getSymmetries());
+        assertEquals(4, BoardGeometry.hexagonal(3).getSymmetries().length);
+    }
+
+    /**
+     * This tests the canonical hash on the triangular board, positions reached by random games
+     * share a hash only when they are equal under a symmetry of the board
+     */
+    @Test
+    public void testTriangularCanonicalHash(){
+        BoardGeometry geometry = BoardGeometry.triangular(5);
+        BoardEncoding encoding = new BoardEncoding(geometry);
+        BoardSymmetry symmetry = new BoardSymmetry(encoding);
+        Map<Long, Long> canonical = new HashMap<>();
+        Random random = new Random(11);
+        for(int game = 0; game < 2000; game++){
+            MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(geometry, 2, 1);
+            while(!model.isGameOver()){
+                model.makeLegalMove(random.nextInt(model.getLegalMoveCount()));
+                long key = symmetry.canonicalize(encoding.encode(model.getBoard()))[0];
+                assertEquals(key, (long) canonical.computeIfAbsent(model.getCanonicalHash(), h -> key));
+            }
+        }
+
+        // the same move made on the two sides of the symmetry axis
+        MarbleSolitaireModelImpl left = new MarbleSolitaireModelImpl(geometry, 2, 0);
+        MarbleSolitaireModelImpl right = new MarbleSolitaireModelImpl(geometry, 4, 2);
+        assertEquals(left.getCanonicalHash(), right.getCanonicalHash());
+        assertNotEquals(left.getZobristHash(), right.getZobristHash());
+    }
+
+    /**
+     * This tests the empty slot must be a slot of the shape
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidEmptySlot(){
+        new MarbleSolitaireModelImpl(BoardGeometry.hexagonal(3), 0, 4);
+    }
+}
@@ -0,0 +1,133 @@
+import marblesolitaire.model.BoardGeometry;
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+import marblesolitaire.model.SlotState;
+import marblesolitaire.solver.BoardEncoding;
+import marblesolitaire.solver.EndgameTablebase;
+import marblesolitaire.solver.PegSolitaireSolver;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is a test for the EndgameTablebase, on the default board with up to 6 marbles
+ */
+public class EndgameTablebaseTest {
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static EndgameTablebase tablebase;
+
+    @BeforeClass
+    public static void build() throws IOException{
+        Path file = folder.getRoot().toPath().resolve("endgame.mstb");
+        EndgameTablebase.build(3, 6, 2, file);
+        tablebase = EndgameTablebase.open(file);
+    }
+
+    /**
+     * This finds the fewest marbles that can be left by trying every sequence of moves
+     */
+    private static int bestScore(MarbleSolitaireModelImpl model){
+        int best = model.getScore();
+        for(Move move : model.getLegalMoves()){
+            model.move(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol());
+            best = Math.min(best, bestScore(model));
+            model.undo();
+        }
+        return best;
+    }
+
+    /**
+     * This tests the entries of random positions match an exhaustive search and the solver
+     */
+    @Test
+    public void testRandomPositions(){
+        BoardEncoding encoding = tablebase.getEncoding();
+        PegSolitaireSolver solver = new PegSolitaireSolver();
+        SplittableRandom random = new SplittableRandom(17);
+        for(int i = 0; i < 300; i++){
+            int marbles = 1 + random.nextInt(6);
+            long position = 0;
+            while(Long.bitCount(position) < marbles){
+                position |= 1L << random.nextInt(encoding.getSlotCount());
+            }
+            MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(encoding.decode(new long[]{position}));
+
+            assertTrue(tablebase.covers(model));
+            assertEquals(bestScore(model), tablebase.getBestScore(model));
+            assertEquals(tablebase.getBestScore(model), tablebase.getBestScore(position));
+            assertEquals(solver.solve(model).isSolved(), tablebase.isSolvable(model));
+        }
+    }
+
+    /**
+     * This tests a few positions known by hand, two marbles next to each other can be solved,
+     * two marbles apart cannot, and three marbles where one jump leaves two next to each other
+     */
+    @Test
+    public void testKnownPositions(){
+        SlotState[][] board = new MarbleSolitaireModelImpl().getBoard();
+        for(SlotState[] row : board){
+            for(int c = 0; c < row.length; c++){
+                if(row[c] == SlotState.Marble) row[c] = SlotState.Empty;
+            }
+        }
+        board[3][3] = SlotState.Marble;
+        board[3][4] = SlotState.Marble;
+        assertEquals(1, tablebase.getBestScore(new MarbleSolitaireModelImpl(board)));
+
+        board[3][4] = SlotState.Empty;
+        board[0][2] = SlotState.Marble;
+        assertEquals(2, tablebase.getBestScore(new MarbleSolitaireModelImpl(board)));
+
+        board[0][2] = SlotState.Empty;
+        board[3][3] = SlotState.Empty;
+        board[3][1] = SlotState.Marble;
+        board[3][2] = SlotState.Marble;
+        board[4][3] = SlotState.Marble;
+        assertEquals(1, tablebase.getBestScore(new MarbleSolitaireModelImpl(board)));
+    }
+
+    /**
+     * This tests a position with more marbles than the tablebase is not covered
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotCovered(){
+        MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl();
+        assertFalse(tablebase.covers(model));
+        tablebase.getBestScore(model);
+    }
+
+    /**
+     * This tests a position of another 7 x 7 board is not covered, though it has few marbles
+     */
+    @Test
+    public void testOtherShapeNotCovered(){
+        for(BoardGeometry geometry : new BoardGeometry[]{BoardGeometry.european(), BoardGeometry.hexagonal(4)}){
+            SlotState[][] board = geometry.newBoard(3, 3);
+            for(SlotState[] row : board){
+                for(int c = 0; c < row.length; c++){
+                    if(row[c] == SlotState.Marble) row[c] = SlotState.Empty;
+                }
+            }
+            board[3][2] = SlotState.Marble;
+            board[3][3] = SlotState.Marble;
+            MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(geometry, board);
+            assertFalse(tablebase.covers(model));
+            try{
+                tablebase.getBestScore(model);
+                fail();
+            }catch(IllegalArgumentException e){
+                // the slots of the model are not those of the tablebase
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.record.GameArchive;
+import marblesolitaire.record.GameArchiveWriter;
+import marblesolitaire.record.GameCursor;
+import marblesolitaire.record.GameRecord;
+import marblesolitaire.record.GameRecordReader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is a test for the memory mapped GameArchive, written by GameArchiveWriter
+ */
+public class GameArchiveTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * This writes random games to an archive and returns them
+     */
+    private List<GameRecord> writeGames(Path file, int count) throws IOException{
+        SplittableRandom random = new SplittableRandom(11);
+        List<GameRecord> games = new ArrayList<>();
+        try(GameArchiveWriter writer = new GameArchiveWriter(file)){
+            for(int i = 0; i < count; i++){
+                int arm = i % 10 == 0 ? 5 : 3;
+                games.add(GameRecords.random(arm, arm, arm, random));
+                writer.write(games.get(i));
+            }
+        }
+        return games;
+    }
+
+    /**
+     * This tests every game can be read by its index, in any order, with segments small
+     * enough that games and index entries are split over many segments
+     */
+    @Test
+    public void testRandomAccess() throws IOException{
+        Path file = this.folder.getRoot().toPath().resolve("games.msga");
+        List<GameRecord> games = this.writeGames(file, 3000);
+        try(GameArchive archive = new GameArchive(file, 6)){
+            assertEquals(games.size(), archive.getGameCount());
+            for(int i = games.size() - 1; i >= 0; i -= 7){
+                assertEquals(games.get(i), archive.getGame(i));
+            }
+        }
+    }
+
+    /**
+     * This tests the cursor walks over all games in order, and the data file can still
+     * be streamed by GameRecordReader
+     */
+    @Test
+    public void testCursor() throws IOException{
+        Path file = this.folder.getRoot().toPath().resolve("games.msga");
+        List<GameRecord> games = this.writeGames(file, 500);
+        try(GameArchive archive = new GameArchive(file); GameRecordReader reader = GameRecordReader.open(file)){
+            GameCursor cursor = archive.cursor();
+            int count = 0;
+            do{
+                GameRecord game = games.get(count++);
+                assertEquals(game.getArm(), cursor.getArm());
+                assertEquals(game.getMoveCount(), cursor.getMoveCount());
+                for(int m = 0; cursor.hasNextMove(); m++){
+                    assertEquals(game.getMoveId(m), cursor.nextMoveId());
+                }
+                assertEquals(game, reader.read());
+            }while(cursor.nextGame());
+            assertEquals(games.size(), count);
+        }
+    }
+
+    /**
+     * This tests a position in the middle of a game is rebuilt by replaying its first moves
+     */
+    @Test
+    public void testReplay() throws IOException{
+        Path file = this.folder.getRoot().toPath().resolve("games.msga");
+        List<GameRecord> games = this.writeGames(file, 20);
+        try(GameArchive archive = new GameArchive(file, 4)){
+            GameRecord game = games.get(13);
+            MarbleSolitaireModelImpl expected = game.newGame();
+            for(int m = 0; m <= game.getMoveCount(); m++){
+                assertEquals(expected.getGameState(), archive.replay(13, m).getGameState());
+                if(m < game.getMoveCount()) expected.move(game.getMoves().get(m).getFromRow(), game.getMoves().get(m).getFromCol(),
+                        game.getMoves().get(m).getToRow(), game.getMoves().get(m).getToCol());
+            }
+        }
+    }
+
+    /**
+     * This tests a game index outside the archive is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidGame() throws IOException{
+        Path file = this.folder.getRoot().toPath().resolve("games.msga");
+        this.writeGames(file, 3);
+        try(GameArchive archive = new GameArchive(file)){
+            archive.getGame(3);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+import marblesolitaire.record.GameRecord;
+import marblesolitaire.record.GameRecordReader;
+import marblesolitaire.record.GameRecordWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is a test for the binary game record format, written by GameRecordWriter and read by GameRecordReader
+ */
+public class GameRecordTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * This tests the move history of the model is recorded in order, and replaying the record
+     * gives the same position
+     */
+    @Test
+    public void testRecordAndReplay(){
+        MarbleSolitaireModelImpl game = new MarbleSolitaireModelImpl();
+        game.move(1, 3, 3, 3);
+        game.move(2, 1, 2, 3);
+        GameRecord record = GameRecord.of(3, 3, 3, game);
+
+        assertEquals(Arrays.asList(new Move(1, 3, 3, 3), new Move(2, 1, 2, 3)), record.getMoves());
+        assertEquals(GameRecord.moveId(new Move(2, 1, 2, 3), 7), record.getMoveId(1));
+        assertEquals(game.getGameState(), record.replay().getGameState());
+        assertEquals(new Move(2, 1, 2, 3), GameRecord.toMove(record.getMoveId(1), 7));
+    }
+
+    /**
+     * This tests a record packed into bytes unpacks to the same record, and bad bytes are refused
+     */
+    @Test
+    public void testBytes(){
+        MarbleSolitaireModelImpl game = new MarbleSolitaireModelImpl(7, 7, 7);
+        game.move(5, 7, 7, 7);
+        game.move(8, 7, 6, 7);
+        GameRecord record = GameRecord.of(7, 7, 7, game);
+        byte[] bytes = record.toBytes();
+        assertEquals(record, GameRecord.fromBytes(bytes));
+        assertEquals(game.getGameState(), GameRecord.fromBytes(bytes).replay().getGameState());
+        try{
+            GameRecord.fromBytes(Arrays.copyOf(bytes, bytes.length - 1));
+            fail();
+        }catch(IllegalArgumentException e){
+            // the last move id is cut
+        }
+    }
+
+    /**
+     * This tests games written to a file are read back the same and in order,
+     * across a buffer refill and on boards where the move ids take more than one byte
+     */
+    @Test
+    public void testRoundTrip() throws IOException{
+        SplittableRandom random = new SplittableRandom(5);
+        List<GameRecord> games = new ArrayList<>();
+        for(int i = 0; i < 5000; i++){
+            games.add(GameRecords.random(3, 3, 3, random));
+        }
+        games.add(GameRecords.random(5, 0, 5, random));
+        games.add(new GameRecord(3, 3, 3, new int[0]));
+
+        Path file = this.folder.getRoot().toPath().resolve("games.msgr");
+        try(GameRecordWriter writer = GameRecordWriter.open(file)){
+            for(GameRecord game : games){
+                writer.write(game);
+            }
+            assertEquals(games.size(), writer.getGameCount());
+        }
+        // the arm 3 games are about 20 moves of 1 or 2 bytes each
+        assertTrue(Files.size(file) < 5000 * 50);
+
+        try(GameRecordReader reader = GameRecordReader.open(file)){
+            for(GameRecord game : games){
+                GameRecord read = reader.read();
+                assertEquals(game, read);
+                assertEquals(game.replay().getGameState(), read.replay().getGameState());
+            }
+            assertNull(reader.read());
+        }
+    }
+
+    /**
+     * This tests a file cut off in the middle of a game is reported
+     */
+    @Test(expected = EOFException.class)
+    public void testTruncated() throws IOException{
+        Path file = this.folder.getRoot().toPath().resolve("games.msgr");
+        try(GameRecordWriter writer = GameRecordWriter.open(file)){
+            writer.write(GameRecords.random(3, 3, 3, new SplittableRandom(1)));
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        try(GameRecordReader reader = GameRecordReader.open(file)){
+            reader.read();
+        }
+    }
+
+    /**
+     * This tests a file that is not a game record is rejected
+     */
+    @Test(expected = IOException.class)
+    public void testInvalidHeader() throws IOException{
+        Path file = this.folder.getRoot().toPath().resolve("games.msgr");
+        Files.write(file, new byte[]{'n', 'o', 'p', 'e', 1});
+        GameRecordReader.open(file);
+    }
+
+    /**
+     * This tests a game whose move count is negative or more than its board allows is rejected
+     * before its moves are read, and a large count on a large board only reads the data there is
+     */
+    @Test
+    public void testInvalidMoveCount() throws IOException{
+        Path file = this.folder.getRoot().toPath().resolve("games.msgr");
+        for(int[] game : new int[][]{{3, 3, 3, 33}, {3, 3, 3, -1}, {21, 21, 21, 1_000_000}, {4, 4, 4, 0}}){
+            Files.write(file, recordFile(game));
+            try(GameRecordReader reader = GameRecordReader.open(file)){
+                reader.read();
+                fail();
+            }catch(EOFException e){
+                fail();
+            }catch(IOException e){
+                // the count is refused, not read until the data ends
+            }
+        }
+        Files.write(file, recordFile(10001, 1, 10001, 100_000_000));
+        try(GameRecordReader reader = GameRecordReader.open(file)){
+            reader.read();
+            fail();
+        }catch(EOFException e){
+            // the data ends long before the count
+        }
+
+        try{
+            GameRecord.fromBytes(new byte[]{3, 3, 3, 32, 0});
+            fail();
+        }catch(IllegalArgumentException e){
+            // the count is more than the bytes left
+        }
+    }
+
+    /**
+     * This makes the bytes of a record file, the header followed by varints
+     */
+    private static byte[] recordFile(int... values){
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[]{'M', 'S', 'G', 'R', 1});
+        for(int value : values){
+            while((value & ~0x7F) != 0){
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,27 @@
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.record.GameRecord;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class makes the game records the record, archive and replay tests run on
+ */
+final class GameRecords {
+    private GameRecords(){}
+
+    /**
+     * This method plays random legal moves on the English board until the game is over
+     * @param arm, arm thickness of the board
+     * @param sRow, row of the empty slot
+     * @param sCol, column of the empty slot
+     * @param random, the source of the moves
+     * @return the record of the game
+     */
+    static GameRecord random(int arm, int sRow, int sCol, SplittableRandom random){
+        MarbleSolitaireModelImpl game = new MarbleSolitaireModelImpl(arm, sRow, sCol);
+        while(!game.isGameOver()){
+            game.makeLegalMove(random.nextInt(game.getLegalMoveCount()));
+        }
+        return GameRecord.of(arm, sRow, sCol, game);
+    }
+}
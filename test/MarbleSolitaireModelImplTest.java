@@ -1,8 +1,15 @@
+import marblesolitaire.model.BoardListener;
 import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
 import marblesolitaire.model.SlotState;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
@@ -346,4 +353,268 @@ public class MarbleSolitaireModelImplTest {
 
 
     }
+
+    /**
+     * This tests the getLegalMoves method on the starting board and after one move
+     */
+    @Test
+    public void testGetLegalMoves(){
+        this.test = new MarbleSolitaireModelImpl();
+        assertEquals(new HashSet<>(Arrays.asList(
+                new Move(1, 3, 3, 3), new Move(5, 3, 3, 3),
+                new Move(3, 1, 3, 3), new Move(3, 5, 3, 3))), new HashSet<>(this.test.getLegalMoves()));
+        this.test.move(1, 3, 3, 3);
+        assertEquals(new HashSet<>(Arrays.asList(
+                new Move(2, 1, 2, 3), new Move(2, 5, 2, 3), new Move(4, 3, 2, 3))),
+                new HashSet<>(this.test.getLegalMoves()));
+        assertEquals(3, this.test.getLegalMoveCount());
+    }
+
+    /**
+     * This tests the legal destinations of single slots, on the starting board and after one move
+     */
+    @Test
+    public void testGetLegalDestinations(){
+        this.test = new MarbleSolitaireModelImpl();
+        int[] rows = new int[4];
+        int[] cols = new int[4];
+        assertEquals(1, this.test.getLegalDestinations(1, 3, rows, cols));
+        assertEquals(3, rows[0]);
+        assertEquals(3, cols[0]);
+        assertEquals(0, this.test.getLegalDestinations(0, 3, rows, cols));
+        assertEquals(0, this.test.getLegalDestinations(0, 0, rows, cols));
+        assertEquals(0, this.test.getLegalDestinations(-1, 9, rows, cols));
+        this.test.move(1, 3, 3, 3);
+        assertEquals(0, this.test.getLegalDestinations(3, 3, rows, cols));
+        assertEquals(1, this.test.getLegalDestinations(4, 3, rows, cols));
+        assertEquals(2, rows[0]);
+        assertEquals(3, cols[0]);
+    }
+
+    /**
+     * This plays random legal moves and checks the incrementally kept legal moves
+     * always match a full scan of the board
+     */
+    @Test
+    public void testLegalMovesMatchFullScan(){
+        Random random = new Random(7);
+        for(int arm : new int[]{3, 5, 7}){
+            this.test = new MarbleSolitaireModelImpl(arm);
+            while(true){
+                List<Move> legal = this.test.getLegalMoves();
+                assertEquals(scanLegalMoves(this.test.getBoard()), new HashSet<>(legal));
+                assertEquals(legal.isEmpty(), this.test.isGameOver());
+                if(legal.isEmpty()) break;
+                Move m = legal.get(random.nextInt(legal.size()));
+                this.test.move(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol());
+            }
+        }
+    }
+
+    /**
+     * This helper finds every legal move by checking all slots of the board
+     * @param board the board to scan
+     * @return the set of legal moves
+     */
+    private static Set<Move> scanLegalMoves(SlotState[][] board){
+        Set<Move> moves = new HashSet<>();
+        int[][] jumps = {{0, -2}, {0, 2}, {-2, 0}, {2, 0}};
+        for(int r = 0; r < board.length; r++){
+            for(int c = 0; c < board.length; c++){
+                for(int[] j : jumps){
+                    int tr = r + j[0];
+                    int tc = c + j[1];
+                    if(tr < 0 || tr >= board.length || tc < 0 || tc >= board.length) continue;
+                    if(board[r][c] == SlotState.Marble && board[(r + tr) / 2][(c + tc) / 2] == SlotState.Marble
+                            && board[tr][tc] == SlotState.Empty){
+                        moves.add(new Move(r, c, tr, tc));
+                    }
+                }
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * This tests the Zobrist hashes kept up to date by move, the hash matches a board
+     * built with the same marbles, and the canonical hash is equal for mirrored positions
+     */
+    @Test
+    public void testZobristHash(){
+        this.test = new MarbleSolitaireModelImpl();
+        this.test.move(1, 3, 3, 3);
+        this.test.move(2, 1, 2, 3);
+        MarbleSolitaireModelImpl mirrored = new MarbleSolitaireModelImpl();
+        mirrored.move(1, 3, 3, 3);
+        mirrored.move(2, 5, 2, 3);
+        assertNotEquals(this.test.getZobristHash(), mirrored.getZobristHash());
+        assertEquals(this.test.getCanonicalHash(), mirrored.getCanonicalHash());
+
+        // same board reached by making two moves in a different order gives the same hash
+        this.test.move(4, 1, 2, 1);
+        this.test.move(2, 4, 2, 2);
+        MarbleSolitaireModelImpl swapped = new MarbleSolitaireModelImpl();
+        swapped.move(1, 3, 3, 3);
+        swapped.move(2, 1, 2, 3);
+        swapped.move(2, 4, 2, 2);
+        swapped.move(4, 1, 2, 1);
+        assertEquals(this.test.getGameState(), swapped.getGameState());
+        assertEquals(this.test.getZobristHash(), swapped.getZobristHash());
+    }
+
+    /**
+     * This tests the tryMove method returns false on invalid moves without changing the board
+     */
+    @Test
+    public void testTryMove(){
+        this.test = new MarbleSolitaireModelImpl(5);
+        String start = this.test.getGameState();
+        assertFalse(this.test.tryMove(5, 4, 5, 5));
+        assertFalse(this.test.tryMove(3, 3, 5, 5));
+        assertFalse(this.test.tryMove(-1, 5, 1, 5));
+        assertEquals(start, this.test.getGameState());
+        assertEquals(84, this.test.getScore());
+        assertTrue(this.test.tryMove(5, 3, 5, 5));
+        assertEquals(83, this.test.getScore());
+        assertEquals(1, this.test.getMoveCount());
+    }
+
+    /**
+     * This tests the undo method plays a random game to the end and takes back every move,
+     * checking each earlier board, score, hash and legal moves are restored
+     */
+    @Test
+    public void testUndo(){
+        Random random = new Random(11);
+        this.test = new MarbleSolitaireModelImpl(5, 4, 5);
+        assertFalse(this.test.undo());
+        List<String> states = new ArrayList<>();
+        List<Long> hashes = new ArrayList<>();
+        List<Set<Move>> legal = new ArrayList<>();
+        while(!this.test.isGameOver()){
+            states.add(this.test.getGameState());
+            hashes.add(this.test.getZobristHash());
+            legal.add(new HashSet<>(this.test.getLegalMoves()));
+            List<Move> moves = this.test.getLegalMoves();
+            Move m = moves.get(random.nextInt(moves.size()));
+            assertTrue(this.test.tryMove(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol()));
+        }
+        for(int i = states.size() - 1; i >= 0; i--){
+            assertTrue(this.test.undo());
+            assertEquals(states.get(i), this.test.getGameState());
+            assertEquals((long) hashes.get(i), this.test.getZobristHash());
+            assertEquals(legal.get(i), new HashSet<>(this.test.getLegalMoves()));
+            assertEquals(84 - i, this.test.getScore());
+        }
+        assertFalse(this.test.undo());
+        assertEquals(0, this.test.getMoveCount());
+    }
+
+    /**
+     * This tests the fifth constructor copies a board from another game,
+     * and the copy can continue the game independently
+     */
+    @Test
+    public void testNormalFifthCon(){
+        MarbleSolitaireModelImpl original = new MarbleSolitaireModelImpl(5);
+        original.move(5, 3, 5, 5);
+        this.test = new MarbleSolitaireModelImpl(original.getBoard());
+        assertEquals(original.getGameState(), this.test.getGameState());
+        assertEquals(83, this.test.getScore());
+        assertEquals(original.getZobristHash(), this.test.getZobristHash());
+        assertEquals(new HashSet<>(original.getLegalMoves()), new HashSet<>(this.test.getLegalMoves()));
+        this.test.move(5, 6, 5, 4);
+        assertEquals(83, original.getScore());
+        assertEquals(82, this.test.getScore());
+    }
+
+    /**
+     * This tests if the fifth constructor throws exception
+     * The board is not a valid shape
+     */
+    @Test (expected = IllegalArgumentException.class)
+    public void testFifthConException(){
+        SlotState[][] board = new MarbleSolitaireModelImpl().getBoard();
+        board[0][0] = SlotState.Empty;
+        this.test = new MarbleSolitaireModelImpl(board);
+    }
+
+    /**
+     * This tests the makeLegalMove method makes the legal move at the given position
+     */
+    @Test
+    public void testMakeLegalMove(){
+        this.test = new MarbleSolitaireModelImpl();
+        Move m = this.test.getLegalMoves().get(2);
+        this.test.makeLegalMove(2);
+        MarbleSolitaireModelImpl expected = new MarbleSolitaireModelImpl();
+        expected.move(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol());
+        assertEquals(expected.getGameState(), this.test.getGameState());
+        try{
+            this.test.makeLegalMove(this.test.getLegalMoveCount());
+            fail();
+        }catch(IllegalArgumentException iae){}
+    }
+
+    /**
+     * This tests the getGameState method returns the cached String until the board changes,
+     * and the patched text matches after a move and an undo
+     */
+    @Test
+    public void testGameStateCache(){
+        this.test = new MarbleSolitaireModelImpl(2, 2);
+        String start = this.test.getGameState();
+        assertSame(start, this.test.getGameState());
+        assertFalse(this.test.tryMove(0, 2, 0, 4));
+        assertSame(start, this.test.getGameState());
+        this.test.move(0, 2, 2, 2);
+        assertEquals("    _ O O    \n"+
+                "    _ O O    \n"+
+                "O O O O O O O\n"+
+                "O O O O O O O\n"+
+                "O O O O O O O\n"+
+                "    O O O    \n"+
+                "    O O O    ", this.test.getGameState());
+        this.test.undo();
+        assertEquals(start, this.test.getGameState());
+    }
+
+    /**
+     * This tests the getSlotAt method reads the live board, and the board listener
+     * is told about exactly the three slots each move and undo changes
+     */
+    @Test
+    public void testSlotAtAndListener(){
+        this.test = new MarbleSolitaireModelImpl();
+        assertEquals(7, this.test.getBoardSize());
+        assertEquals(SlotState.OfB, this.test.getSlotAt(0, 0));
+        assertEquals(SlotState.Empty, this.test.getSlotAt(3, 3));
+
+        List<String> changes = new ArrayList<>();
+        BoardListener listener = (row, col, state) -> changes.add(row + "," + col + "=" + state);
+        this.test.addBoardListener(listener);
+        this.test.move(1, 3, 3, 3);
+        assertEquals(SlotState.Marble, this.test.getSlotAt(3, 3));
+        assertEquals(new HashSet<>(Arrays.asList("1,3=_", "2,3=_", "3,3=O")), new HashSet<>(changes));
+
+        changes.clear();
+        assertFalse(this.test.tryMove(1, 3, 3, 3));
+        assertTrue(changes.isEmpty());
+        this.test.undo();
+        assertEquals(new HashSet<>(Arrays.asList("1,3=O", "2,3=O", "3,3=_")), new HashSet<>(changes));
+
+        changes.clear();
+        this.test.removeBoardListener(listener);
+        this.test.move(1, 3, 3, 3);
+        assertTrue(changes.isEmpty());
+    }
+
+    /**
+     * This tests if the getSlotAt method throws exception outside the board
+     */
+    @Test (expected = IllegalArgumentException.class)
+    public void testSlotAtException(){
+        this.test = new MarbleSolitaireModelImpl();
+        this.test.getSlotAt(7, 0);
+    }
 }
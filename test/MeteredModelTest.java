@@ -0,0 +1,155 @@
+import marblesolitaire.metrics.LatencyHistogram;
+import marblesolitaire.metrics.MeteredModel;
+import marblesolitaire.metrics.ModelMetrics;
+import marblesolitaire.model.BitboardMarbleSolitaireModel;
+import marblesolitaire.model.MarbleSolitaireModel;
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is a test for the MeteredModel and the ModelMetrics it records
+ */
+public class MeteredModelTest {
+
+    /**
+     * This tests every call is counted and handed on to the wrapped model
+     */
+    @Test
+    public void testCounts(){
+        ModelMetrics metrics = new ModelMetrics();
+        MeteredModel model = new MeteredModel(new MarbleSolitaireModelImpl(), metrics);
+        model.move(1, 3, 3, 3);
+        try{
+            model.move(1, 3, 3, 3);
+            fail();
+        }catch(IllegalArgumentException e){
+            // counted as invalid, then rethrown
+        }
+        assertFalse(model.isGameOver());
+        assertEquals(new MarbleSolitaireModelImpl(1, 3).getGameState().length(), model.getGameState().length());
+        assertEquals(31, model.getScore());
+        assertEquals(7, model.getBoard().length);
+
+        assertEquals(1, metrics.getMoves());
+        assertEquals(1, metrics.getInvalidMoves());
+        assertEquals(2, metrics.getMoveLatency().getCount());
+        assertEquals(1, metrics.getGameOverChecks());
+        assertEquals(1, metrics.getGameStates());
+        assertEquals(1, metrics.getBoardCopies());
+        metrics.reset();
+        assertEquals(0, metrics.getMoves());
+        assertEquals(0, metrics.getMoveLatency().getCount());
+    }
+
+    /**
+     * This tests one metrics object shared by models of both implementations
+     */
+    @Test
+    public void testShared(){
+        ModelMetrics metrics = new ModelMetrics();
+        MarbleSolitaireModel a = MeteredModel.wrap(new MarbleSolitaireModelImpl(), metrics);
+        MeteredModel b = new MeteredModel(new BitboardMarbleSolitaireModel(), metrics);
+        a.move(1, 3, 3, 3);
+        b.move(5, 3, 3, 3);
+        assertEquals(7, b.getBoard().length);
+        assertEquals(2, metrics.getMoves());
+        assertEquals(1, metrics.getBoardCopies());
+    }
+
+    /**
+     * This tests a MarbleSolitaireModelImpl given metrics records tryMove and its other calls itself,
+     * without a wrapper, and stops recording once the metrics are taken away
+     */
+    @Test
+    public void testModelHook(){
+        ModelMetrics metrics = new ModelMetrics();
+        MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl();
+        model.setMetrics(metrics);
+        assertSame(metrics, model.getMetrics());
+        assertTrue(model.tryMove(1, 3, 3, 3));
+        assertFalse(model.tryMove(1, 3, 3, 3));
+        try{
+            model.move(0, 0, 0, 2);
+            fail();
+        }catch(IllegalArgumentException e){
+            // counted as an invalid move once
+        }
+        model.makeLegalMove(0);
+        model.isGameOver();
+        model.getGameState();
+        model.getBoard();
+        assertEquals(2, metrics.getMoves());
+        assertEquals(2, metrics.getInvalidMoves());
+        assertEquals(4, metrics.getMoveLatency().getCount());
+        assertEquals(1, metrics.getGameOverChecks());
+        assertEquals(1, metrics.getGameStates());
+        assertEquals(1, metrics.getBoardCopies());
+
+        model.setMetrics(null);
+        Move next = model.getLegalMoves().get(0);
+        assertTrue(model.tryMove(next.getFromRow(), next.getFromCol(), next.getToRow(), next.getToCol()));
+        assertEquals(2, metrics.getMoves());
+    }
+
+    /**
+     * This tests metrics are switched off by not wrapping the model
+     */
+    @Test
+    public void testDisabled(){
+        MarbleSolitaireModel model = new MarbleSolitaireModelImpl();
+        assertSame(model, MeteredModel.wrap(model, null));
+    }
+
+    /**
+     * This tests the percentiles of the histogram are the tops of their power of two buckets
+     */
+    @Test
+    public void testHistogram(){
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileNanos(50));
+        for(int i = 0; i < 98; i++){
+            histogram.record(100);
+        }
+        histogram.record(5000);
+        histogram.record(-3);
+        assertEquals(100, histogram.getCount());
+        assertEquals(127, histogram.getPercentileNanos(50));
+        assertEquals(127, histogram.getPercentileNanos(98));
+        assertEquals(127, histogram.getPercentileNanos(99));
+        assertEquals(8191, histogram.getPercentileNanos(100));
+        assertEquals(0, histogram.getPercentileNanos(0.5));
+        assertEquals(14800 / 100.0, histogram.getMeanNanos(), 1e-9);
+    }
+
+    /**
+     * This tests the values reach a reporter and JMX
+     */
+    @Test
+    public void testReportAndJmx() throws Exception{
+        ModelMetrics metrics = new ModelMetrics();
+        MarbleSolitaireModel model = MeteredModel.wrap(new MarbleSolitaireModelImpl(), metrics);
+        model.move(1, 3, 3, 3);
+        model.isGameOver();
+        Map<String, Long> values = metrics.getValues();
+        assertEquals(Long.valueOf(1), values.get("moves"));
+        assertEquals(Long.valueOf(1), values.get("is.game.over.count"));
+        assertTrue(values.containsKey("move.p99.nanos"));
+        assertTrue(values.containsKey("move.p999.nanos"));
+
+        ObjectName name = metrics.register("test");
+        try{
+            assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Moves"));
+            assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "GameOverChecks"));
+        }finally{
+            ModelMetrics.unregister(name);
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+}
@@ -0,0 +1,106 @@
+import marblesolitaire.controller.ClickResult;
+import marblesolitaire.controller.MoveSelector;
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is a test for the MoveSelector, the two phase click state machine of the controller
+ */
+public class MoveSelectorTest {
+
+    MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl();
+    MoveSelector selector = new MoveSelector(this.model);
+
+    /**
+     * This tests selecting a marble lists the slots it can jump to, and clicking one moves it
+     */
+    @Test
+    public void testSelectAndMove(){
+        ClickResult result = this.selector.click(1, 3);
+        assertEquals(ClickResult.Outcome.SELECTED, result.getOutcome());
+        assertEquals(1, result.getDestinationCount());
+        assertEquals(3, result.getDestinationRow(0));
+        assertEquals(3, result.getDestinationCol(0));
+        assertTrue(this.selector.hasSelection());
+
+        result = this.selector.click(3, 3);
+        assertEquals(ClickResult.Outcome.MOVED, result.getOutcome());
+        assertEquals(1, result.getFromRow());
+        assertEquals(3, result.getFromCol());
+        assertTrue(result.isMoveAttempt());
+        assertFalse(this.selector.hasSelection());
+        assertEquals(31, this.model.getScore());
+    }
+
+    /**
+     * This tests clicking the selected marble again drops it, and another marble replaces it
+     */
+    @Test
+    public void testDeselectAndReselect(){
+        assertEquals(ClickResult.Outcome.SELECTED, this.selector.click(0, 3).getOutcome());
+        assertEquals(0, this.selector.click(0, 3).getDestinationCount());
+        assertFalse(this.selector.hasSelection());
+        this.selector.click(0, 3);
+        ClickResult result = this.selector.click(3, 1);
+        assertEquals(ClickResult.Outcome.SELECTED, result.getOutcome());
+        assertEquals(3, this.selector.getSelectedRow());
+        assertEquals(1, this.selector.getSelectedCol());
+        assertEquals(32, this.model.getScore());
+    }
+
+    /**
+     * This tests clicks that cannot move, on nothing selected, off the board, and a jump
+     * that is not valid
+     */
+    @Test
+    public void testIgnoredAndInvalid(){
+        assertEquals(ClickResult.Outcome.IGNORED, this.selector.click(3, 3).getOutcome());
+        assertEquals(ClickResult.Outcome.IGNORED, this.selector.click(0, 0).getOutcome());
+        assertEquals(ClickResult.Outcome.IGNORED, this.selector.click(-1, 20).getOutcome());
+        this.selector.click(0, 3);
+        ClickResult result = this.selector.click(3, 3);
+        assertEquals(ClickResult.Outcome.INVALID_MOVE, result.getOutcome());
+        assertFalse(this.selector.hasSelection());
+        assertEquals(32, this.model.getScore());
+    }
+
+    /**
+     * This tests a copy keeps the result after the next click
+     */
+    @Test
+    public void testCopy(){
+        ClickResult copy = this.selector.click(5, 3).copy();
+        this.selector.click(5, 3);
+        assertEquals(ClickResult.Outcome.SELECTED, copy.getOutcome());
+        assertEquals(1, copy.getDestinationCount());
+        assertEquals(3, copy.getDestinationRow(0));
+    }
+
+    /**
+     * This tests clicking allocates nothing once the code is warmed up
+     */
+    @Test
+    public void testNoAllocation(){
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if(!(bean instanceof com.sun.management.ThreadMXBean)) return;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long thread = Thread.currentThread().getId();
+        for(int round = 0; round < 2; round++){
+            long before = threads.getThreadAllocatedBytes(thread);
+            for(int i = 0; i < 200_000; i++){
+                this.selector.click(1, 3);
+                this.selector.click(1, 3);
+                this.selector.click(3, 3);
+                this.selector.click(1, 3);
+                this.selector.click(0, 3);
+            }
+            long allocated = threads.getThreadAllocatedBytes(thread) - before;
+            // the first round warms up the code, the second must not allocate per click
+            if(round == 1) assertTrue(String.format("%d bytes allocated", allocated), allocated < 10_000);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+import marblesolitaire.model.BitboardMarbleSolitaireModel;
+import marblesolitaire.model.BoardGeometry;
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+import marblesolitaire.model.SlotState;
+import marblesolitaire.solver.BoardEncoding;
+import marblesolitaire.solver.BoardSymmetry;
+import marblesolitaire.solver.ParallelPegSolitaireSolver;
+import marblesolitaire.solver.PegSolitaireSolver;
+import marblesolitaire.solver.SolverResult;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is a test for the PegSolitaireSolver, on solvable and unsolvable positions
+ */
+public class PegSolitaireSolverTest {
+
+    PegSolitaireSolver solver = new PegSolitaireSolver();
+
+    /**
+     * This tests the solver on the default board, replaying the solution
+     * on the model must leave one marble
+     */
+    @Test
+    public void testSolveDefaultBoard(){
+        MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl();
+        SolverResult result = this.solver.solve(model);
+        assertTrue(result.isSolved());
+        assertEquals(31, result.getMoves().size());
+        for(Move m : result.getMoves()){
+            model.move(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol());
+        }
+        assertEquals(1, model.getScore());
+        assertTrue(model.isGameOver());
+        assertTrue(result.getStats().getNodes() > 0);
+    }
+
+    /**
+     * This tests the solver on a model read back from getGameState,
+     * with a position that already had some moves made
+     */
+    @Test
+    public void testSolveOtherModel(){
+        BitboardMarbleSolitaireModel model = new BitboardMarbleSolitaireModel(2, 3);
+        model.move(0, 3, 2, 3);
+        SolverResult result = this.solver.solve(model);
+        assertTrue(result.isSolved());
+        for(Move m : result.getMoves()){
+            model.move(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol());
+        }
+        assertEquals(1, model.getScore());
+    }
+
+    /**
+     * This tests the solver proves a position unsolvable,
+     * the board part way through the game of MarbleSolitaireModelImplTest.testIsGameOverTrue
+     */
+    @Test
+    public void testUnsolvable(){
+        MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl();
+        model.move(1, 3, 3, 3);
+        model.move(2, 1, 2, 3);
+        model.move(2, 4, 2, 2);
+        model.move(2, 6, 2, 4);
+        model.move(4, 6, 2, 6);
+        model.move(4, 1, 2, 1);
+        model.move(4, 5, 2, 5);
+        model.move(4, 3, 2, 3);
+        model.move(6, 3, 4, 3);
+        model.move(4, 3, 4, 5);
+        model.move(2, 4, 4, 4);
+        SolverResult result = this.solver.solve(model);
+        assertFalse(result.isSolved());
+        assertTrue(result.getMoves().isEmpty());
+        assertEquals(21, model.getScore());
+    }
+
+    /**
+     * This tests the solver with the table keyed on canonical positions
+     */
+    @Test
+    public void testSolveWithSymmetry(){
+        MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(2, 3);
+        SolverResult result = new PegSolitaireSolver(true).solve(model);
+        assertTrue(result.isSolved());
+        for(Move m : result.getMoves()){
+            model.move(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol());
+        }
+        assertEquals(1, model.getScore());
+    }
+
+    /**
+     * This tests one solver with the table keyed on canonical positions can be reused on a
+     * board of another size, its symmetries are rebuilt for the new board
+     */
+    @Test
+    public void testReuseOnOtherBoard(){
+        PegSolitaireSolver reused = new PegSolitaireSolver(true);
+        assertTrue(reused.solve(new MarbleSolitaireModelImpl(2, 3)).isSolved());
+
+        // two marbles next to each other on the arm 5 board
+        SlotState[][] board = BoardGeometry.english(5).newBoard(5, 5);
+        for(SlotState[] row : board){
+            for(int c = 0; c < row.length; c++){
+                if(row[c] == SlotState.Marble) row[c] = SlotState.Empty;
+            }
+        }
+        board[5][5] = SlotState.Marble;
+        board[5][6] = SlotState.Marble;
+        MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(board);
+        SolverResult result = reused.solve(model);
+        assertTrue(result.isSolved());
+        assertEquals(1, result.getMoves().size());
+        assertTrue(reused.solve(new MarbleSolitaireModelImpl(3, 2, 3)).isSolved());
+    }
+
+    /**
+     * This tests the 4 boards with the first move made in each direction
+     * all have the same canonical form, and a different position does not
+     */
+    @Test
+    public void testCanonicalize(){
+        int[][] firstMoves = {{1, 3, 3, 3}, {5, 3, 3, 3}, {3, 1, 3, 3}, {3, 5, 3, 3}};
+        BoardEncoding encoding = new BoardEncoding(new MarbleSolitaireModelImpl().getBoard());
+        BoardSymmetry symmetry = new BoardSymmetry(encoding);
+        assertEquals(8, symmetry.getSymmetryCount());
+        long[] expected = null;
+        for(int[] m : firstMoves){
+            MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl();
+            model.move(m[0], m[1], m[2], m[3]);
+            long[] canonical = symmetry.canonicalize(encoding.encode(model.getBoard()));
+            if(expected == null) expected = canonical;
+            assertArrayEquals(expected, canonical);
+        }
+        long[] start = symmetry.canonicalize(encoding.encode(new MarbleSolitaireModelImpl().getBoard()));
+        assertFalse(Arrays.equals(expected, start));
+    }
+
+    /**
+     * This tests the parallel solver finds a solution with several workers,
+     * and proves the same unsolvable position as testUnsolvable
+     */
+    @Test
+    public void testParallelSolve(){
+        ParallelPegSolitaireSolver parallel = new ParallelPegSolitaireSolver(4, 3);
+        try{
+            MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(0, 2);
+            SolverResult result = parallel.solve(model);
+            assertTrue(result.isSolved());
+            for(Move m : result.getMoves()){
+                model.move(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol());
+            }
+            assertEquals(1, model.getScore());
+
+            MarbleSolitaireModelImpl dead = new MarbleSolitaireModelImpl();
+            int[][] moves = {{1, 3, 3, 3}, {2, 1, 2, 3}, {2, 4, 2, 2}, {2, 6, 2, 4}, {4, 6, 2, 6},
+                    {4, 1, 2, 1}, {4, 5, 2, 5}, {4, 3, 2, 3}, {6, 3, 4, 3}, {4, 3, 4, 5}, {2, 4, 4, 4}};
+            for(int[] m : moves){
+                dead.move(m[0], m[1], m[2], m[3]);
+            }
+            assertFalse(parallel.solve(dead).isSolved());
+        }finally{
+            parallel.shutdown();
+        }
+    }
+}
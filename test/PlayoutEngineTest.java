@@ -0,0 +1,90 @@
+import marblesolitaire.model.BoardGeometry;
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+import marblesolitaire.playout.MoveStatistics;
+import marblesolitaire.playout.PlayoutEngine;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is a test for the PlayoutEngine, on the statistics it returns for each move
+ */
+public class PlayoutEngineTest {
+
+    /**
+     * This tests every legal move gets the full playout budget when there is no time limit,
+     * and the model is not changed by rating its moves
+     */
+    @Test
+    public void testRateMoves(){
+        MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl();
+        model.move(1, 3, 3, 3);
+        String state = model.getGameState();
+        List<MoveStatistics> stats = new PlayoutEngine(200, 0).rateMoves(model);
+
+        assertEquals(state, model.getGameState());
+        Set<Move> rated = new HashSet<>();
+        for(MoveStatistics s : stats){
+            rated.add(s.getMove());
+            assertEquals(200, s.getPlayouts());
+            assertTrue(s.getMeanScore() >= s.getBestScore());
+            assertTrue(s.getBestScore() >= 1 && s.getMeanScore() <= 30);
+        }
+        assertEquals(new HashSet<>(model.getLegalMoves()), rated);
+        for(int i = 1; i < stats.size(); i++){
+            assertTrue(stats.get(i - 1).getMeanScore() <= stats.get(i).getMeanScore());
+        }
+    }
+
+    /**
+     * This tests a hint request on the default board answers within its time limit
+     */
+    @Test
+    public void testTimeLimit(){
+        PlayoutEngine engine = new PlayoutEngine(Integer.MAX_VALUE, 50);
+        long start = System.nanoTime();
+        List<MoveStatistics> stats = engine.rateMoves(new MarbleSolitaireModelImpl());
+        assertTrue(System.nanoTime() - start < 500_000_000L);
+        assertEquals(4, stats.size());
+        assertTrue(stats.get(0).getPlayouts() > 0);
+    }
+
+    /**
+     * This tests there are no statistics once the game is over
+     */
+    @Test
+    public void testGameOver(){
+        MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(3, 3, 3);
+        int[][] moves = {{1, 3, 3, 3}, {2, 1, 2, 3}, {2, 4, 2, 2}, {2, 6, 2, 4}, {4, 6, 2, 6},
+                {4, 1, 2, 1}, {4, 5, 2, 5}, {4, 3, 2, 3}, {6, 3, 4, 3}, {4, 3, 4, 5}, {2, 4, 4, 4},
+                {4, 4, 4, 6}, {6, 4, 4, 4}, {0, 4, 2, 4}, {0, 2, 0, 4}, {2, 2, 0, 2}, {4, 2, 2, 2}, {6, 2, 4, 2}};
+        for(int[] m : moves){
+            model.move(m[0], m[1], m[2], m[3]);
+        }
+        assertTrue(new PlayoutEngine().rateMoves(model).isEmpty());
+    }
+
+    /**
+     * This tests the moves of the other board shapes are rated on the same shape,
+     * each legal move of the model once
+     */
+    @Test
+    public void testOtherShapes(){
+        for(BoardGeometry geometry : new BoardGeometry[]{BoardGeometry.european(), BoardGeometry.triangular(5),
+                BoardGeometry.hexagonal(3)}){
+            MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(geometry, 2, 2);
+            List<MoveStatistics> stats = new PlayoutEngine(20, 0).rateMoves(model);
+            Set<Move> rated = new HashSet<>();
+            for(MoveStatistics s : stats){
+                rated.add(s.getMove());
+                assertEquals(20, s.getPlayouts());
+            }
+            assertEquals(new HashSet<>(model.getLegalMoves()), rated);
+        }
+    }
+}
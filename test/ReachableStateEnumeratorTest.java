@@ -0,0 +1,119 @@
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+import marblesolitaire.model.SlotState;
+import marblesolitaire.solver.ReachableStateEnumerator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is a test for the ReachableStateEnumerator, on the number of positions of each level
+ */
+public class ReachableStateEnumeratorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * This tests the counts of the default board from the center, the first levels of
+     * the well known sequence, with a buffer small enough to write and merge many runs
+     */
+    @Test
+    public void testCenterCounts() throws IOException{
+        Path directory = this.folder.getRoot().toPath();
+        long[] counts = new ReachableStateEnumerator(3, 3, 3, directory, 1 << 10).run(24);
+        assertArrayEquals(new long[]{1, 4, 12, 60, 296, 1338, 5648, 21842, 77559}, counts);
+        try(Stream<Path> files = Files.list(directory)){
+            assertEquals(9, files.count());
+        }
+    }
+
+    /**
+     * This tests the counts from a corner start match a breadth first search in memory
+     */
+    @Test
+    public void testMatchesInMemory() throws IOException{
+        long[] counts = new ReachableStateEnumerator(3, 0, 2, this.folder.getRoot().toPath(), 64).run(24);
+        assertEquals(9, counts.length);
+        assertMatchesInMemory(new MarbleSolitaireModelImpl(3, 0, 2), counts);
+    }
+
+    /**
+     * This tests the first levels of arm 5, a board of 85 slots that takes two words per
+     * position, match a breadth first search in memory, with a buffer small enough to write
+     * and merge many runs
+     */
+    @Test
+    public void testArmFive() throws IOException{
+        long[] counts = new ReachableStateEnumerator(5, 5, 5, this.folder.getRoot().toPath(), 64).run(79);
+        assertEquals(6, counts.length);
+        assertEquals(4, counts[1]);
+        assertMatchesInMemory(new MarbleSolitaireModelImpl(5, 5, 5), counts);
+
+        counts = new ReachableStateEnumerator(5, 3, 5, this.folder.getRoot().toPath(), 16).run(79);
+        assertMatchesInMemory(new MarbleSolitaireModelImpl(5, 3, 5), counts);
+    }
+
+    /**
+     * This checks the counts of each level against the positions found by a breadth first search in memory
+     */
+    private static void assertMatchesInMemory(MarbleSolitaireModelImpl start, long[] counts){
+        Set<String> level = new HashSet<>();
+        level.add(start.getGameState());
+        for(int m = 0; m < counts.length; m++){
+            assertEquals(level.size(), counts[m]);
+            Set<String> next = new HashSet<>();
+            for(String state : level){
+                MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(parse(state));
+                for(Move move : model.getLegalMoves()){
+                    model.move(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol());
+                    next.add(model.getGameState());
+                    model.undo();
+                }
+            }
+            level = next;
+        }
+    }
+
+    /**
+     * This tests a second run on the same directory reuses the complete levels and goes on from the last
+     */
+    @Test
+    public void testResume() throws IOException{
+        Path directory = this.folder.getRoot().toPath();
+        ReachableStateEnumerator first = new ReachableStateEnumerator(3, 3, 3, directory, 256);
+        first.run(28);
+        FileTime written = Files.getLastModifiedTime(first.levelPath(28));
+        // a level file left incomplete by an interrupted run
+        Files.write(first.levelPath(27).resolveSibling(first.levelPath(27).getFileName() + ".tmp"), new byte[]{1, 2, 3});
+
+        long[] counts = new ReachableStateEnumerator(3, 3, 3, directory, 256).run(26);
+        assertArrayEquals(new long[]{1, 4, 12, 60, 296, 1338, 5648}, counts);
+        assertEquals(written, Files.getLastModifiedTime(first.levelPath(28)));
+    }
+
+    /**
+     * This reads a board back from getGameState
+     */
+    private static SlotState[][] parse(String state){
+        String[] rows = state.split("\n");
+        SlotState[][] board = new SlotState[rows.length][rows.length];
+        for(int r = 0; r < rows.length; r++){
+            for(int c = 0; c < rows.length; c++){
+                char ch = 2 * c < rows[r].length() ? rows[r].charAt(2 * c) : ' ';
+                board[r][c] = ch == 'O' ? SlotState.Marble
+                        : ch == '_' ? SlotState.Empty : SlotState.OfB;
+            }
+        }
+        return board;
+    }
+}
@@ -0,0 +1,113 @@
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+import marblesolitaire.record.GameArchive;
+import marblesolitaire.record.GameArchiveWriter;
+import marblesolitaire.record.GameRecord;
+import marblesolitaire.record.ReplayEngine;
+import marblesolitaire.record.ReplayThroughput;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is a test for the ReplayEngine, on the positions it rebuilds from trusted game logs
+ */
+public class ReplayEngineTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * This tests the position after every move matches the model that made the moves,
+     * for checkpoint intervals that do and do not divide the number of moves, and across
+     * games of different arms loaded into the same engine
+     */
+    @Test
+    public void testPositions(){
+        SplittableRandom random = new SplittableRandom(3);
+        for(int interval : new int[]{1, 3, 8, 100}){
+            ReplayEngine engine = new ReplayEngine(interval);
+            for(GameRecord record : new GameRecord[]{GameRecords.random(3, 3, 3, random), GameRecords.random(5, 0, 4, random),
+                    GameRecords.random(3, 2, 0, random)}){
+                engine.load(record);
+                assertEquals(record.getMoveCount(), engine.getMoveCount());
+                MarbleSolitaireModelImpl model = record.newGame();
+                for(int m = 0; m <= record.getMoveCount(); m++){
+                    assertEquals(model.getScore(), engine.getScoreAt(m));
+                    assertEquals(model.getGameState(), engine.getModelAt(m).getGameState());
+                    if(m < record.getMoveCount()){
+                        Move move = record.getMoves().get(m);
+                        model.move(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * This tests the trusted and checked replay of an archive replay the same number of moves
+     */
+    @Test
+    public void testThroughputCounts() throws IOException{
+        Path file = this.folder.getRoot().toPath().resolve("games.msga");
+        SplittableRandom random = new SplittableRandom(9);
+        long moves = 0;
+        try(GameArchiveWriter writer = new GameArchiveWriter(file)){
+            for(int i = 0; i < 200; i++){
+                GameRecord record = GameRecords.random(3, 3, 3, random);
+                moves += record.getMoveCount();
+                writer.write(record);
+            }
+        }
+        try(GameArchive archive = new GameArchive(file)){
+            assertEquals(moves, ReplayThroughput.replayTrusted(archive, new ReplayEngine(4)));
+            assertEquals(moves, ReplayThroughput.replayChecked(archive, 200));
+        }
+    }
+
+    /**
+     * This tests a position after more moves than the game has is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMove(){
+        ReplayEngine engine = new ReplayEngine();
+        GameRecord record = GameRecords.random(3, 3, 3, new SplittableRandom(1));
+        engine.load(record);
+        engine.getBoardAt(record.getMoveCount() + 1);
+    }
+
+    /**
+     * This tests a game with an invalid start is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidStart(){
+        new ReplayEngine().load(new GameRecord(3, 0, 0, new int[0]));
+    }
+
+    /**
+     * This tests a rejected start on another arm leaves the loaded game unchanged
+     */
+    @Test
+    public void testInvalidStartKeepsGame(){
+        ReplayEngine engine = new ReplayEngine(4);
+        GameRecord record = GameRecords.random(3, 3, 3, new SplittableRandom(2));
+        engine.load(record);
+        String state = engine.getModelAt(record.getMoveCount()).getGameState();
+        for(GameRecord invalid : new GameRecord[]{new GameRecord(5, 0, 0, new int[0]), new GameRecord(4, 4, 4, new int[0])}){
+            try{
+                engine.load(invalid);
+                fail();
+            }catch(IllegalArgumentException e){
+                // the start is not a slot of the board, or the arm is even
+            }
+            assertEquals(record.getMoveCount(), engine.getMoveCount());
+            assertEquals(state, engine.getModelAt(record.getMoveCount()).getGameState());
+            assertEquals(record.newGame().getGameState(), engine.getModelAt(0).getGameState());
+        }
+    }
+}
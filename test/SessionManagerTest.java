@@ -0,0 +1,147 @@
+import marblesolitaire.metrics.ModelMetrics;
+import marblesolitaire.model.Move;
+import marblesolitaire.server.GameServer;
+import marblesolitaire.server.GameSession;
+import marblesolitaire.server.SessionManager;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is a test for the SessionManager and the GameServer front end
+ */
+public class SessionManagerTest {
+
+    /**
+     * This tests sessions are independent games found by their ids
+     */
+    @Test
+    public void testSessions(){
+        SessionManager manager = new SessionManager();
+        GameSession a = manager.create(3, 3, 3);
+        GameSession b = manager.create(5, 5, 5);
+        assertNotEquals(a.getId(), b.getId());
+        assertSame(a, manager.get(a.getId()));
+        assertEquals(2, manager.size());
+        assertTrue(a.move(1, 3, 3, 3));
+        assertFalse(a.move(1, 3, 3, 3));
+        assertEquals(31, a.getScore());
+        assertEquals(84, b.getScore());
+        assertTrue(manager.close(a.getId()));
+        assertFalse(manager.close(a.getId()));
+        assertNull(manager.get(a.getId()));
+        assertEquals(1, manager.size());
+    }
+
+    /**
+     * This tests an invalid start is refused
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidStart(){
+        new SessionManager().create(3, 0, 0);
+    }
+
+    /**
+     * This tests threads racing on the same sessions, every move is made whole or refused,
+     * so the score of each game drops by exactly the number of moves that were made on it
+     */
+    @Test
+    public void testConcurrentMoves() throws InterruptedException{
+        SessionManager manager = new SessionManager();
+        GameSession[] sessions = new GameSession[4];
+        AtomicInteger[] made = new AtomicInteger[sessions.length];
+        for(int i = 0; i < sessions.length; i++){
+            sessions[i] = manager.create(3, 3, 3);
+            made[i] = new AtomicInteger();
+        }
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < 4; t++){
+            Random random = new Random(t);
+            threads.add(new Thread(() -> {
+                for(int n = 0; n < 2000; n++){
+                    int i = random.nextInt(sessions.length);
+                    List<Move> legal = sessions[i].getLegalMoves();
+                    if(legal.isEmpty()) continue;
+                    Move m = legal.get(random.nextInt(legal.size()));
+                    if(sessions[i].move(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol())) made[i].incrementAndGet();
+                }
+            }));
+        }
+        for(Thread thread : threads) thread.start();
+        for(Thread thread : threads) thread.join();
+        for(int i = 0; i < sessions.length; i++){
+            assertTrue(sessions[i].isGameOver());
+            assertEquals(32 - made[i].get(), sessions[i].getScore());
+        }
+    }
+
+    /**
+     * This tests a game played through the HTTP front end
+     */
+    @Test
+    public void testServer() throws IOException{
+        SessionManager manager = new SessionManager();
+        try(GameServer server = new GameServer(manager, 0, 2)){
+            server.start();
+            String base = String.format("http://localhost:%d/sessions", server.getPort());
+            String id = request("POST", base + "?arm=3&row=3&col=3", 200);
+            assertNotNull(manager.get(id));
+            assertEquals("1 3 3 3\n3 1 3 3\n3 5 3 3\n5 3 3 3\n", request("GET", base + "/" + id + "/moves", 200));
+            assertEquals("score 31 over false", request("POST", base + "/" + id + "/move?fromRow=1&fromCol=3&toRow=3&toCol=3", 200));
+            request("POST", base + "/" + id + "/move?fromRow=1&fromCol=3&toRow=3&toCol=3", 409);
+            request("POST", base + "/" + id + "/move?fromRow=1", 400);
+            assertTrue(request("GET", base + "/" + id, 200).endsWith("score 31 over false"));
+            request("DELETE", base + "/" + id, 200);
+            request("GET", base + "/" + id, 404);
+            request("POST", base + "?arm=4&row=3&col=3", 400);
+        }
+    }
+
+    /**
+     * This tests the games of a manager with metrics are metered, and the metrics are served
+     * by the HTTP front end only when there are metrics
+     */
+    @Test
+    public void testMetrics() throws IOException{
+        ModelMetrics metrics = new ModelMetrics();
+        SessionManager manager = new SessionManager(null, metrics);
+        assertSame(metrics, manager.getMetrics());
+        GameSession session = manager.create(3, 3, 3);
+        assertTrue(session.move(1, 3, 3, 3));
+        assertFalse(session.move(1, 3, 3, 3));
+        assertEquals(1, metrics.getMoves());
+        assertEquals(1, metrics.getInvalidMoves());
+        try(GameServer server = new GameServer(manager, 0, 2)){
+            server.start();
+            String base = String.format("http://localhost:%d", server.getPort());
+            request("POST", base + "/sessions/" + session.getId() + "/move?fromRow=2&fromCol=1&toRow=2&toCol=3", 200);
+            String body = request("GET", base + "/metrics", 200);
+            assertTrue(body.startsWith("moves 2\ninvalid.moves 1\n"));
+            assertTrue(body.contains("move.count 3\n"));
+            request("GET", base + "/metrics/other", 404);
+        }
+        try(GameServer server = new GameServer(new SessionManager(), 0, 1)){
+            server.start();
+            request("GET", String.format("http://localhost:%d/metrics", server.getPort()), 404);
+        }
+    }
+
+    private static String request(String method, String url, int status) throws IOException{
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        assertEquals(status, connection.getResponseCode());
+        try(InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()){
+            return in == null ? "" : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+import marblesolitaire.metrics.ModelMetrics;
+import marblesolitaire.server.GameSession;
+import marblesolitaire.server.SessionManager;
+import marblesolitaire.server.SessionStore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is a test for the SessionStore, packing idle games and storing them in its file
+ */
+public class SessionStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * This tests idle games are packed, the oldest are stored, and every game comes back
+     * unchanged on its next move
+     */
+    @Test
+    public void testSweep() throws IOException, InterruptedException{
+        try(SessionStore store = new SessionStore(this.folder.getRoot().toPath().resolve("sessions.bin"), 0, 1)){
+            SessionManager manager = new SessionManager(store);
+            GameSession old = manager.create(3, 3, 3);
+            assertTrue(old.move(1, 3, 3, 3));
+            Thread.sleep(1);
+            GameSession recent = manager.create(5, 5, 5);
+            assertTrue(recent.move(3, 5, 5, 5));
+            String oldState = old.getGameState();
+            String recentState = recent.getGameState();
+            Thread.sleep(1);
+
+            // both games are packed, and the older one is stored to keep one packed
+            assertEquals(3, manager.sweep());
+            assertEquals(0, manager.countLive());
+            assertEquals(1, manager.countPacked());
+            assertTrue(recent.isPacked());
+            assertFalse(old.isLive() || old.isPacked());
+            assertTrue(store.getFileSize() > 0);
+
+            assertEquals(oldState, old.getGameState());
+            assertTrue(old.isLive());
+            assertTrue(old.move(2, 1, 2, 3));
+            assertEquals(30, old.getScore());
+            assertEquals(recentState, recent.getGameState());
+            assertTrue(recent.move(3, 3, 3, 5));
+            assertEquals(82, recent.getScore());
+            assertEquals(2, manager.countLive());
+        }
+    }
+
+    /**
+     * This tests a game in use is not packed
+     */
+    @Test
+    public void testBusyNotPacked() throws IOException{
+        try(SessionStore store = new SessionStore(this.folder.getRoot().toPath().resolve("sessions.bin"), 1_000_000_000_000L, 10)){
+            SessionManager manager = new SessionManager(store);
+            GameSession session = manager.create(3, 3, 3);
+            assertEquals(0, manager.sweep());
+            assertTrue(session.isLive());
+        }
+    }
+
+    /**
+     * This tests a game rehydrated from the store is still metered
+     */
+    @Test
+    public void testMetricsAfterRehydrate() throws IOException{
+        ModelMetrics metrics = new ModelMetrics();
+        try(SessionStore store = new SessionStore(this.folder.getRoot().toPath().resolve("sessions.bin"), 0, 0)){
+            SessionManager manager = new SessionManager(store, metrics);
+            GameSession session = manager.create(3, 3, 3);
+            assertTrue(session.move(1, 3, 3, 3));
+            assertEquals(2, manager.sweep());
+            assertTrue(session.move(2, 1, 2, 3));
+            assertTrue(session.isLive());
+            assertEquals(2, metrics.getMoves());
+        }
+    }
+
+    /**
+     * This tests a game stored and read back many times does not grow the file without bound,
+     * and comes back unchanged every time
+     */
+    @Test
+    public void testFileStaysBounded() throws IOException{
+        try(SessionStore store = new SessionStore(this.folder.getRoot().toPath().resolve("sessions.bin"), 0, 0)){
+            SessionManager manager = new SessionManager(store);
+            GameSession session = manager.create(5, 5, 5);
+            assertTrue(session.move(3, 5, 5, 5));
+            String state = session.getGameState();
+            for(int i = 0; i < 2000; i++){
+                assertEquals(2, manager.sweep());
+                assertTrue(store.getFileSize() <= 4096);
+                assertEquals(state, session.getGameState());
+            }
+            assertEquals(0, store.getLiveSize());
+        }
+    }
+
+    /**
+     * This tests closing a stored session frees its space, and the next sweep compacts the file
+     * to the games still stored
+     */
+    @Test
+    public void testCloseFreesSpace() throws IOException{
+        try(SessionStore store = new SessionStore(this.folder.getRoot().toPath().resolve("sessions.bin"), 0, 0)){
+            SessionManager manager = new SessionManager(store);
+            GameSession kept = manager.create(3, 3, 3);
+            assertTrue(kept.move(1, 3, 3, 3));
+            String state = kept.getGameState();
+            List<String> closed = new ArrayList<>();
+            for(int i = 0; i < 2000; i++){
+                closed.add(manager.create(5, 5, 5).getId());
+            }
+            manager.sweep();
+            long full = store.getFileSize();
+            assertTrue(full > 4096);
+            assertEquals(full, store.getLiveSize());
+            for(String id : closed){
+                assertTrue(manager.close(id));
+            }
+            assertTrue(store.getLiveSize() < full / 100);
+            manager.sweep();
+            assertEquals(store.getLiveSize(), store.getFileSize());
+            assertEquals(state, kept.getGameState());
+        }
+    }
+}
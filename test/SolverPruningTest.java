@@ -0,0 +1,112 @@
+import marblesolitaire.model.BoardGeometry;
+import marblesolitaire.model.MarbleSolitaireModelImpl;
+import marblesolitaire.model.Move;
+import marblesolitaire.model.SlotState;
+import marblesolitaire.solver.BoardEncoding;
+import marblesolitaire.solver.PegSolitaireSolver;
+import marblesolitaire.solver.SolverPruning;
+import marblesolitaire.solver.SolverResult;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is a test for the SolverPruning bounds, and the solver searching with them
+ */
+public class SolverPruningTest {
+
+    private static SolverPruning pruningOf(MarbleSolitaireModelImpl model){
+        BoardEncoding encoding = BoardEncoding.of(model);
+        return new SolverPruning(encoding, encoding.encode(model.getBoard()));
+    }
+
+    /**
+     * This tests the pruned solver finds a solution on the default board that replays to one marble
+     */
+    @Test
+    public void testPrunedSolve(){
+        MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(3, 2, 3);
+        SolverResult result = new PegSolitaireSolver(false, true).solve(model);
+        assertTrue(result.isSolved());
+        for(Move m : result.getMoves()){
+            model.move(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol());
+        }
+        assertEquals(1, model.getScore());
+        assertTrue(result.getStats().getPrunedNodes() <= result.getStats().getNodes());
+    }
+
+    /**
+     * This tests the pruned and unpruned solvers agree on every start of the small boards
+     */
+    @Test
+    public void testAgreesWithUnpruned(){
+        for(BoardGeometry geometry : new BoardGeometry[]{BoardGeometry.triangular(5), BoardGeometry.hexagonal(3)}){
+            for(int r = 0; r < geometry.getDim(); r++){
+                for(int c = 0; c < geometry.getDim(); c++){
+                    if(geometry.cellAt(r, c) < 0) continue;
+                    MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl(geometry, r, c);
+                    assertEquals(new PegSolitaireSolver().solve(model).isSolved(),
+                            new PegSolitaireSolver(false, true).solve(model).isSolved());
+                }
+            }
+        }
+    }
+
+    /**
+     * This tests the position classes, from the center of the English board one marble can
+     * only be left on the 5 slots of the center's class, and the center of the European board
+     * cannot be solved at all
+     */
+    @Test
+    public void testLastSlots(){
+        assertEquals(5, pruningOf(new MarbleSolitaireModelImpl()).getLastSlotCount());
+        SolverPruning european = pruningOf(new MarbleSolitaireModelImpl(BoardGeometry.european(), 3, 3));
+        assertEquals(0, european.getLastSlotCount());
+        SolverResult result = new PegSolitaireSolver(false, true).solve(new MarbleSolitaireModelImpl(BoardGeometry.european(), 3, 3));
+        assertFalse(result.isSolved());
+        assertEquals(0, result.getStats().getNodes());
+    }
+
+    /**
+     * This tests the live region bound counts marbles that can never meet
+     */
+    @Test
+    public void testLowerBound(){
+        MarbleSolitaireModelImpl model = new MarbleSolitaireModelImpl();
+        BoardEncoding encoding = BoardEncoding.of(model);
+        SolitaireBoard board = new SolitaireBoard(model.getBoard());
+        // two marbles far apart in opposite arms
+        board.only(0, 3, 6, 3);
+        long[] apart = encoding.encode(board.slots);
+        SolverPruning pruning = new SolverPruning(encoding, encoding.encode(model.getBoard()));
+        assertEquals(2, pruning.lowerBound(apart));
+        assertFalse(pruning.canReachOne(apart));
+        assertTrue(pruning.canReach(apart, 2));
+        // two neighbours can jump into one
+        board.only(3, 2, 3, 3);
+        long[] near = encoding.encode(board.slots);
+        assertEquals(1, pruning.lowerBound(near));
+        assertEquals(1, pruning.lowerBound(encoding.encode(model.getBoard())));
+    }
+
+    /**
+     * This is a helper clearing all marbles of a board but two
+     */
+    private static class SolitaireBoard {
+        final SlotState[][] slots;
+
+        SolitaireBoard(SlotState[][] slots){
+            this.slots = slots;
+        }
+
+        void only(int r1, int c1, int r2, int c2){
+            for(int r = 0; r < this.slots.length; r++){
+                for(int c = 0; c < this.slots.length; c++){
+                    if(this.slots[r][c] != SlotState.OfB) this.slots[r][c] = SlotState.Empty;
+                }
+            }
+            this.slots[r1][c1] = SlotState.Marble;
+            this.slots[r2][c2] = SlotState.Marble;
+        }
+    }
+}